@@ -0,0 +1,47 @@
+package edu.asu.diging.rcn.match.engine.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@PropertySource("classpath:/config.properties")
+public class JobConfig {
+
+    @Value("${_job_executor_threads}")
+    private int executorThreads;
+
+    @Value("${_estimate_executor_threads}")
+    private int estimateThreads;
+
+    @Value("${_estimate_queue_size}")
+    private int estimateQueueSize;
+
+    @Bean
+    public ThreadPoolTaskExecutor matchJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(executorThreads);
+        executor.setMaxPoolSize(executorThreads);
+        executor.setThreadNamePrefix("match-job-");
+        // running jobs are cancelled on shutdown, they would take too long to finish
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * Runs the estimates requested through the api, so that sampling
+     * datasets does not tie up request threads.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor estimateExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(estimateThreads);
+        executor.setMaxPoolSize(estimateThreads);
+        executor.setQueueCapacity(estimateQueueSize);
+        executor.setThreadNamePrefix("estimate-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
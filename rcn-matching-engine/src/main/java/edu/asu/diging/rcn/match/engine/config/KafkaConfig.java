@@ -5,8 +5,10 @@ import java.util.Map;
 import java.util.Random;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.IntegerDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,7 +17,11 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
 
+import edu.asu.diging.rcn.match.engine.core.kafka.IndexUpdateListener;
 import edu.asu.diging.rcn.match.engine.core.kafka.MatchDatasetListener;
 
 @Configuration
@@ -34,6 +40,15 @@ public class KafkaConfig {
     
     @Value("${_consumer_client_id_prefix}")
     private String consumerClientIdPrefix;
+
+    @Value("${_producer_linger_ms}")
+    private int producerLingerMs;
+
+    @Value("${_producer_batch_size}")
+    private int producerBatchSize;
+
+    @Value("${_producer_compression}")
+    private String producerCompression;
     
 
     public String getHosts() {
@@ -79,8 +94,37 @@ public class KafkaConfig {
         return factory;
     }
     
+    @Bean
+    public Map<String, Object> producerConfigs() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, getHosts());
+        props.put(ProducerConfig.CLIENT_ID_CONFIG, getProducerId());
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        // result messages are sent one per base record, they are sent in compressed batches
+        props.put(ProducerConfig.LINGER_MS_CONFIG, producerLingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, producerBatchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producerCompression);
+        return props;
+    }
+
+    @Bean
+    public ProducerFactory<String, String> producerFactory() {
+        return new DefaultKafkaProducerFactory<>(producerConfigs());
+    }
+
+    @Bean
+    public KafkaTemplate<String, String> kafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
+
     @Bean
     public MatchDatasetListener referenceImportListener() {
         return new MatchDatasetListener();
     }
+
+    @Bean
+    public IndexUpdateListener indexUpdateListener() {
+        return new IndexUpdateListener();
+    }
 }
\ No newline at end of file
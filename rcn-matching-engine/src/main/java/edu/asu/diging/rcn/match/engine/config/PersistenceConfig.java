@@ -12,6 +12,7 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.core.env.Environment;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
@@ -22,31 +23,68 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
+import edu.asu.diging.rcn.match.engine.core.search.SearchMappingFactory;
+
 @Configuration
 @PropertySource("classpath:config.properties")
 @EnableTransactionManagement
-@EnableJpaRepositories(basePackages = { "edu.asu.diging.simpleusers.core.data", "edu.asu.diging.eaccpf.data" })
+@EnableJpaRepositories(basePackages = { "edu.asu.diging.simpleusers.core.data", "edu.asu.diging.eaccpf.data",
+        "edu.asu.diging.rcn.match.engine.core.data" })
 public class PersistenceConfig {
 
     @Autowired
     private Environment env;
 
+    /**
+     * Pools of the primary and, if one is configured, the replica database.
+     * Read-only transactions (loading datasets and records for a job) go to
+     * the replica, so that large jobs don't slow down the primary, which
+     * stores the matches and serves the RCN application.
+     */
     @Bean(destroyMethod = "close")
-    public DataSource dataSource() {
-        HikariConfig dataSourceConfig = new HikariConfig();
-        dataSourceConfig.setDriverClassName(env.getRequiredProperty("db.driver"));
-        dataSourceConfig.setJdbcUrl(env.getRequiredProperty("db.url"));
-        dataSourceConfig.setUsername(env.getRequiredProperty("db.username"));
-        dataSourceConfig.setPassword(env.getRequiredProperty("db.password"));
+    public ReplicaRoutingDataSource routingDataSource() {
+        HikariConfig primaryConfig = new HikariConfig();
+        primaryConfig.setPoolName("primary");
+        primaryConfig.setDriverClassName(env.getRequiredProperty("db.driver"));
+        primaryConfig.setJdbcUrl(env.getRequiredProperty("db.url"));
+        primaryConfig.setUsername(env.getRequiredProperty("db.username"));
+        primaryConfig.setPassword(env.getRequiredProperty("db.password"));
+        primaryConfig.setMaximumPoolSize(env.getRequiredProperty("_db_pool_size", Integer.class));
+        HikariDataSource primary = new HikariDataSource(primaryConfig);
+
+        HikariDataSource replica = null;
+        String replicaUrl = env.getProperty("db.replica.url", "").trim();
+        if (!replicaUrl.isEmpty()) {
+            HikariConfig replicaConfig = new HikariConfig();
+            replicaConfig.setPoolName("replica");
+            replicaConfig.setDriverClassName(env.getRequiredProperty("db.driver"));
+            replicaConfig.setJdbcUrl(replicaUrl);
+            replicaConfig.setUsername(env.getRequiredProperty("db.replica.username"));
+            replicaConfig.setPassword(env.getRequiredProperty("db.replica.password"));
+            replicaConfig.setMaximumPoolSize(env.getRequiredProperty("_db_replica_pool_size", Integer.class));
+            replicaConfig.setReadOnly(true);
+            try {
+                replica = new HikariDataSource(replicaConfig);
+            } catch (RuntimeException e) {
+                primary.close();
+                throw e;
+            }
+        }
+        return new ReplicaRoutingDataSource(primary, replica);
+    }
 
-        return new HikariDataSource(dataSourceConfig);
+    @Bean
+    public DataSource dataSource() {
+        // the read-only flag of a transaction is set after it got its connection,
+        // so the connection is only fetched with the first statement
+        return new LazyConnectionDataSourceProxy(routingDataSource());
     }
 
     @Bean
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource());
-        em.setPackagesToScan(new String[] { "edu.asu.diging.rcn.core.model", "edu.asu.diging.simpleusers.core.model", "edu.asu.diging.oauth.tokens.core.model", "edu.asu.diging.eaccpf.model" });
+        em.setPackagesToScan(new String[] { "edu.asu.diging.rcn.core.model", "edu.asu.diging.simpleusers.core.model", "edu.asu.diging.oauth.tokens.core.model", "edu.asu.diging.eaccpf.model", "edu.asu.diging.rcn.match.engine.core.model" });
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
@@ -74,9 +112,43 @@ public class PersistenceConfig {
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
         properties.setProperty("hibernate.show_sql", "false");
         properties.setProperty("hibernate.id.new_generator_mappings", "true");
+        // lets cluster assignments and other bulk writes be sent in JDBC batches
+        properties.setProperty("hibernate.jdbc.batch_size", "100");
+        properties.setProperty("hibernate.order_inserts", "true");
 
         properties.setProperty("hibernate.search.default.directory_provider", "filesystem");
         properties.setProperty("hibernate.search.default.indexBase", env.getRequiredProperty("_hibernate_index_base"));
+        // candidate retrieval is read heavy, memory mapped files leave caching to the OS
+        properties.setProperty("hibernate.search.default.filesystem_access_type",
+                env.getRequiredProperty("_hibernate_index_access_type"));
+        properties.setProperty("hibernate.search.default.indexwriter.ram_buffer_size", "64");
+        // a mapping instance rather than a factory class name, so that the mapping can be configured
+        properties.put("hibernate.search.model_mapping",
+                new SearchMappingFactory(env.getRequiredProperty("_name_normalizer_cache_size", Integer.class))
+                        .getSearchMapping());
+
+        // datasets and records of the reference datasets are read by every job, so they are
+        // kept in a second-level cache across jobs; its regions are bounded in ehcache.xml
+        if (env.getRequiredProperty("_cache_enabled", Boolean.class)) {
+            properties.setProperty("hibernate.cache.use_second_level_cache", "true");
+            properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+            properties.setProperty("hibernate.javax.cache.provider", "org.ehcache.jsr107.EhcacheCachingProvider");
+            properties.setProperty("hibernate.javax.cache.uri", "ehcache.xml");
+            properties.setProperty("hibernate.javax.cache.missing_cache_strategy", "create");
+            // hit ratios are reported by the cache API
+            properties.setProperty("hibernate.generate_statistics", "true");
+            // the entities are mapped in the model library, so they are configured for caching here
+            for (String entity : env.getRequiredProperty("_cache_entities", String[].class)) {
+                if (!entity.trim().isEmpty()) {
+                    properties.setProperty("hibernate.ejb.classcache." + entity.trim(), "read-write");
+                }
+            }
+            for (String role : env.getRequiredProperty("_cache_collections", String[].class)) {
+                if (!role.trim().isEmpty()) {
+                    properties.setProperty("hibernate.ejb.collectioncache." + role.trim(), "read-write");
+                }
+            }
+        }
 
         
         return properties;
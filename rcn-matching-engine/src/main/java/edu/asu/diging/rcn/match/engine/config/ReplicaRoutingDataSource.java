@@ -0,0 +1,74 @@
+package edu.asu.diging.rcn.match.engine.config;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Sends the statements of read-only transactions to the replica pool and
+ * everything else to the primary pool. Whether a transaction is read-only is
+ * only known once it has been started, so this data source has to be wrapped
+ * in a LazyConnectionDataSourceProxy that fetches the connection with the
+ * first statement. Without a replica, all statements go to the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+
+    /**
+     * @param replica
+     *            the replica pool or null if there is no replica
+     */
+    public ReplicaRoutingDataSource(HikariDataSource primary, HikariDataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Target.PRIMARY, primary);
+        if (replica != null) {
+            targets.put(Target.REPLICA, replica);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource#
+     * determineCurrentLookupKey()
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replica != null && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Target.REPLICA;
+        }
+        return Target.PRIMARY;
+    }
+
+    public boolean hasReplica() {
+        return replica != null;
+    }
+
+    /**
+     * Closes both pools.
+     */
+    @Override
+    public void close() {
+        primary.close();
+        if (replica != null) {
+            replica.close();
+        }
+    }
+}
@@ -3,11 +3,13 @@ package edu.asu.diging.rcn.match.engine.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
@@ -46,6 +48,28 @@ public class SecurityContext extends WebSecurityConfigurerAdapter {
                 .anyRequest().hasRole("USER");
     }
 
+    /**
+     * Secures the REST API with HTTP basic authentication against the same
+     * users as the web interface. API clients don't have sessions, so they
+     * don't need CSRF tokens. Starting clusterings and reading engine stats
+     * is restricted to admins.
+     */
+    @Configuration
+    @Order(1)
+    public static class ApiSecurityContext extends WebSecurityConfigurerAdapter {
+
+        @Override
+        protected void configure(HttpSecurity http) throws Exception {
+            http.antMatcher("/api/**").csrf().disable()
+                    .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                    .and().httpBasic()
+                    .and().authorizeRequests()
+                    .antMatchers(HttpMethod.POST, "/api/clusters/**").hasRole("ADMIN")
+                    .antMatchers("/api/cache/**", "/api/index/**").hasRole("ADMIN")
+                    .anyRequest().hasAnyRole("USER", "ADMIN");
+        }
+    }
+
     @Bean
     public BCryptPasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder(4);
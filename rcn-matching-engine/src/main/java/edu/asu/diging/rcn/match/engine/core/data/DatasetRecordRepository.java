@@ -0,0 +1,35 @@
+package edu.asu.diging.rcn.match.engine.core.data;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import edu.asu.diging.eaccpf.model.impl.RecordImpl;
+
+public interface DatasetRecordRepository extends Repository<RecordImpl, String> {
+
+    @Query("SELECT COUNT(r) FROM RecordImpl r WHERE r.datasetId = :datasetId")
+    long countByDataset(@Param("datasetId") String datasetId);
+
+    @Query("SELECT COUNT(r) FROM RecordImpl r")
+    long countAll();
+
+    /**
+     * Returns a partition of the records of a dataset. Records are ordered by
+     * id, so that a partition contains the same records every time it is
+     * loaded.
+     */
+    @Query("SELECT r FROM RecordImpl r WHERE r.datasetId = :datasetId ORDER BY r.id")
+    List<RecordImpl> findByDataset(@Param("datasetId") String datasetId, Pageable pageable);
+
+    @Query("SELECT r.id FROM RecordImpl r WHERE r.datasetId = :datasetId")
+    List<String> findIdsByDataset(@Param("datasetId") String datasetId);
+
+    @Query("SELECT r FROM RecordImpl r WHERE r.id IN :ids ORDER BY r.id")
+    List<RecordImpl> findByIds(@Param("ids") Collection<String> ids);
+
+}
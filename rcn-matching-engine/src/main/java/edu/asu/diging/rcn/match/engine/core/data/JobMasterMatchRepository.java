@@ -0,0 +1,12 @@
+package edu.asu.diging.rcn.match.engine.core.data;
+
+import org.springframework.data.repository.PagingAndSortingRepository;
+
+import edu.asu.diging.eaccpf.model.match.impl.MasterMatchImpl;
+
+public interface JobMasterMatchRepository extends PagingAndSortingRepository<MasterMatchImpl, String> {
+
+    MasterMatchImpl findFirstByJobIdAndRecordIdAndMatchedDatasetId(String jobId, String recordId,
+            String matchedDatasetId);
+
+}
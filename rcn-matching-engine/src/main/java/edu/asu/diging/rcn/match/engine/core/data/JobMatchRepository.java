@@ -0,0 +1,15 @@
+package edu.asu.diging.rcn.match.engine.core.data;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.PagingAndSortingRepository;
+
+import edu.asu.diging.eaccpf.model.match.impl.MatchImpl;
+
+public interface JobMatchRepository extends PagingAndSortingRepository<MatchImpl, String> {
+
+    Page<MatchImpl> findByJobId(String jobId, Pageable pageable);
+
+    MatchImpl findFirstByJobId(String jobId);
+
+}
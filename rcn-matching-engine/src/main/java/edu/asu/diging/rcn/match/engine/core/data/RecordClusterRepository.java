@@ -0,0 +1,16 @@
+package edu.asu.diging.rcn.match.engine.core.data;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.PagingAndSortingRepository;
+
+import edu.asu.diging.rcn.match.engine.core.model.impl.RecordClusterImpl;
+
+public interface RecordClusterRepository extends PagingAndSortingRepository<RecordClusterImpl, String> {
+
+    RecordClusterImpl findFirstByClusteringIdAndRecordId(String clusteringId, String recordId);
+
+    Page<RecordClusterImpl> findByClusteringIdAndClusterId(String clusteringId, String clusterId,
+            Pageable pageable);
+
+}
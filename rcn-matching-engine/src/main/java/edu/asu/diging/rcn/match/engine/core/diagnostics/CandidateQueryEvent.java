@@ -0,0 +1,33 @@
+package edu.asu.diging.rcn.match.engine.core.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("edu.asu.diging.rcn.match.CandidateQuery")
+@Label("Candidate Query")
+@Category({ "RCN Matching Engine", "Retrieval" })
+@Description("A slow query for the candidates of a name part")
+@StackTrace(false)
+class CandidateQueryEvent extends Event {
+
+    @Label("Retriever")
+    String retriever;
+
+    @Label("Record Id")
+    String recordId;
+
+    @Label("Term")
+    String term;
+
+    @Label("Hits")
+    int hits;
+
+    @Label("Query Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long queryTime;
+}
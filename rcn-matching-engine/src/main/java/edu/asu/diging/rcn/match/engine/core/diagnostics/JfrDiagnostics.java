@@ -0,0 +1,110 @@
+package edu.asu.diging.rcn.match.engine.core.diagnostics;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Creates and commits the engine's flight recorder events. This is the only
+ * class outside of the events that uses the JFR API, so that nothing else
+ * fails to load on a JVM without it. An event type is only enabled while a
+ * recording that includes it is running.
+ */
+public class JfrDiagnostics {
+
+    private final EventType retrievalType;
+    private final EventType scoringType;
+    private final EventType queryType;
+    private final EventType pairType;
+
+    public JfrDiagnostics() {
+        // registered up front, so that recordings list the events before the first job
+        FlightRecorder.register(RecordRetrievalEvent.class);
+        FlightRecorder.register(RecordScoringEvent.class);
+        FlightRecorder.register(CandidateQueryEvent.class);
+        FlightRecorder.register(PairScoringEvent.class);
+        retrievalType = EventType.getEventType(RecordRetrievalEvent.class);
+        scoringType = EventType.getEventType(RecordScoringEvent.class);
+        queryType = EventType.getEventType(CandidateQueryEvent.class);
+        pairType = EventType.getEventType(PairScoringEvent.class);
+    }
+
+    /**
+     * Returns false if the JVM has been started with the flight recorder
+     * disabled.
+     */
+    public static boolean isAvailable() {
+        return FlightRecorder.isAvailable();
+    }
+
+    public boolean isRetrievalEnabled() {
+        return retrievalType.isEnabled();
+    }
+
+    public boolean isScoringEnabled() {
+        return scoringType.isEnabled();
+    }
+
+    public boolean isQueryEnabled() {
+        return queryType.isEnabled();
+    }
+
+    public boolean isPairEnabled() {
+        return pairType.isEnabled();
+    }
+
+    public void commitRetrieval(String jobId, String recordId, int entries, int candidates, int scoredCandidates,
+            long retrievalTime) {
+        RecordRetrievalEvent event = new RecordRetrievalEvent();
+        event.jobId = jobId;
+        event.recordId = recordId;
+        event.entries = entries;
+        event.candidates = candidates;
+        event.scoredCandidates = scoredCandidates;
+        event.retrievalTime = retrievalTime;
+        event.commit();
+    }
+
+    public void commitScoring(String jobId, String recordId, int candidates, int matches, long biographyLength,
+            long scoringTime) {
+        RecordScoringEvent event = new RecordScoringEvent();
+        event.jobId = jobId;
+        event.recordId = recordId;
+        event.candidates = candidates;
+        event.matches = matches;
+        event.biographyLength = biographyLength;
+        event.scoringTime = scoringTime;
+        event.commit();
+    }
+
+    public void commitQuery(String retriever, String recordId, String term, int hits, long queryTime) {
+        CandidateQueryEvent event = new CandidateQueryEvent();
+        event.retriever = retriever;
+        event.recordId = recordId;
+        event.term = term;
+        event.hits = hits;
+        event.queryTime = queryTime;
+        event.commit();
+    }
+
+    /**
+     * @param stageTimes
+     *            times of the name, date and biography stages and of all
+     *            other stages, in this order
+     */
+    public void commitPair(String recordId, String candidateDatasetId, String candidateRecordId, long[] stageTimes,
+            long scoringTime, int bioKeywords, int candidateBioKeywords, float overallScore) {
+        PairScoringEvent event = new PairScoringEvent();
+        event.recordId = recordId;
+        event.candidateDatasetId = candidateDatasetId;
+        event.candidateRecordId = candidateRecordId;
+        event.nameTime = stageTimes[0];
+        event.dateTime = stageTimes[1];
+        event.bioTime = stageTimes[2];
+        event.otherTime = stageTimes[3];
+        event.scoringTime = scoringTime;
+        event.bioKeywords = bioKeywords;
+        event.candidateBioKeywords = candidateBioKeywords;
+        event.overallScore = overallScore;
+        event.commit();
+    }
+}
@@ -0,0 +1,55 @@
+package edu.asu.diging.rcn.match.engine.core.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("edu.asu.diging.rcn.match.PairScoring")
+@Label("Pair Scoring")
+@Category({ "RCN Matching Engine", "Scoring" })
+@Description("Time spent in each scoring stage for a slow pair of a base name entry and a candidate")
+@StackTrace(false)
+class PairScoringEvent extends Event {
+
+    @Label("Record Id")
+    String recordId;
+
+    @Label("Candidate Dataset Id")
+    String candidateDatasetId;
+
+    @Label("Candidate Record Id")
+    String candidateRecordId;
+
+    @Label("Name Scoring Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long nameTime;
+
+    @Label("Date Scoring Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long dateTime;
+
+    @Label("Biography Scoring Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long bioTime;
+
+    @Label("Other Stages Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long otherTime;
+
+    @Label("Scoring Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long scoringTime;
+
+    @Label("Biography Keywords")
+    int bioKeywords;
+
+    @Label("Candidate Biography Keywords")
+    int candidateBioKeywords;
+
+    @Label("Overall Score")
+    float overallScore;
+}
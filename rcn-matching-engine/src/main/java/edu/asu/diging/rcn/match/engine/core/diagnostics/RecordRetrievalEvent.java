@@ -0,0 +1,37 @@
+package edu.asu.diging.rcn.match.engine.core.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("edu.asu.diging.rcn.match.RecordRetrieval")
+@Label("Record Retrieval")
+@Category({ "RCN Matching Engine", "Records" })
+@Description("Candidates found for a base record that was slow to retrieve or had many candidates")
+@StackTrace(false)
+class RecordRetrievalEvent extends Event {
+
+    @Label("Job Id")
+    String jobId;
+
+    @Label("Record Id")
+    String recordId;
+
+    @Label("Name Entries")
+    int entries;
+
+    @Label("Candidates")
+    int candidates;
+
+    @Label("Scored Candidates")
+    @Description("Candidates left after the date prefilter, the upper bound and the top K selection")
+    int scoredCandidates;
+
+    @Label("Retrieval Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long retrievalTime;
+}
@@ -0,0 +1,38 @@
+package edu.asu.diging.rcn.match.engine.core.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("edu.asu.diging.rcn.match.RecordScoring")
+@Label("Record Scoring")
+@Category({ "RCN Matching Engine", "Records" })
+@Description("Scoring of all candidates of a base record that was slow to score or had many candidates")
+@StackTrace(false)
+class RecordScoringEvent extends Event {
+
+    @Label("Job Id")
+    String jobId;
+
+    @Label("Record Id")
+    String recordId;
+
+    @Label("Candidates")
+    int candidates;
+
+    @Label("Matches")
+    int matches;
+
+    @Label("Biography Length")
+    @DataAmount(DataAmount.BYTES)
+    long biographyLength;
+
+    @Label("Scoring Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long scoringTime;
+}
@@ -0,0 +1,30 @@
+package edu.asu.diging.rcn.match.engine.core.exception;
+
+/**
+ * Thrown when a running job notices that it was cancelled or ran out of
+ * budget.
+ */
+public class JobStoppedException extends RuntimeException {
+
+    /**
+     * 
+     */
+    private static final long serialVersionUID = 1L;
+
+    public JobStoppedException() {
+        super();
+    }
+
+    public JobStoppedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public JobStoppedException(String message) {
+        super(message);
+    }
+
+    public JobStoppedException(Throwable cause) {
+        super(cause);
+    }
+
+}
@@ -0,0 +1,213 @@
+package edu.asu.diging.rcn.match.engine.core.export;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.asu.diging.rcn.match.engine.core.store.FloatList;
+import edu.asu.diging.rcn.match.engine.core.store.IntList;
+
+/**
+ * Writes the matches of a job to a compact, columnar file while the job is
+ * running. Rows are buffered and written in blocks; within a block every
+ * column is stored contiguously, so consumers can memory map the file and
+ * read single columns without parsing rows.
+ *
+ * <p>
+ * All numbers are big endian, strings are UTF-8. The file is laid out as
+ * follows:
+ * </p>
+ *
+ * <pre>
+ * header:  magic "RCNM", int version (1),
+ *          string job id, string base dataset id,
+ *          int n, n strings match dataset ids,
+ *          string initiator, long creation time (epoch millis)
+ * block:   int row count (&gt; 0),
+ *          string column base record ids,
+ *          int[rows] index of the compare dataset in the match dataset ids,
+ *          string column compare record ids,
+ *          float[rows] lucene scores, float[rows] name scores,
+ *          float[rows] date scores, float[rows] bio scores,
+ *          float[rows] overall scores
+ * footer:  int 0, long total rows, int block count, string job status,
+ *          long finish time (epoch millis), magic "RCNM"
+ *
+ * string:        int byte length, bytes
+ * string column: int[rows + 1] offsets into the bytes, int byte length, bytes
+ * </pre>
+ *
+ * Date and biography scores of -1 mean the score is unknown. The file is
+ * written under a temporary name and only renamed to its final name when it
+ * is complete.
+ */
+public class MatchResultWriter implements Closeable {
+
+    public static final byte[] MAGIC = "RCNM".getBytes(StandardCharsets.US_ASCII);
+    public static final int VERSION = 1;
+    public static final String TEMP_SUFFIX = ".part";
+
+    private final File file;
+    private final File tempFile;
+    private final DataOutputStream out;
+    private final int blockSize;
+
+    private final List<String> baseRecordIds = new ArrayList<>();
+    private final IntList compareDatasets = new IntList();
+    private final List<String> compareRecordIds = new ArrayList<>();
+    private final FloatList luceneScores = new FloatList();
+    private final FloatList nameScores = new FloatList();
+    private final FloatList dateScores = new FloatList();
+    private final FloatList bioScores = new FloatList();
+    private final FloatList overallScores = new FloatList();
+
+    private long rows;
+    private int blocks;
+    private boolean closed;
+
+    public MatchResultWriter(File file, int blockSize, String jobId, String baseDataset,
+            List<String> matchDatasets, String initiator) throws IOException {
+        this.file = file;
+        this.tempFile = new File(file.getPath() + TEMP_SUFFIX);
+        this.blockSize = blockSize;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16));
+
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        writeString(jobId);
+        writeString(baseDataset);
+        out.writeInt(matchDatasets.size());
+        for (String dataset : matchDatasets) {
+            writeString(dataset);
+        }
+        writeString(initiator);
+        out.writeLong(System.currentTimeMillis());
+    }
+
+    /**
+     * Adds a match. The row is written with the next full block.
+     */
+    public synchronized void add(String baseRecordId, int compareDataset, String compareRecordId,
+            float luceneScore, float nameScore, float dateScore, float bioScore, float overallScore)
+            throws IOException {
+        baseRecordIds.add(baseRecordId);
+        compareDatasets.add(compareDataset);
+        compareRecordIds.add(compareRecordId);
+        luceneScores.add(luceneScore);
+        nameScores.add(nameScore);
+        dateScores.add(dateScore);
+        bioScores.add(bioScore);
+        overallScores.add(overallScore);
+        if (baseRecordIds.size() >= blockSize) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Writes the remaining rows and the footer and moves the file to its final
+     * name.
+     */
+    public synchronized void finish(String status) throws IOException {
+        if (closed) {
+            return;
+        }
+        writeBlock();
+        out.writeInt(0);
+        out.writeLong(rows);
+        out.writeInt(blocks);
+        writeString(status);
+        out.writeLong(System.currentTimeMillis());
+        out.write(MAGIC);
+        close();
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Closes the file without completing it. The incomplete file keeps its
+     * temporary name.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            out.close();
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the number of rows added so far, including rows that are not
+     * written yet.
+     */
+    public synchronized long getRows() {
+        return rows + baseRecordIds.size();
+    }
+
+    private void writeBlock() throws IOException {
+        int count = baseRecordIds.size();
+        if (count == 0) {
+            return;
+        }
+        out.writeInt(count);
+        writeStringColumn(baseRecordIds);
+        for (int i = 0; i < count; i++) {
+            out.writeInt(compareDatasets.get(i));
+        }
+        writeStringColumn(compareRecordIds);
+        writeFloatColumn(luceneScores);
+        writeFloatColumn(nameScores);
+        writeFloatColumn(dateScores);
+        writeFloatColumn(bioScores);
+        writeFloatColumn(overallScores);
+
+        rows += count;
+        blocks++;
+        baseRecordIds.clear();
+        compareDatasets.clear();
+        compareRecordIds.clear();
+        luceneScores.clear();
+        nameScores.clear();
+        dateScores.clear();
+        bioScores.clear();
+        overallScores.clear();
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeStringColumn(List<String> values) throws IOException {
+        List<byte[]> encoded = new ArrayList<>(values.size());
+        int offset = 0;
+        out.writeInt(0);
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            offset += bytes.length;
+            out.writeInt(offset);
+        }
+        out.writeInt(offset);
+        for (byte[] bytes : encoded) {
+            out.write(bytes);
+        }
+    }
+
+    private void writeFloatColumn(FloatList values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            out.writeFloat(values.get(i));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package edu.asu.diging.rcn.match.engine.core.kafka;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.asu.diging.rcn.match.engine.core.service.DatasetCacheManager;
+import edu.asu.diging.rcn.match.engine.core.service.IndexUpdater;
+
+public class IndexUpdateListener {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private IndexUpdater indexUpdater;
+
+    @Autowired
+    private DatasetCacheManager cacheManager;
+
+    @KafkaListener(topics = "${_index_updates_topic}")
+    public void receiveMessage(String message) {
+        ObjectMapper mapper = new ObjectMapper();
+        IndexUpdateMessage msg = null;
+        try {
+            msg = mapper.readValue(message, IndexUpdateMessage.class);
+        } catch (IOException e) {
+            logger.error("Could not unmarshall message.", e);
+            return;
+        }
+
+        if (msg.getDatasetId() == null) {
+            logger.warn("Index update without dataset id, ignoring it.");
+            return;
+        }
+        // later jobs must not match against the old records
+        cacheManager.evict(msg.getDatasetId(), msg.getRecordIds());
+        // only queued here, the updater indexes in batches
+        indexUpdater.enqueue(msg.getDatasetId(), msg.getRecordIds());
+    }
+}
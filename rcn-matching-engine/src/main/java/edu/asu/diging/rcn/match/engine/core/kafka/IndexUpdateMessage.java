@@ -0,0 +1,32 @@
+package edu.asu.diging.rcn.match.engine.core.kafka;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Sent when records of a dataset were imported, changed or deleted. If no
+ * record ids are given, the whole dataset is indexed again.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class IndexUpdateMessage {
+
+    private String datasetId;
+    private List<String> recordIds;
+
+    public String getDatasetId() {
+        return datasetId;
+    }
+
+    public void setDatasetId(String datasetId) {
+        this.datasetId = datasetId;
+    }
+
+    public List<String> getRecordIds() {
+        return recordIds;
+    }
+
+    public void setRecordIds(List<String> recordIds) {
+        this.recordIds = recordIds;
+    }
+}
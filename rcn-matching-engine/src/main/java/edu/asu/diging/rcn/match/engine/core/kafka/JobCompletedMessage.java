@@ -0,0 +1,105 @@
+package edu.asu.diging.rcn.match.engine.core.kafka;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Sent when a match job has finished, whether it completed, failed, was
+ * cancelled or ran out of budget. If the results of the job were exported,
+ * the message names the export file.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class JobCompletedMessage {
+
+    private String jobId;
+    private String status;
+    private String baseDataset;
+    private List<String> matchDatasets;
+    private String initiator;
+    private String finishedOn;
+    private long processedRecords;
+    private long storedMatches;
+    private String exportFile;
+    private long exportedMatches;
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getBaseDataset() {
+        return baseDataset;
+    }
+
+    public void setBaseDataset(String baseDataset) {
+        this.baseDataset = baseDataset;
+    }
+
+    public List<String> getMatchDatasets() {
+        return matchDatasets;
+    }
+
+    public void setMatchDatasets(List<String> matchDatasets) {
+        this.matchDatasets = matchDatasets;
+    }
+
+    public String getInitiator() {
+        return initiator;
+    }
+
+    public void setInitiator(String initiator) {
+        this.initiator = initiator;
+    }
+
+    public String getFinishedOn() {
+        return finishedOn;
+    }
+
+    public void setFinishedOn(String finishedOn) {
+        this.finishedOn = finishedOn;
+    }
+
+    public long getProcessedRecords() {
+        return processedRecords;
+    }
+
+    public void setProcessedRecords(long processedRecords) {
+        this.processedRecords = processedRecords;
+    }
+
+    public long getStoredMatches() {
+        return storedMatches;
+    }
+
+    public void setStoredMatches(long storedMatches) {
+        this.storedMatches = storedMatches;
+    }
+
+    public String getExportFile() {
+        return exportFile;
+    }
+
+    public void setExportFile(String exportFile) {
+        this.exportFile = exportFile;
+    }
+
+    public long getExportedMatches() {
+        return exportedMatches;
+    }
+
+    public void setExportedMatches(long exportedMatches) {
+        this.exportedMatches = exportedMatches;
+    }
+}
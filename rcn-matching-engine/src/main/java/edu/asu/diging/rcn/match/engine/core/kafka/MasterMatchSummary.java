@@ -0,0 +1,68 @@
+package edu.asu.diging.rcn.match.engine.core.kafka;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * The best match of a base record in one compare dataset and all matches it
+ * was chosen from.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MasterMatchSummary {
+
+    private String matchedDatasetId;
+    private String matchedRecordId;
+    private String namePart1;
+    private String namePart2;
+    private float score;
+    private List<MatchSummary> matches;
+
+    public String getMatchedDatasetId() {
+        return matchedDatasetId;
+    }
+
+    public void setMatchedDatasetId(String matchedDatasetId) {
+        this.matchedDatasetId = matchedDatasetId;
+    }
+
+    public String getMatchedRecordId() {
+        return matchedRecordId;
+    }
+
+    public void setMatchedRecordId(String matchedRecordId) {
+        this.matchedRecordId = matchedRecordId;
+    }
+
+    public String getNamePart1() {
+        return namePart1;
+    }
+
+    public void setNamePart1(String namePart1) {
+        this.namePart1 = namePart1;
+    }
+
+    public String getNamePart2() {
+        return namePart2;
+    }
+
+    public void setNamePart2(String namePart2) {
+        this.namePart2 = namePart2;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public void setScore(float score) {
+        this.score = score;
+    }
+
+    public List<MatchSummary> getMatches() {
+        return matches;
+    }
+
+    public void setMatches(List<MatchSummary> matches) {
+        this.matches = matches;
+    }
+}
@@ -11,15 +11,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import edu.asu.diging.rcn.kafka.messages.KafkaTopics;
 import edu.asu.diging.rcn.kafka.messages.model.KafkaMatchAuthoritiesJobMessage;
-import edu.asu.diging.rcn.match.engine.core.exception.DatasetDoesNotExistException;
-import edu.asu.diging.rcn.match.engine.core.service.AuthorityMatcher;
+import edu.asu.diging.rcn.match.engine.core.service.MatchJobManager;
 
 public class MatchDatasetListener {
     
     private final Logger logger = LoggerFactory.getLogger(getClass());
     
     @Autowired
-    private AuthorityMatcher matcher;
+    private MatchJobManager jobManager;
     
     @KafkaListener(topics = KafkaTopics.MATCH_DATASETS_TOPIC)
     public void receiveMessage(String message) {
@@ -33,11 +32,7 @@ public class MatchDatasetListener {
             return;
         }
         
-        try {
-            matcher.process(msg);
-        } catch (DatasetDoesNotExistException e) {
-            // FIXME: handle this
-            logger.error("Could not match dataets.", e);
-        }
+        // jobs are run by the scheduler, so the listener is free for the next message
+        jobManager.submit(msg);
     }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package edu.asu.diging.rcn.match.engine.core.kafka;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Scores of a single match, without the names of the records.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MatchSummary {
+
+    private String compareDatasetId;
+    private String compareRecordId;
+    private String matchedOn;
+    private float luceneScore;
+    private float nameScore;
+    private float dateScore;
+    private float bioScore;
+    private float overallScore;
+
+    public String getCompareDatasetId() {
+        return compareDatasetId;
+    }
+
+    public void setCompareDatasetId(String compareDatasetId) {
+        this.compareDatasetId = compareDatasetId;
+    }
+
+    public String getCompareRecordId() {
+        return compareRecordId;
+    }
+
+    public void setCompareRecordId(String compareRecordId) {
+        this.compareRecordId = compareRecordId;
+    }
+
+    public String getMatchedOn() {
+        return matchedOn;
+    }
+
+    public void setMatchedOn(String matchedOn) {
+        this.matchedOn = matchedOn;
+    }
+
+    public float getLuceneScore() {
+        return luceneScore;
+    }
+
+    public void setLuceneScore(float luceneScore) {
+        this.luceneScore = luceneScore;
+    }
+
+    public float getNameScore() {
+        return nameScore;
+    }
+
+    public void setNameScore(float nameScore) {
+        this.nameScore = nameScore;
+    }
+
+    public float getDateScore() {
+        return dateScore;
+    }
+
+    public void setDateScore(float dateScore) {
+        this.dateScore = dateScore;
+    }
+
+    public float getBioScore() {
+        return bioScore;
+    }
+
+    public void setBioScore(float bioScore) {
+        this.bioScore = bioScore;
+    }
+
+    public float getOverallScore() {
+        return overallScore;
+    }
+
+    public void setOverallScore(float overallScore) {
+        this.overallScore = overallScore;
+    }
+}
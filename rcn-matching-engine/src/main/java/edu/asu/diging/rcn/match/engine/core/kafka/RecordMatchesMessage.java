@@ -0,0 +1,83 @@
+package edu.asu.diging.rcn.match.engine.core.kafka;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Sent as soon as all matches of a base record have been stored. It lists one
+ * master match per compare dataset the record was matched against, with the
+ * summaries of all its matches. The time the message was created lets
+ * consumers measure how long each record takes to reach them.
+ * 
+ * For symmetric jobs, a reverse message is also sent for every matched
+ * record. It lists the matches of one base record with base and compare
+ * record swapped, so a matched record can get several reverse messages.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RecordMatchesMessage {
+
+    private String jobId;
+    private String initiator;
+    private String baseDatasetId;
+    private String baseRecordId;
+    private String publishedOn;
+    private boolean reverse;
+    private List<MasterMatchSummary> masterMatches;
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getInitiator() {
+        return initiator;
+    }
+
+    public void setInitiator(String initiator) {
+        this.initiator = initiator;
+    }
+
+    public String getBaseDatasetId() {
+        return baseDatasetId;
+    }
+
+    public void setBaseDatasetId(String baseDatasetId) {
+        this.baseDatasetId = baseDatasetId;
+    }
+
+    public String getBaseRecordId() {
+        return baseRecordId;
+    }
+
+    public void setBaseRecordId(String baseRecordId) {
+        this.baseRecordId = baseRecordId;
+    }
+
+    public String getPublishedOn() {
+        return publishedOn;
+    }
+
+    public void setPublishedOn(String publishedOn) {
+        this.publishedOn = publishedOn;
+    }
+
+    public boolean isReverse() {
+        return reverse;
+    }
+
+    public void setReverse(boolean reverse) {
+        this.reverse = reverse;
+    }
+
+    public List<MasterMatchSummary> getMasterMatches() {
+        return masterMatches;
+    }
+
+    public void setMasterMatches(List<MasterMatchSummary> masterMatches) {
+        this.masterMatches = masterMatches;
+    }
+}
@@ -0,0 +1,25 @@
+package edu.asu.diging.rcn.match.engine.core.model;
+
+public interface RecordCluster {
+
+    String getId();
+
+    void setId(String id);
+
+    String getClusteringId();
+
+    void setClusteringId(String clusteringId);
+
+    String getClusterId();
+
+    void setClusterId(String clusterId);
+
+    String getRecordId();
+
+    void setRecordId(String recordId);
+
+    String getDatasetId();
+
+    void setDatasetId(String datasetId);
+
+}
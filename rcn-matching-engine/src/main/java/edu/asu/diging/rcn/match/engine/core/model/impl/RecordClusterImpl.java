@@ -0,0 +1,77 @@
+package edu.asu.diging.rcn.match.engine.core.model.impl;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import edu.asu.diging.rcn.match.engine.core.model.RecordCluster;
+
+/**
+ * Assignment of a record to a cluster by one clustering run. The id is made of
+ * the clustering id and the record id, so rows can be inserted in batches
+ * without looking up generated ids.
+ */
+@Entity
+@Table(name = "record_cluster", indexes = { @Index(columnList = "clusteringId,clusterId"),
+        @Index(columnList = "clusteringId,recordId") })
+public class RecordClusterImpl implements RecordCluster {
+
+    @Id
+    private String id;
+
+    private String clusteringId;
+    private String clusterId;
+    private String recordId;
+    private String datasetId;
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public String getClusteringId() {
+        return clusteringId;
+    }
+
+    @Override
+    public void setClusteringId(String clusteringId) {
+        this.clusteringId = clusteringId;
+    }
+
+    @Override
+    public String getClusterId() {
+        return clusterId;
+    }
+
+    @Override
+    public void setClusterId(String clusterId) {
+        this.clusterId = clusterId;
+    }
+
+    @Override
+    public String getRecordId() {
+        return recordId;
+    }
+
+    @Override
+    public void setRecordId(String recordId) {
+        this.recordId = recordId;
+    }
+
+    @Override
+    public String getDatasetId() {
+        return datasetId;
+    }
+
+    @Override
+    public void setDatasetId(String datasetId) {
+        this.datasetId = datasetId;
+    }
+}
@@ -0,0 +1,69 @@
+package edu.asu.diging.rcn.match.engine.core.search;
+
+import java.util.Map;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.hibernate.search.bridge.FieldBridge;
+import org.hibernate.search.bridge.LuceneOptions;
+import org.hibernate.search.bridge.ParameterizedBridge;
+
+import edu.asu.diging.eaccpf.model.NameEntry;
+import edu.asu.diging.eaccpf.model.NamePart;
+import edu.asu.diging.eaccpf.model.Record;
+import edu.asu.diging.rcn.match.engine.core.service.NameNormalizer;
+import edu.asu.diging.rcn.match.engine.core.service.impl.NameNormalizerImpl;
+
+/**
+ * Adds the fields candidate retrieval searches on to the index document of a
+ * record: all name parts in one field that is analyzed with
+ * {@link SearchMappingFactory#NAME_ANALYZER} and the dataset id as a single,
+ * not analyzed term. Name parts are normalized the same way as they are for
+ * scoring.
+ */
+public class RecordNamesBridge implements FieldBridge, ParameterizedBridge {
+
+    public static final String NAMES_FIELD = "nameParts";
+
+    public static final String DATASET_ID_FIELD = "datasetIdKeyword";
+
+    /**
+     * Bridge parameter with the size of the name normalizer cache.
+     */
+    public static final String CACHE_SIZE_PARAM = "nameNormalizerCacheSize";
+
+    // bridges are created by Hibernate Search, not Spring, so the normalizer is
+    // configured through the bridge parameters
+    private NameNormalizer normalizer = new NameNormalizerImpl();
+
+    @Override
+    public void setParameterValues(Map<String, String> parameters) {
+        String cacheSize = parameters.get(CACHE_SIZE_PARAM);
+        if (cacheSize != null) {
+            normalizer = new NameNormalizerImpl(Integer.parseInt(cacheSize));
+        }
+    }
+
+    @Override
+    public void set(String name, Object value, Document document, LuceneOptions luceneOptions) {
+        Record record = (Record) value;
+        if (record.getDatasetId() != null) {
+            document.add(new StringField(DATASET_ID_FIELD, record.getDatasetId(), Field.Store.NO));
+        }
+        if (record.getIdentity() == null || record.getIdentity().getNameEntries() == null) {
+            return;
+        }
+        for (NameEntry entry : record.getIdentity().getNameEntries()) {
+            if (entry.getParts() == null) {
+                continue;
+            }
+            for (NamePart part : entry.getParts()) {
+                String normalized = normalizer.normalize(part.getPart());
+                if (normalized != null && !normalized.isEmpty()) {
+                    luceneOptions.addFieldToDocument(name, normalized, document);
+                }
+            }
+        }
+    }
+}
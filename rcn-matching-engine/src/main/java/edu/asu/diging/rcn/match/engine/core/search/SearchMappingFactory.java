@@ -0,0 +1,48 @@
+package edu.asu.diging.rcn.match.engine.core.search;
+
+import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilterFactory;
+import org.apache.lucene.analysis.standard.StandardTokenizerFactory;
+import org.hibernate.search.annotations.Analyze;
+import org.hibernate.search.annotations.Index;
+import org.hibernate.search.annotations.Norms;
+import org.hibernate.search.annotations.Store;
+import org.hibernate.search.cfg.SearchMapping;
+
+import edu.asu.diging.eaccpf.model.impl.RecordImpl;
+
+/**
+ * Search mapping of the matching engine. It is added to the annotation mapping
+ * of the model through the <code>hibernate.search.model_mapping</code>
+ * property.
+ */
+public class SearchMappingFactory {
+
+    private final int nameNormalizerCacheSize;
+
+    public static final String NAME_ANALYZER = "nameAnalyzer";
+
+    /**
+     * Increase whenever the mapping changes, so that existing indexes are
+     * rebuilt.
+     */
+    public static final int MAPPING_VERSION = 2;
+
+    public SearchMappingFactory(int nameNormalizerCacheSize) {
+        this.nameNormalizerCacheSize = nameNormalizerCacheSize;
+    }
+
+    public SearchMapping getSearchMapping() {
+        SearchMapping mapping = new SearchMapping();
+        // lower cased and ASCII folded, so that names with and without diacritics are the
+        // same term and fuzzy queries don't spend their edits on case and accents
+        mapping.analyzerDef(NAME_ANALYZER, StandardTokenizerFactory.class).filter(LowerCaseFilterFactory.class)
+                .filter(ASCIIFoldingFilterFactory.class);
+        // names are only used for retrieval, scores come from the scorer, so neither
+        // stored values nor norms are needed
+        mapping.entity(RecordImpl.class).classBridge(RecordNamesBridge.class).name(RecordNamesBridge.NAMES_FIELD)
+                .index(Index.YES).analyze(Analyze.YES).store(Store.NO).norms(Norms.NO).analyzer(NAME_ANALYZER)
+                .param(RecordNamesBridge.CACHE_SIZE_PARAM, String.valueOf(nameNormalizerCacheSize));
+        return mapping;
+    }
+}
@@ -0,0 +1,12 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+/**
+ * What admission control does with a submitted job, based on its estimated
+ * cost.
+ */
+public enum AdmissionDecision {
+    ADMIT,
+    // run without biography scoring
+    DOWNSCALE,
+    REJECT;
+}
@@ -2,9 +2,12 @@ package edu.asu.diging.rcn.match.engine.core.service;
 
 import edu.asu.diging.rcn.kafka.messages.model.KafkaMatchAuthoritiesJobMessage;
 import edu.asu.diging.rcn.match.engine.core.exception.DatasetDoesNotExistException;
+import edu.asu.diging.rcn.match.engine.core.service.impl.MatchJob;
 
 public interface AuthorityMatcher {
 
     void process(KafkaMatchAuthoritiesJobMessage msg) throws DatasetDoesNotExistException;
 
+    void process(MatchJob job) throws DatasetDoesNotExistException;
+
 }
\ No newline at end of file
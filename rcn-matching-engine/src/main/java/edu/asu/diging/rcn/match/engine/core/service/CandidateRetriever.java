@@ -0,0 +1,27 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import edu.asu.diging.rcn.match.engine.core.service.impl.CancellationToken;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+
+/**
+ * Finds the candidates of base records in a candidate store. Which retriever
+ * is used is configured with <code>_candidate_retrieval</code>.
+ */
+public interface CandidateRetriever {
+
+    String getName();
+
+    /**
+     * Creates a searcher for a single thread.
+     */
+    CandidateSearcher createSearcher(CandidateStore store);
+
+    /**
+     * Creates a searcher for a single thread of a job. Retrievers that have to
+     * index the store first stop doing so if the job is stopped.
+     */
+    default CandidateSearcher createSearcher(CandidateStore store, CancellationToken token) {
+        return createSearcher(store);
+    }
+
+}
@@ -0,0 +1,25 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import java.util.List;
+
+import edu.asu.diging.rcn.match.engine.core.store.Candidate;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
+
+/**
+ * Searches the candidates of base records in one candidate store. Searchers
+ * are used by one thread only and have to be closed.
+ */
+public interface CandidateSearcher {
+
+    /**
+     * Returns the candidate name entries of a base record. When a dataset is
+     * matched against itself, a record is never its own candidate and each
+     * pair of records is only returned once, when the base record has the
+     * smaller id.
+     */
+    List<Candidate> findCandidates(RecordFeatures features, String baseDatasetId);
+
+    default void close() {
+    }
+
+}
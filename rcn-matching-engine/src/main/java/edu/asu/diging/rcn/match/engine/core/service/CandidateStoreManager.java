@@ -0,0 +1,17 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import java.util.List;
+
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+
+public interface CandidateStoreManager {
+
+    CandidateStore createStore(String datasetId);
+
+    CandidateStore createStore(List<String> datasetIds);
+
+    CandidateStore createStoreFromPrimary(List<String> datasetIds);
+
+    int[] getBioKeywords(CandidateStore store, int record);
+
+}
@@ -0,0 +1,13 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import java.util.List;
+
+import edu.asu.diging.rcn.match.engine.core.service.impl.ClusteringRun;
+
+public interface ClusterManager {
+
+    ClusteringRun cluster(List<String> jobIds);
+
+    ClusteringRun getRun(String clusteringId);
+
+}
@@ -0,0 +1,27 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import java.util.List;
+
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+
+public interface DatasetCacheManager {
+
+    CandidateStore getStore(List<String> datasetIds);
+
+    void evict(String datasetId, List<String> recordIds);
+
+    long getStoreHits();
+
+    long getStoreMisses();
+
+    int getCachedStores();
+
+    boolean isEntityCacheEnabled();
+
+    long getEntityHits();
+
+    long getEntityMisses();
+
+    long getEntityPuts();
+
+}
@@ -0,0 +1,39 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import java.util.List;
+
+import edu.asu.diging.rcn.match.engine.core.service.impl.MatchJob;
+import edu.asu.diging.rcn.match.engine.core.service.impl.MatchScore;
+import edu.asu.diging.rcn.match.engine.core.service.impl.ScoringContext;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
+
+/**
+ * Records Java Flight Recorder events for base records, candidate queries
+ * and candidate pairs that took longer than the configured thresholds, so
+ * that pathological inputs of a job can be found after the fact. Callers only
+ * take timings if the corresponding isEnabled method returns true, which is
+ * only the case while a recording is running. All times are in nanoseconds.
+ */
+public interface DiagnosticsRecorder {
+
+    boolean isRecordEnabled();
+
+    boolean isQueryEnabled();
+
+    boolean isPairEnabled();
+
+    void recordRetrieval(MatchJob job, RecordFeatures record, int candidates, int scoredCandidates,
+            long retrievalTime);
+
+    void recordScoring(MatchJob job, RecordFeatures record, int candidates, int matches, long scoringTime);
+
+    void recordQuery(String retriever, RecordFeatures record, String term, int hits, long queryTime);
+
+    /**
+     * @param stageTimes
+     *            time spent in each of the given stages, 0 for skipped stages
+     */
+    void recordPair(ScoringContext context, List<ScoringStage> stages, long[] stageTimes, MatchScore score,
+            long scoringTime);
+
+}
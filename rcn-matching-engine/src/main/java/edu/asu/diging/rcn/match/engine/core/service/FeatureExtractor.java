@@ -0,0 +1,16 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import edu.asu.diging.eaccpf.model.NameEntry;
+import edu.asu.diging.eaccpf.model.Record;
+import edu.asu.diging.rcn.match.engine.core.store.EntryFeatures;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
+
+public interface FeatureExtractor {
+
+    RecordFeatures extract(Record record);
+
+    EntryFeatures extract(NameEntry entry);
+
+    String getBiography(Record record);
+
+}
@@ -0,0 +1,20 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+public interface IndexUpdater {
+
+    void enqueue(String datasetId, List<String> recordIds);
+
+    int getPendingUpdates();
+
+    long getLag();
+
+    long getIndexedRecords();
+
+    long getFailedUpdates();
+
+    OffsetDateTime getLastCommit();
+
+}
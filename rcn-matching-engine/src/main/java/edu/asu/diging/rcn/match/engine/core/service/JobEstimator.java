@@ -0,0 +1,16 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import java.util.List;
+
+import edu.asu.diging.rcn.match.engine.core.service.impl.JobEstimate;
+import edu.asu.diging.rcn.match.engine.core.service.impl.MatchJob;
+
+public interface JobEstimator {
+
+    JobEstimate estimate(String baseDataset, List<String> matchDatasets);
+
+    JobEstimate estimate(String baseDataset, List<String> matchDatasets, long maxBaseRecords);
+
+    boolean fits(MatchJob job, List<MatchJob> running);
+
+}
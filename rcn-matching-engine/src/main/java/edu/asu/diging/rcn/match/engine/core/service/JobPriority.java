@@ -0,0 +1,12 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+/**
+ * Priorities of match jobs, most urgent first.
+ */
+public enum JobPriority {
+    // small jobs somebody is waiting for
+    INTERACTIVE,
+    NORMAL,
+    // large reconciliation jobs
+    BATCH;
+}
@@ -0,0 +1,15 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import java.util.List;
+
+import edu.asu.diging.rcn.match.engine.core.service.impl.MatchJob;
+
+public interface JobScheduler {
+
+    void schedule(MatchJob job);
+
+    boolean unschedule(MatchJob job);
+
+    List<MatchJob> getQueuedJobs();
+
+}
@@ -0,0 +1,13 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED,
+    CANCELLED,
+    // stopped because the job ran out of time or candidate budget
+    PARTIAL,
+    // not started because its estimated cost exceeds the configured limits
+    REJECTED;
+}
@@ -0,0 +1,25 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import java.util.List;
+
+import edu.asu.diging.rcn.kafka.messages.model.KafkaMatchAuthoritiesJobMessage;
+import edu.asu.diging.rcn.match.engine.core.service.impl.MatchJob;
+
+public interface MatchJobManager {
+
+    MatchJob submit(String baseDataset, String matchDataset, String initiator);
+
+    MatchJob submit(String baseDataset, List<String> matchDatasets, String initiator, JobPriority priority,
+            long maxDuration, long maxCandidates, boolean symmetric);
+
+    MatchJob submit(KafkaMatchAuthoritiesJobMessage msg);
+
+    MatchJob preview(String baseDataset, List<String> matchDatasets, String initiator);
+
+    MatchJob getJob(String jobId);
+
+    List<MatchJob> getJobs();
+
+    boolean cancel(String jobId);
+
+}
@@ -0,0 +1,17 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import java.util.List;
+
+import edu.asu.diging.rcn.match.engine.core.service.impl.MatchJob;
+import edu.asu.diging.rcn.match.engine.core.service.impl.MatchResult;
+
+/**
+ * Receives the matches a job found for one base record at a time. Sinks can
+ * be called from several threads, but all matches of a base record are
+ * passed in a single call.
+ */
+public interface MatchResultSink {
+
+    void store(MatchJob job, List<MatchResult> results);
+
+}
@@ -1,11 +1,48 @@
 package edu.asu.diging.rcn.match.engine.core.service;
 
+import java.util.List;
+
 import edu.asu.diging.eaccpf.model.NameEntry;
 import edu.asu.diging.eaccpf.model.Record;
+import edu.asu.diging.rcn.match.engine.core.service.impl.CancellationToken;
+import edu.asu.diging.rcn.match.engine.core.service.impl.JobThresholds;
 import edu.asu.diging.rcn.match.engine.core.service.impl.MatchScore;
+import edu.asu.diging.rcn.match.engine.core.service.impl.MatchScores;
+import edu.asu.diging.rcn.match.engine.core.service.impl.ScoringContext;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+import edu.asu.diging.rcn.match.engine.core.store.EntryFeatures;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
 
 public interface MatchScorer {
 
+    /**
+     * Highest overall score of two records whose existence dates don't match.
+     */
+    float DATE_MISMATCH_SCORE = 0.2f;
+
     MatchScore score(Record record1, Record record2, NameEntry entry1, NameEntry entry2, float luceneScore);
 
-}
\ No newline at end of file
+    MatchScore score(RecordFeatures record, EntryFeatures entry, CandidateStore store, int candidate,
+            int candidateEntry, float luceneScore);
+
+    MatchScore score(ScoringContext context, List<ScoringStage> stages);
+
+    MatchScores score(RecordFeatures record, EntryFeatures entry, CandidateStore store, int[] candidates,
+            int[] candidateEntries, float[] luceneScores, CancellationToken token, JobThresholds thresholds);
+
+    MatchScores score(RecordFeatures record, EntryFeatures entry, CandidateStore store, int[] candidates,
+            int[] candidateEntries, float[] luceneScores, List<ScoringStage> stages, CancellationToken token,
+            JobThresholds thresholds);
+
+    List<ScoringStage> getStages();
+
+    /**
+     * Returns true if the configured stages score dates, which is the only
+     * case in which a date mismatch caps the overall score.
+     */
+    boolean isDateScoringEnabled();
+
+    float upperBound(RecordFeatures record, EntryFeatures entry, CandidateStore store, int candidate,
+            int candidateEntry, float luceneScore);
+
+}
@@ -0,0 +1,11 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import java.util.List;
+
+public interface NameNormalizer {
+
+    String normalize(String name);
+
+    List<String> getTokens(String name);
+
+}
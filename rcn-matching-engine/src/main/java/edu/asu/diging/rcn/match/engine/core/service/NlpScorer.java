@@ -1,7 +1,13 @@
 package edu.asu.diging.rcn.match.engine.core.service;
 
+import java.util.List;
+
 public interface NlpScorer {
 
     float calculateKeywordSimilarity(String text1, String text2);
 
-}
\ No newline at end of file
+    float calculateKeywordSimilarity(List<String> keywords1, List<String> keywords2);
+
+    List<String> getKeywords(String text);
+
+}
@@ -0,0 +1,14 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import edu.asu.diging.eaccpf.model.match.Match;
+import edu.asu.diging.rcn.match.engine.core.service.impl.MatchJob;
+
+public interface ResultExporter {
+
+    void open(MatchJob job);
+
+    void add(MatchJob job, Match match);
+
+    void finish(MatchJob job);
+
+}
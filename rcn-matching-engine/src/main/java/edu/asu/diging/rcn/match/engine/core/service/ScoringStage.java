@@ -0,0 +1,29 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+import edu.asu.diging.rcn.match.engine.core.service.impl.MatchScore;
+import edu.asu.diging.rcn.match.engine.core.service.impl.ScoringContext;
+
+/**
+ * A single step of the scoring pipeline in {@link MatchScorer}. Stages are run
+ * in the configured order and each stage sets its part of the
+ * {@link MatchScore}.
+ */
+public interface ScoringStage {
+
+    String getName();
+
+    /**
+     * Relative cost of running this stage, used to order the stages if no
+     * order is configured.
+     */
+    int getCost();
+
+    /**
+     * Returns false if, given the scores computed so far, this stage can't
+     * change the overall score and can be skipped.
+     */
+    boolean isNeeded(ScoringContext context, MatchScore score);
+
+    void score(ScoringContext context, MatchScore score);
+
+}
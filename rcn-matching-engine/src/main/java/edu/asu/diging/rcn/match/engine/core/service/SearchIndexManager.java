@@ -0,0 +1,9 @@
+package edu.asu.diging.rcn.match.engine.core.service;
+
+public interface SearchIndexManager {
+
+    boolean isIndexCurrent();
+
+    void reindex() throws InterruptedException;
+
+}
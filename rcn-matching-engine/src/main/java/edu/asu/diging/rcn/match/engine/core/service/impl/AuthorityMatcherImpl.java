@@ -2,44 +2,58 @@ package edu.asu.diging.rcn.match.engine.core.service.impl;
 
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
-import javax.transaction.Transactional;
+import javax.annotation.PostConstruct;
 
-import org.hibernate.search.jpa.FullTextEntityManager;
-import org.hibernate.search.jpa.FullTextQuery;
-import org.hibernate.search.jpa.Search;
-import org.hibernate.search.query.dsl.QueryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
-import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.asu.diging.eaccpf.data.DatasetRepository;
-import edu.asu.diging.eaccpf.data.MasterMatchRepository;
-import edu.asu.diging.eaccpf.data.RecordRepository;
 import edu.asu.diging.eaccpf.model.Dataset;
-import edu.asu.diging.eaccpf.model.NameEntry;
-import edu.asu.diging.eaccpf.model.NamePart;
-import edu.asu.diging.eaccpf.model.Record;
 import edu.asu.diging.eaccpf.model.impl.DatasetImpl;
 import edu.asu.diging.eaccpf.model.impl.RecordImpl;
-import edu.asu.diging.eaccpf.model.match.MasterMatch;
 import edu.asu.diging.eaccpf.model.match.Match;
-import edu.asu.diging.eaccpf.model.match.impl.MasterMatchImpl;
 import edu.asu.diging.eaccpf.model.match.impl.MatchImpl;
 import edu.asu.diging.rcn.kafka.messages.model.KafkaMatchAuthoritiesJobMessage;
+import edu.asu.diging.rcn.match.engine.core.data.DatasetRecordRepository;
 import edu.asu.diging.rcn.match.engine.core.exception.DatasetDoesNotExistException;
+import edu.asu.diging.rcn.match.engine.core.exception.JobStoppedException;
 import edu.asu.diging.rcn.match.engine.core.service.AuthorityMatcher;
-import edu.asu.diging.rcn.match.engine.core.service.INameUtility;
-import edu.asu.diging.rcn.match.engine.core.service.MatchManager;
+import edu.asu.diging.rcn.match.engine.core.service.CandidateRetriever;
+import edu.asu.diging.rcn.match.engine.core.service.CandidateSearcher;
+import edu.asu.diging.rcn.match.engine.core.service.DatasetCacheManager;
+import edu.asu.diging.rcn.match.engine.core.service.DiagnosticsRecorder;
+import edu.asu.diging.rcn.match.engine.core.service.FeatureExtractor;
+import edu.asu.diging.rcn.match.engine.core.service.MatchResultSink;
 import edu.asu.diging.rcn.match.engine.core.service.MatchScorer;
+import edu.asu.diging.rcn.match.engine.core.service.ResultExporter;
+import edu.asu.diging.rcn.match.engine.core.service.ScoringStage;
+import edu.asu.diging.rcn.match.engine.core.store.Candidate;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateCollector;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+import edu.asu.diging.rcn.match.engine.core.store.EntryFeatures;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
 
+/**
+ * Runs match jobs. A job only reads on its own thread, so it runs in a
+ * read-only transaction that is served by the replica database; matches are
+ * stored by the result sinks in their own transactions on the primary.
+ */
 @Service
-@Transactional
+@Transactional(readOnly = true)
 @PropertySource("classpath:/config.properties")
 public class AuthorityMatcherImpl implements AuthorityMatcher {
 
@@ -49,22 +63,81 @@ public class AuthorityMatcherImpl implements AuthorityMatcher {
     private DatasetRepository datasetRepository;
 
     @Autowired
-    private RecordRepository recordRepo;
+    private List<CandidateRetriever> retrievers;
 
+    // matches are passed to every sink in order: stored first, then published
     @Autowired
-    private MatchManager matchManager;
+    private List<MatchResultSink> resultSinks;
 
     @Autowired
-    private JpaTransactionManager transactionManager;
+    private MatchScorer scorer;
 
     @Autowired
-    private MasterMatchRepository masterMatchRepo;
+    private FeatureExtractor featureExtractor;
 
     @Autowired
-    private MatchScorer scorer;
+    private DatasetCacheManager cacheManager;
+
+    @Autowired
+    private DatasetRecordRepository datasetRecordRepo;
 
     @Autowired
-    private INameUtility nameUtility;
+    private ResultExporter resultExporter;
+
+    @Autowired
+    private DiagnosticsRecorder diagnostics;
+
+    @Value("${_match_threshold}")
+    private float matchThreshold;
+
+    @Value("${_candidate_top_k}")
+    private int candidateTopK;
+
+    @Value("${_job_partition_size}")
+    private int partitionSize;
+
+    @Value("${_job_target_matches_per_record}")
+    private float targetMatchesPerRecord;
+
+    @Value("${_job_adapt_min_records}")
+    private long adaptMinRecords;
+
+    @Value("${_candidate_retrieval}")
+    private String retrieval;
+
+    private CandidateRetriever retriever;
+
+    @Value("${_bio_lsh_enabled}")
+    private boolean bioRetrievalEnabled;
+
+    @Autowired
+    private BioCandidateRetriever bioRetriever;
+
+    @Value("${_date_prefilter_enabled}")
+    private boolean datePrefilterEnabled;
+
+    @Value("${_pipeline_queue_size}")
+    private int pipelineQueueSize;
+
+    @Value("${_pipeline_retrieval_threads}")
+    private int retrievalThreads;
+
+    @Value("${_pipeline_scoring_threads}")
+    private int scoringThreads;
+
+    @Value("${_pipeline_persistence_threads}")
+    private int persistenceThreads;
+
+    @PostConstruct
+    public void init() {
+        retriever = retrievers.stream().filter(r -> r.getName().equals(retrieval.trim())).findFirst()
+                .orElse(null);
+        if (retriever == null) {
+            logger.warn("There is no candidate retrieval " + retrieval + ", using Lucene.");
+            retriever = retrievers.stream().filter(r -> r.getName().equals(LuceneCandidateRetriever.NAME))
+                    .findFirst().get();
+        }
+    }
 
     /*
      * (non-Javadoc)
@@ -75,110 +148,335 @@ public class AuthorityMatcherImpl implements AuthorityMatcher {
      */
     @Override
     public void process(KafkaMatchAuthoritiesJobMessage msg) throws DatasetDoesNotExistException {
-        Optional<DatasetImpl> baseOptional = datasetRepository.findById(msg.getBaseDataset());
+        process(new MatchJob(msg));
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * edu.asu.diging.rcn.match.engine.core.service.AuthorityMatcher#process(edu.
+     * asu.diging.rcn.match.engine.core.service.impl.MatchJob)
+     */
+    @Override
+    public void process(MatchJob job) throws DatasetDoesNotExistException {
+        Optional<DatasetImpl> baseOptional = datasetRepository.findById(job.getBaseDataset());
         if (!baseOptional.isPresent()) {
-            throw new DatasetDoesNotExistException("Dataset " + msg.getBaseDataset() + " does not exist.");
+            throw new DatasetDoesNotExistException("Dataset " + job.getBaseDataset() + " does not exist.");
         }
-        Optional<DatasetImpl> compareOptional = datasetRepository.findById(msg.getMatchDataset());
-        if (!compareOptional.isPresent()) {
-            throw new DatasetDoesNotExistException("Dataset " + msg.getMatchDataset() + " does not exist.");
+        List<String> compareDatasetIds = new ArrayList<>();
+        for (String datasetId : job.getMatchDatasets()) {
+            if (!datasetRepository.findById(datasetId).isPresent()) {
+                throw new DatasetDoesNotExistException("Dataset " + datasetId + " does not exist.");
+            }
+            if (!compareDatasetIds.contains(datasetId)) {
+                compareDatasetIds.add(datasetId);
+            }
         }
 
         Dataset baseDataset = baseOptional.get();
-        Dataset compareDataset = compareOptional.get();
-
-        FullTextEntityManager fullTextEntityManager = Search
-                .getFullTextEntityManager(transactionManager.getEntityManagerFactory().createEntityManager());
-        QueryBuilder queryBuilder = fullTextEntityManager.getSearchFactory().buildQueryBuilder()
-                .forEntity(RecordImpl.class).get();
-
-        recordRepo.getByDataset(baseDataset.getId()).forEach(record -> {
-            logger.debug("Matching " + record.getId());
-
-            if (record.getIdentity() != null && record.getIdentity().getNameEntries() != null) {
-                record.getIdentity().getNameEntries().forEach(ne -> {
-                    if (ne.getScriptCode() == null || ne.getScriptCode().trim().isEmpty()
-                            || ne.getScriptCode().trim().toLowerCase().equals("latn")) {
-                        List<NamePart> parts = ne.getParts();
-                        if (parts != null) {
-                            for (NamePart part : parts) {
-                                if (nameUtility.isFirstName(part)) {
-                                    continue;
-                                }
-
-                                String name = part.getPart();
-                                org.apache.lucene.search.Query query = queryBuilder.keyword().fuzzy()
-                                        .onField("identity.nameEntries.parts.part").matching(name).createQuery();
-
-                                FullTextQuery jpaQuery = fullTextEntityManager.createFullTextQuery(query,
-                                        RecordImpl.class);
-                                jpaQuery.setProjection(FullTextQuery.SCORE, FullTextQuery.THIS);
-                                List<Object[]> results = jpaQuery.getResultList();
-
-                                for (Object[] searchResult : results) {
-                                    Record matchedRecord = (Record) searchResult[1];
-                                    float score = (float) searchResult[0];
-                                    if (matchedRecord.getDatasetId().equals(compareDataset.getId())) {
-                                        for (NameEntry entry : matchedRecord.getIdentity().getNameEntries()) {
-                                            for (NamePart part2 : entry.getParts()) {
-                                                // this needs to be changed
-                                                if (nameUtility.isSameType(part, part2)) {
-
-                                                    MatchScore matchScore = scorer.score(record, matchedRecord, ne,
-                                                            entry, score);
-                                                    if (matchScore.getOverallScore() > 0.1) {
-                                                        Match match = new MatchImpl();
-                                                        match.setLuceneScore(score);
-                                                        match.setBaseDatasetId(baseDataset.getId());
-                                                        match.setBaseRecordId(record.getId());
-                                                        match.setCompareDatasetId(compareDataset.getId());
-                                                        match.setCompareRecordId(matchedRecord.getId());
-                                                        match.setMatchedOn(OffsetDateTime.now());
-                                                        match.setJobId(msg.getJobId());
-                                                        match.setInitiator(msg.getInitiator());
-
-                                                        match.setNameScore(matchScore.getNameScore());
-                                                        match.setDateScore(matchScore.getDateScore());
-                                                        match.setBioScore(matchScore.getBioScore());
-                                                        match.setOverallScore(matchScore.getOverallScore());
-                                                        matchManager.saveMatch(match);
-
-                                                        MasterMatch master = masterMatchRepo
-                                                                .findFirstByJobIdAndRecordId(msg.getJobId(),
-                                                                        record.getId());
-                                                        if (master == null) {
-                                                            master = new MasterMatchImpl();
-                                                            master.setJobId(msg.getJobId());
-                                                            master.setDatasetId(baseDataset.getId());
-                                                            master.setRecordId(record.getId());
-                                                            master.setMatchedDatasetId(compareDataset.getId());
-                                                            master.setMatchedRecordId(matchedRecord.getId());
-                                                            master.setMatches(new ArrayList<Match>());
-                                                        }
-                                                        if (master.getScore() < match.getOverallScore()) {
-                                                            master.setNamePart1(nameUtility.getPrimayName(ne));
-                                                            master.setNamePart2(nameUtility.getSecondaryName(ne));
-                                                            master.setScore(match.getOverallScore());
-                                                            master.setMaster(match);
-                                                        }
-                                                        master.getMatches().add(match);
-                                                        masterMatchRepo.save((MasterMatchImpl) master);
-                                                    }
-                                                }
-                                            }
-                                        }
-                                    }
-                                }
-
-                            }
-                        }
-                    }
-
-                });
+
+        // compare records are only kept as scoring features, not as entities; records
+        // of all compare datasets share one store and hits are told apart by its
+        // dataset column; stores are shared with other jobs against the same datasets
+        CandidateStore store = cacheManager.getStore(compareDatasetIds);
+        if (job.getTotalRecords() < 0) {
+            job.setTotalRecords(datasetRecordRepo.countByDataset(baseDataset.getId()));
+        }
+
+        // a preempted job keeps the thresholds it adapted so far
+        if (job.getThresholds() == null) {
+            job.setThresholds(new JobThresholds(matchThreshold, BioScoringStage.NAME_THRESHOLD, candidateTopK,
+                    targetMatchesPerRecord, adaptMinRecords));
+        }
+        // previews keep their matches in memory and are not exported
+        List<MatchResultSink> sinks = job.getPreview() != null ? Collections.singletonList(job.getPreview())
+                : resultSinks;
+        if (job.getPreview() == null) {
+            resultExporter.open(job);
+        }
+
+        // mirrored master matches of different base records can be stored for the same
+        // record, so they have to be stored one after the other
+        boolean mirrored = job.getMatchDatasets().stream().anyMatch(job::isSymmetric);
+        List<ScoringStage> stages = getStages(job);
+        Pipeline<PipelineRecord> pipeline = new Pipeline<>("job-" + job.getJobId(), pipelineQueueSize);
+        pipeline.addStage("retrieval", retrievalThreads,
+                () -> new RetrievalWorker(job, store, baseDataset.getId()));
+        pipeline.addStage("scoring", scoringThreads, () -> item -> score(job, store, baseDataset, stages, item));
+        pipeline.addStage("persistence", mirrored ? 1 : persistenceThreads, () -> item -> {
+            for (MatchResultSink sink : sinks) {
+                sink.store(job, item.getResults());
             }
+            job.recordProcessed();
+            job.getThresholds().adapt(job.getProcessedRecords(), job.getToken().getCandidates());
         });
+        pipeline.start();
+
+        // the token is checked between base records and between scoring stages, matches
+        // that were stored before the job was stopped are kept
+        try {
+            if (job.getPreview() != null) {
+                loadSample(job, baseDataset.getId(), pipeline);
+            } else {
+                loadRecords(job, baseDataset.getId(), pipeline);
+            }
+        } catch (RuntimeException e) {
+            pipeline.stop(e);
+        }
+        try {
+            pipeline.close();
+        } catch (JobStoppedException e) {
+            logger.info("Stopped job " + job.getJobId() + " after " + job.getProcessedRecords() + " records: "
+                    + job.getToken().getReason() + ".");
+            return;
+        }
 
-        logger.info("Done matching authorities.");
+        if (!job.isPreempted()) {
+            logger.info("Done matching authorities.");
+        }
+    }
+
+    /**
+     * Returns the scoring stages of a job. Downscaled jobs don't score
+     * biographies.
+     */
+    private List<ScoringStage> getStages(MatchJob job) {
+        if (!job.isBioScoringDisabled()) {
+            return scorer.getStages();
+        }
+        return scorer.getStages().stream().filter(stage -> !stage.getName().equals(BioScoringStage.NAME))
+                .collect(Collectors.toList());
     }
 
+    /**
+     * Loads the base records partition by partition and puts their features
+     * into the pipeline. Records are loaded by the job's thread, since their
+     * lazy associations can only be read in its transaction. If the job is
+     * asked to give up its worker, the pipeline is drained at the end of the
+     * current partition, so that the job can resume with the next one.
+     */
+    private void loadRecords(MatchJob job, String baseDatasetId, Pipeline<PipelineRecord> pipeline) {
+        int partition = job.getNextPartition();
+        List<RecordImpl> baseRecords = datasetRecordRepo.findByDataset(baseDatasetId,
+                PageRequest.of(partition, partitionSize));
+        while (!baseRecords.isEmpty()) {
+            for (RecordImpl record : baseRecords) {
+                job.getToken().throwIfStopped();
+                logger.debug("Matching " + record.getId());
+                if (!pipeline.put(new PipelineRecord(featureExtractor.extract(record)))) {
+                    return;
+                }
+            }
+
+            partition++;
+            if (job.isPreemptionRequested()) {
+                pipeline.drain();
+                if (pipeline.isStopped()) {
+                    return;
+                }
+                job.setNextPartition(partition);
+                job.setPreempted(true);
+                logger.info("Job " + job.getJobId() + " gives up its worker after " + partition + " partitions.");
+                return;
+            }
+            job.setNextPartition(partition);
+            baseRecords = datasetRecordRepo.findByDataset(baseDatasetId, PageRequest.of(partition, partitionSize));
+        }
+    }
+
+    /**
+     * Loads a random sample of the base records of a preview and puts their
+     * features into the pipeline. Previews are short, so they don't give up
+     * their worker.
+     */
+    private void loadSample(MatchJob job, String baseDatasetId, Pipeline<PipelineRecord> pipeline) {
+        List<String> ids = new ArrayList<>(datasetRecordRepo.findIdsByDataset(baseDatasetId));
+        Collections.shuffle(ids);
+        List<String> sample = ids.subList(0, Math.min(job.getPreview().getSampleSize(), ids.size()));
+        for (int start = 0; start < sample.size(); start += partitionSize) {
+            List<String> partition = sample.subList(start, Math.min(start + partitionSize, sample.size()));
+            for (RecordImpl record : datasetRecordRepo.findByIds(partition)) {
+                job.getToken().throwIfStopped();
+                if (!pipeline.put(new PipelineRecord(featureExtractor.extract(record)))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the candidates of base records. Every retrieval thread has its own
+     * searcher, they can't be shared between threads.
+     */
+    private class RetrievalWorker implements Pipeline.Worker<PipelineRecord> {
+
+        private final MatchJob job;
+        private final CandidateStore store;
+        private final String baseDatasetId;
+        private final CandidateSearcher searcher;
+        private final CandidateSearcher bioSearcher;
+
+        RetrievalWorker(MatchJob job, CandidateStore store, String baseDatasetId) {
+            this.job = job;
+            this.store = store;
+            this.baseDatasetId = baseDatasetId;
+            this.searcher = retriever.createSearcher(store, job.getToken());
+            this.bioSearcher = bioRetrievalEnabled && retriever != bioRetriever && !job.isBioScoringDisabled()
+                    ? bioRetriever.createSearcher(store, job.getToken()) : null;
+        }
+
+        @Override
+        public void process(PipelineRecord item) {
+            job.getToken().throwIfStopped();
+            boolean timed = diagnostics.isRecordEnabled();
+            long start = timed ? System.nanoTime() : 0;
+            RecordFeatures features = item.getFeatures();
+            List<Candidate> candidates = searcher.findCandidates(features, baseDatasetId);
+            if (bioSearcher != null) {
+                // records with similar biographies are candidates as well, whatever their names
+                CandidateCollector collector = new CandidateCollector();
+                candidates.forEach(collector::add);
+                bioSearcher.findCandidates(features, baseDatasetId).forEach(collector::add);
+                candidates = collector.getCandidates();
+            }
+
+            // throw out everything that can't pass the threshold before scoring in full
+            JobThresholds thresholds = job.getThresholds();
+            float threshold = thresholds.getMatchThreshold();
+            int[] overlapping = null;
+            // candidates with other dates can only be dropped if their dates are going to be scored
+            if (datePrefilterEnabled && scorer.isDateScoringEnabled() && threshold >= MatchScorer.DATE_MISMATCH_SCORE
+                    && features.getYearsFrom().length > 0) {
+                overlapping = store.getYearIndex().findOverlapping(features.getYearsFrom(), features.getYearsTo());
+            }
+            List<Candidate> survivors = new ArrayList<>();
+            for (Candidate candidate : candidates) {
+                if (overlapping != null && !hasOverlappingDates(store, candidate.getRecord(), overlapping)) {
+                    continue;
+                }
+                candidate.setUpperBound(scorer.upperBound(features, features.getEntries().get(candidate.getEntry()),
+                        store, candidate.getRecord(), candidate.getRecordEntry(), candidate.getLuceneScore()));
+                if (candidate.getUpperBound() > threshold) {
+                    survivors.add(candidate);
+                }
+            }
+            survivors.sort((c1, c2) -> Float.compare(c2.getUpperBound(), c1.getUpperBound()));
+            survivors = selectTopK(survivors, store, thresholds.getCandidateTopK());
+            job.getToken().addCandidates(survivors.size());
+            logger.debug("Scoring " + survivors.size() + " of " + candidates.size() + " candidates.");
+            if (timed) {
+                diagnostics.recordRetrieval(job, features, candidates.size(), survivors.size(),
+                        System.nanoTime() - start);
+            }
+
+            item.setThreshold(threshold);
+            item.setCandidates(survivors);
+        }
+
+        /**
+         * Candidates without year ranges are not scored on dates, so only
+         * candidates with ranges that are not in the given records are
+         * known to get a date score of 0.
+         */
+        private boolean hasOverlappingDates(CandidateStore store, int record, int[] overlapping) {
+            return store.getYearStart(record) == store.getYearEnd(record)
+                    || Arrays.binarySearch(overlapping, record) >= 0;
+        }
+
+        @Override
+        public void close() {
+            searcher.close();
+            if (bioSearcher != null) {
+                bioSearcher.close();
+            }
+        }
+    }
+
+    /**
+     * Scores each base name entry of a record against all its candidates in
+     * one batch and keeps the matches above the threshold.
+     */
+    private void score(MatchJob job, CandidateStore store, Dataset baseDataset, List<ScoringStage> stages,
+            PipelineRecord item) {
+        boolean timed = diagnostics.isRecordEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        RecordFeatures features = item.getFeatures();
+        Map<Integer, List<Candidate>> candidatesByEntry = new LinkedHashMap<>();
+        for (Candidate candidate : item.getCandidates()) {
+            candidatesByEntry.computeIfAbsent(candidate.getEntry(), e -> new ArrayList<>()).add(candidate);
+        }
+
+        List<MatchResult> results = new ArrayList<>();
+        for (Map.Entry<Integer, List<Candidate>> entryCandidates : candidatesByEntry.entrySet()) {
+            EntryFeatures entry = features.getEntries().get(entryCandidates.getKey());
+            List<Candidate> batch = entryCandidates.getValue();
+            int[] records = new int[batch.size()];
+            int[] recordEntries = new int[batch.size()];
+            float[] luceneScores = new float[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                records[i] = batch.get(i).getRecord();
+                recordEntries[i] = batch.get(i).getRecordEntry();
+                luceneScores[i] = batch.get(i).getLuceneScore();
+            }
+
+            MatchScores scores = scorer.score(features, entry, store, records, recordEntries, luceneScores,
+                    stages, job.getToken(), job.getThresholds());
+            for (int i = 0; i < scores.size(); i++) {
+                job.getThresholds().add(scores.get(i));
+                if (scores.getOverallScores()[i] > item.getThreshold()) {
+                    results.add(createResult(job, baseDataset, features, entry, store, records[i], recordEntries[i],
+                            scores.get(i), luceneScores[i]));
+                }
+            }
+        }
+        item.setResults(results);
+        if (timed) {
+            diagnostics.recordScoring(job, features, item.getCandidates().size(), results.size(),
+                    System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Keeps the best candidates of each compare dataset, so that a job
+     * matching against several datasets scores the same candidates as one job
+     * per dataset would. Candidates have to be sorted by upper bound.
+     */
+    private List<Candidate> selectTopK(List<Candidate> candidates, CandidateStore store, int topKPerDataset) {
+        if (topKPerDataset <= 0 || candidates.size() <= topKPerDataset) {
+            return candidates;
+        }
+        int[] selected = new int[store.getDatasetIds().size()];
+        List<Candidate> topK = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            int dataset = store.getDatasetIndex(candidate.getRecord());
+            if (selected[dataset] < topKPerDataset) {
+                selected[dataset]++;
+                topK.add(candidate);
+            }
+        }
+        return topK;
+    }
+
+
+    private MatchResult createResult(MatchJob job, Dataset baseDataset, RecordFeatures record,
+            EntryFeatures entry, CandidateStore store, int matchedRecord, int matchedEntry, MatchScore matchScore,
+            float score) {
+        Match match = new MatchImpl();
+        match.setLuceneScore(score);
+        match.setBaseDatasetId(baseDataset.getId());
+        match.setBaseRecordId(record.getRecordId());
+        match.setCompareDatasetId(store.getDatasetId(matchedRecord));
+        match.setCompareRecordId(store.getRecordId(matchedRecord));
+        match.setMatchedOn(OffsetDateTime.now());
+        match.setJobId(job.getJobId());
+        match.setInitiator(job.getInitiator());
+
+        match.setNameScore(matchScore.getNameScore());
+        match.setDateScore(matchScore.getDateScore());
+        match.setBioScore(matchScore.getBioScore());
+        match.setOverallScore(matchScore.getOverallScore());
+        return new MatchResult(match, entry.getPrimaryName(), entry.getSecondaryName(),
+                store.getPrimaryName(matchedEntry), store.getSecondaryName(matchedEntry));
+    }
 }
@@ -0,0 +1,272 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+import edu.asu.diging.rcn.match.engine.core.exception.JobStoppedException;
+import edu.asu.diging.rcn.match.engine.core.service.CandidateRetriever;
+import edu.asu.diging.rcn.match.engine.core.service.CandidateSearcher;
+import edu.asu.diging.rcn.match.engine.core.service.CandidateStoreManager;
+import edu.asu.diging.rcn.match.engine.core.service.NlpScorer;
+import edu.asu.diging.rcn.match.engine.core.store.Candidate;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateCollector;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+import edu.asu.diging.rcn.match.engine.core.store.IntList;
+import edu.asu.diging.rcn.match.engine.core.store.LongList;
+import edu.asu.diging.rcn.match.engine.core.store.MinHashIndex;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
+
+/**
+ * Finds candidates whose biography keywords are similar to those of the base
+ * record, regardless of their names, using a MinHash index of the store. The
+ * estimated Jaccard similarity of the keywords is used as a cheap pre-score:
+ * only candidates above a min similarity are returned, best first. Each name
+ * entry of the base record is paired with each name entry of a candidate.
+ *
+ * Building the index requires the keywords of all compare records with a
+ * biography, so it is expensive and only done if it is enabled. It is built on
+ * a pool of <code>_bio_index_threads</code> threads shared by all jobs.
+ */
+@Component
+@PropertySource("classpath:/config.properties")
+public class BioCandidateRetriever implements CandidateRetriever {
+
+    public static final String NAME = "bio";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private CandidateStoreManager storeManager;
+
+    @Autowired
+    private NlpScorer nlpScorer;
+
+    @Value("${_bio_lsh_min_similarity}")
+    private float minSimilarity;
+
+    @Value("${_bio_lsh_top_k}")
+    private int topK;
+
+    @Value("${_bio_index_threads}")
+    private int indexThreads;
+
+    private ExecutorService executor;
+
+    // indexes that are being built; guarded by itself
+    private final Map<CandidateStore, CompletableFuture<MinHashIndex>> builds = new IdentityHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(indexThreads, r -> {
+            Thread thread = new Thread(r, "bio-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public CandidateSearcher createSearcher(CandidateStore store) {
+        return createSearcher(store, null);
+    }
+
+    @Override
+    public CandidateSearcher createSearcher(CandidateStore store, CancellationToken token) {
+        MinHashIndex index = getIndex(store, token);
+        return (features, baseDatasetId) -> findCandidates(store, index, features, baseDatasetId);
+    }
+
+    /**
+     * Returns the index of a store, building it the first time it is needed.
+     * Only one job builds the index of a store, other jobs wait for it, but
+     * stop waiting when they are stopped. If the job building the index is
+     * stopped, the next job that needs it starts over.
+     */
+    private MinHashIndex getIndex(CandidateStore store, CancellationToken token) {
+        while (true) {
+            CompletableFuture<MinHashIndex> build;
+            boolean owner = false;
+            synchronized (builds) {
+                if (store.getBioIndex() != null) {
+                    return store.getBioIndex();
+                }
+                build = builds.get(store);
+                if (build == null) {
+                    build = new CompletableFuture<>();
+                    builds.put(store, build);
+                    owner = true;
+                }
+            }
+
+            if (owner) {
+                try {
+                    MinHashIndex index = buildIndex(store, token);
+                    store.setBioIndex(index);
+                    build.complete(index);
+                    return index;
+                } catch (RuntimeException e) {
+                    build.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    synchronized (builds) {
+                        builds.remove(store);
+                    }
+                }
+            }
+
+            MinHashIndex index = await(build, token);
+            if (index != null) {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * Waits for another job to build an index. Returns null if that job failed
+     * or was stopped.
+     */
+    private MinHashIndex await(CompletableFuture<MinHashIndex> build, CancellationToken token) {
+        while (true) {
+            if (token != null) {
+                token.throwIfStopped();
+            }
+            try {
+                return build.get(1, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                // check the token again
+            } catch (ExecutionException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JobStoppedException("Interrupted while waiting for the biography index.", e);
+            }
+        }
+    }
+
+    /**
+     * Computes the keywords of all records with a biography on the index
+     * threads and keeps them in the store for scoring. The token is checked
+     * between records.
+     */
+    private MinHashIndex buildIndex(CandidateStore store, CancellationToken token) {
+        long start = System.currentTimeMillis();
+        int[][] signatures = new int[store.size()][];
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < indexThreads; i++) {
+            tasks.add(executor.submit(() -> {
+                for (int record = next.getAndIncrement(); record < store.size(); record = next.getAndIncrement()) {
+                    if (token != null && token.isStopped()) {
+                        return;
+                    }
+                    if (store.hasBiography(record)) {
+                        signatures[record] = MinHashIndex
+                                .signature(store.getKeywords(storeManager.getBioKeywords(store, record)));
+                    }
+                }
+            }));
+        }
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            throw new IllegalStateException("Could not build biography index.", e.getCause());
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new JobStoppedException("Interrupted while building the biography index.", e);
+        }
+        if (token != null) {
+            token.throwIfStopped();
+        }
+
+        MinHashIndex index = MinHashIndex.build(store.size(), record -> signatures[record]);
+        logger.info("Built biography index of " + store.size() + " records in "
+                + (System.currentTimeMillis() - start) + "ms.");
+        return index;
+    }
+
+    private List<Candidate> findCandidates(CandidateStore store, MinHashIndex index, RecordFeatures features,
+            String baseDatasetId) {
+        if (features.getBiography() == null || features.getEntries().isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> keywords = features.getBioKeywords();
+        if (keywords == null) {
+            keywords = nlpScorer.getKeywords(features.getBiography());
+            features.setBioKeywords(keywords);
+        }
+        int[] signature = MinHashIndex.signature(keywords);
+        if (signature == null) {
+            return new ArrayList<>();
+        }
+
+        IntList hits = index.query(signature);
+        int[] records = hits.toArray();
+        Arrays.sort(records);
+        // (similarity bits << 32 | record) of distinct records; bits of positive floats sort like
+        // the floats, so sorting puts the most similar records last
+        LongList ranked = new LongList();
+        for (int i = 0; i < records.length; i++) {
+            int record = records[i];
+            if (i > 0 && records[i - 1] == record) {
+                continue;
+            }
+            if (store.getDatasetId(record).equals(baseDatasetId)
+                    && store.getRecordId(record).compareTo(features.getRecordId()) <= 0) {
+                continue;
+            }
+            float similarity = index.estimateSimilarity(signature, record);
+            if (similarity >= minSimilarity && similarity > 0) {
+                ranked.add(((long) Float.floatToIntBits(similarity) << 32) | record);
+            }
+        }
+        long[] best = ranked.toArray();
+        Arrays.sort(best);
+
+        CandidateCollector candidates = new CandidateCollector();
+        for (int i = best.length - 1; i >= 0 && (topK <= 0 || i >= best.length - topK); i--) {
+            int record = (int) best[i];
+            for (int entry = 0; entry < features.getEntries().size(); entry++) {
+                for (int recordEntry = store.getEntryStart(record); recordEntry < store
+                        .getEntryEnd(record); recordEntry++) {
+                    // bio candidates don't have a search score, they get the lowest start score
+                    candidates.add(entry, record, recordEntry, 0f);
+                }
+            }
+        }
+        return candidates.getCandidates();
+    }
+}
@@ -0,0 +1,72 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import edu.asu.diging.rcn.match.engine.core.service.CandidateStoreManager;
+import edu.asu.diging.rcn.match.engine.core.service.NlpScorer;
+import edu.asu.diging.rcn.match.engine.core.service.ScoringStage;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
+
+@Component
+public class BioScoringStage implements ScoringStage {
+
+    public static final String NAME = "bio";
+
+    /**
+     * Name score a candidate needs to have its biography scored, unless the
+     * job raised it.
+     */
+    public static final float NAME_THRESHOLD = 0.2f;
+
+    @Autowired
+    private NlpScorer nlpScorer;
+
+    @Autowired
+    private CandidateStoreManager storeManager;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getCost() {
+        return 1000;
+    }
+
+    /**
+     * This score is slow to calculate, so it is only computed if the name score
+     * is high enough and the dates don't already force the overall score to 0.2.
+     * Jobs that adapt their thresholds can raise the required name score.
+     */
+    @Override
+    public boolean isNeeded(ScoringContext context, MatchScore score) {
+        float nameThreshold = context.getThresholds() != null ? context.getThresholds().getBioNameThreshold()
+                : NAME_THRESHOLD;
+        return score.getNameScore() > nameThreshold && score.getDateScore() != 0;
+    }
+
+    @Override
+    public void score(ScoringContext context, MatchScore score) {
+        score.setBioScore(scoreBiography(context.getRecord(), context.getStore(), context.getCandidate()));
+    }
+
+    private float scoreBiography(RecordFeatures record, CandidateStore store, int candidate) {
+        if (record.getBiography() == null || !store.hasBiography(candidate)) {
+            return -1;
+        }
+
+        List<String> keywords1 = record.getBioKeywords();
+        if (keywords1 == null) {
+            keywords1 = nlpScorer.getKeywords(record.getBiography());
+            record.setBioKeywords(keywords1);
+        }
+        List<String> keywords2 = store.getKeywords(storeManager.getBioKeywords(store, candidate));
+
+        return 1 - nlpScorer.calculateKeywordSimilarity(keywords1, keywords2);
+    }
+}
@@ -0,0 +1,99 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.asu.diging.rcn.match.engine.core.exception.JobStoppedException;
+
+/**
+ * Tells a running job when to stop. A job stops when it is cancelled, when it
+ * has been running longer than its time budget or when it has scored more
+ * candidates than its candidate budget allows. Jobs check the token
+ * themselves between units of work, so that they always stop in a consistent
+ * state.
+ */
+public class CancellationToken {
+
+    public enum StopReason {
+        CANCELLED, TIME_BUDGET, CANDIDATE_BUDGET
+    }
+
+    private final long maxDuration;
+    private final long maxCandidates;
+
+    private volatile long deadline = Long.MAX_VALUE;
+    private volatile StopReason reason;
+    private final AtomicLong candidates = new AtomicLong();
+
+    /**
+     * @param maxDuration
+     *            max run time in milliseconds, 0 for no limit
+     * @param maxCandidates
+     *            max number of candidates to score, 0 for no limit
+     */
+    public CancellationToken(long maxDuration, long maxCandidates) {
+        this.maxDuration = maxDuration;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Starts the clock for the time budget.
+     */
+    public void start() {
+        if (maxDuration > 0) {
+            deadline = System.currentTimeMillis() + maxDuration;
+        }
+    }
+
+    public void cancel() {
+        stop(StopReason.CANCELLED);
+    }
+
+    /**
+     * Counts candidates that are about to be scored against the candidate
+     * budget.
+     */
+    public void addCandidates(int count) {
+        if (candidates.addAndGet(count) > maxCandidates && maxCandidates > 0) {
+            stop(StopReason.CANDIDATE_BUDGET);
+        }
+    }
+
+    public boolean isStopped() {
+        if (reason == null && System.currentTimeMillis() > deadline) {
+            stop(StopReason.TIME_BUDGET);
+        }
+        return reason != null;
+    }
+
+    public void throwIfStopped() {
+        if (isStopped()) {
+            throw new JobStoppedException("Job stopped: " + reason + ".");
+        }
+    }
+
+    /**
+     * Returns why the job was stopped or null if it was not.
+     */
+    public StopReason getReason() {
+        return reason;
+    }
+
+    public long getMaxDuration() {
+        return maxDuration;
+    }
+
+    public long getMaxCandidates() {
+        return maxCandidates;
+    }
+
+    public long getCandidates() {
+        return candidates.get();
+    }
+
+    private synchronized void stop(StopReason stopReason) {
+        // the first reason wins
+        if (reason == null) {
+            reason = stopReason;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.asu.diging.eaccpf.data.RecordRepository;
+import edu.asu.diging.eaccpf.model.impl.RecordImpl;
+import edu.asu.diging.rcn.match.engine.core.data.DatasetRecordRepository;
+import edu.asu.diging.rcn.match.engine.core.service.CandidateStoreManager;
+import edu.asu.diging.rcn.match.engine.core.service.FeatureExtractor;
+import edu.asu.diging.rcn.match.engine.core.service.NlpScorer;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+
+@Service
+@PropertySource("classpath:/config.properties")
+public class CandidateStoreManagerImpl implements CandidateStoreManager {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final int[] NO_KEYWORDS = new int[0];
+
+    @Autowired
+    private RecordRepository recordRepo;
+
+    @Autowired
+    private DatasetRecordRepository datasetRecordRepo;
+
+    @Autowired
+    private FeatureExtractor featureExtractor;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${_store_page_size}")
+    private int pageSize;
+
+    @Autowired
+    private NlpScorer nlpScorer;
+
+    /**
+     * Builds the store in its own transaction, so that the loaded record
+     * entities can be garbage collected as soon as their features have been
+     * copied into the store.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public CandidateStore createStore(String datasetId) {
+        return createStore(Collections.singletonList(datasetId));
+    }
+
+    /**
+     * Loads the records of all given datasets into one store, so that a job
+     * matching against several datasets only needs a single store. Records are
+     * loaded page by page and the persistence context is cleared after every
+     * page, so that only one page of entities is in memory at a time. They
+     * are not put into the second-level cache, they are only needed once.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public CandidateStore createStore(List<String> datasetIds) {
+        return buildStore(datasetIds);
+    }
+
+    /**
+     * Loads the records like {@link #createStore(List)}, but from the primary
+     * database. The read replica may not have recently imported records yet.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public CandidateStore createStoreFromPrimary(List<String> datasetIds) {
+        return buildStore(datasetIds);
+    }
+
+    private CandidateStore buildStore(List<String> datasetIds) {
+        CandidateStore.Builder builder = new CandidateStore.Builder();
+        entityManager.unwrap(Session.class).setCacheMode(CacheMode.GET);
+        for (String datasetId : datasetIds) {
+            int page = 0;
+            List<RecordImpl> records = datasetRecordRepo.findByDataset(datasetId, PageRequest.of(page, pageSize));
+            while (!records.isEmpty()) {
+                records.forEach(record -> builder.addRecord(featureExtractor.extract(record)));
+                entityManager.clear();
+                records = datasetRecordRepo.findByDataset(datasetId, PageRequest.of(++page, pageSize));
+            }
+        }
+        CandidateStore store = builder.build();
+        logger.info("Loaded " + store.size() + " records of datasets " + datasetIds + " into candidate store.");
+        return store;
+    }
+
+    /**
+     * Returns the biography keyword ids of a record in the store. Keywords are
+     * only computed the first time they are requested, which requires loading
+     * the record again.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public int[] getBioKeywords(CandidateStore store, int record) {
+        int[] keywords = store.getBioKeywords(record);
+        if (keywords != null) {
+            return keywords;
+        }
+
+        keywords = NO_KEYWORDS;
+        if (store.hasBiography(record)) {
+            Optional<RecordImpl> recordOptional = recordRepo.findById(store.getRecordId(record));
+            if (recordOptional.isPresent()) {
+                String biography = featureExtractor.getBiography(recordOptional.get());
+                if (biography != null) {
+                    keywords = store.internKeywords(nlpScorer.getKeywords(biography));
+                }
+            }
+        }
+        store.setBioKeywords(record, keywords);
+        return keywords;
+    }
+}
@@ -0,0 +1,259 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.stereotype.Service;
+
+import edu.asu.diging.rcn.match.engine.core.model.impl.RecordClusterImpl;
+import edu.asu.diging.rcn.match.engine.core.service.ClusterManager;
+import edu.asu.diging.rcn.match.engine.core.service.JobStatus;
+import edu.asu.diging.rcn.match.engine.core.store.CompactDictionary;
+import edu.asu.diging.rcn.match.engine.core.store.IntList;
+import edu.asu.diging.rcn.match.engine.core.store.UnionFind;
+
+/**
+ * Clusters records transitively over the matches of one or more jobs. Matches
+ * are streamed from the database; only record ids, the union-find arrays and
+ * weak links are kept in memory.
+ * 
+ * Matches with a score of at least <code>_cluster_strong_threshold</code>
+ * always link their records. Weak matches (at least
+ * <code>_cluster_threshold</code>, but below the strong threshold) only merge
+ * two clusters if there are enough of them: the number of weak links between
+ * the clusters divided by the size of the smaller cluster has to reach
+ * <code>_cluster_min_link_ratio</code>. This keeps single weak matches from
+ * chaining large clusters together.
+ */
+@Service
+@PropertySource("classpath:/config.properties")
+public class ClusterManagerImpl implements ClusterManager {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final String EDGES_QUERY = "SELECT m.baseDatasetId, m.baseRecordId, m.compareDatasetId, "
+            + "m.compareRecordId, m.overallScore FROM MatchImpl m "
+            + "WHERE m.jobId IN :jobIds AND m.overallScore >= :threshold";
+
+    @Autowired
+    private JpaTransactionManager transactionManager;
+
+    @Value("${_cluster_threshold}")
+    private float threshold;
+
+    @Value("${_cluster_strong_threshold}")
+    private float strongThreshold;
+
+    @Value("${_cluster_min_link_ratio}")
+    private float minLinkRatio;
+
+    @Value("${_cluster_batch_size}")
+    private int batchSize;
+
+    private final Map<String, ClusteringRun> runs = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        // clusterings hold all record ids in memory, so only one runs at a time
+        executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "clustering"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public ClusteringRun cluster(List<String> jobIds) {
+        ClusteringRun run = new ClusteringRun(UUID.randomUUID().toString(), jobIds);
+        runs.put(run.getClusteringId(), run);
+        executor.submit(() -> execute(run));
+        return run;
+    }
+
+    @Override
+    public ClusteringRun getRun(String clusteringId) {
+        return runs.get(clusteringId);
+    }
+
+    private void execute(ClusteringRun run) {
+        run.setStatus(JobStatus.RUNNING);
+        try {
+            CompactDictionary recordIds = new CompactDictionary();
+            CompactDictionary datasetIds = new CompactDictionary();
+            IntList recordDatasets = new IntList();
+            UnionFind clusters = new UnionFind();
+            IntList weakFrom = new IntList();
+            IntList weakTo = new IntList();
+
+            long edges = 0;
+            EntityManager em = transactionManager.getEntityManagerFactory().createEntityManager();
+            try {
+                ScrollableResults results = em.createQuery(EDGES_QUERY).setParameter("jobIds", run.getJobIds())
+                        .setParameter("threshold", threshold).unwrap(org.hibernate.query.Query.class)
+                        // makes the MySQL driver stream rows instead of loading all of them
+                        .setFetchSize(Integer.MIN_VALUE).setReadOnly(true).scroll(ScrollMode.FORWARD_ONLY);
+                try {
+                    while (results.next()) {
+                        Object[] row = results.get();
+                        int from = addRecord((String) row[0], (String) row[1], recordIds, datasetIds,
+                                recordDatasets, clusters);
+                        int to = addRecord((String) row[2], (String) row[3], recordIds, datasetIds,
+                                recordDatasets, clusters);
+                        if (((Number) row[4]).floatValue() >= strongThreshold || minLinkRatio <= 0) {
+                            clusters.union(from, to);
+                        } else {
+                            weakFrom.add(from);
+                            weakTo.add(to);
+                        }
+                        edges++;
+                    }
+                } finally {
+                    results.close();
+                }
+            } finally {
+                em.close();
+            }
+            run.setEdges(edges);
+            run.setRecords(clusters.size());
+
+            mergeWeakLinks(clusters, weakFrom, weakTo);
+            run.setClusters(storeClusters(run.getClusteringId(), clusters, recordIds, datasetIds, recordDatasets));
+            run.setStatus(JobStatus.DONE);
+            logger.info("Clustered " + clusters.size() + " records into " + run.getClusters() + " clusters.");
+        } catch (RuntimeException e) {
+            logger.error("Clustering " + run.getClusteringId() + " failed.", e);
+            run.setErrorMessage(e.getMessage());
+            run.setStatus(JobStatus.FAILED);
+        }
+        run.setFinishedOn(OffsetDateTime.now());
+    }
+
+    private int addRecord(String datasetId, String recordId, CompactDictionary recordIds, CompactDictionary datasetIds,
+            IntList recordDatasets, UnionFind clusters) {
+        int record = recordIds.intern(recordId);
+        if (record == recordDatasets.size()) {
+            recordDatasets.add(datasetIds.intern(datasetId));
+            clusters.ensureSize(record + 1);
+        }
+        return record;
+    }
+
+    /**
+     * Merges clusters with enough weak links between them. Links are counted
+     * between the clusters formed by strong links, by sorting the pairs of
+     * clusters they link, and all merges are decided against the sizes of
+     * these clusters before any of them is merged. That way the result does
+     * not depend on the order in which matches were read.
+     */
+    private void mergeWeakLinks(UnionFind clusters, IntList weakFrom, IntList weakTo) {
+        long[] links = new long[weakFrom.size()];
+        int linkCount = 0;
+        for (int i = 0; i < weakFrom.size(); i++) {
+            int root1 = clusters.find(weakFrom.get(i));
+            int root2 = clusters.find(weakTo.get(i));
+            if (root1 != root2) {
+                links[linkCount++] = ((long) Math.min(root1, root2) << 32) | Math.max(root1, root2);
+            }
+        }
+        Arrays.sort(links, 0, linkCount);
+
+        // pairs of clusters to merge are written to the front of the array
+        int mergeCount = 0;
+        for (int start = 0, end; start < linkCount; start = end) {
+            end = start + 1;
+            while (end < linkCount && links[end] == links[start]) {
+                end++;
+            }
+            int cluster1 = (int) (links[start] >>> 32);
+            int cluster2 = (int) (links[start] & 0xFFFFFFFFL);
+            int smaller = Math.min(clusters.getSetSize(cluster1), clusters.getSetSize(cluster2));
+            if ((end - start) / (float) smaller >= minLinkRatio) {
+                links[mergeCount++] = links[start];
+            }
+        }
+        for (int i = 0; i < mergeCount; i++) {
+            clusters.union((int) (links[i] >>> 32), (int) (links[i] & 0xFFFFFFFFL));
+        }
+    }
+
+    /**
+     * Stores the cluster of every record that is in a cluster with at least
+     * one other record. The id of a cluster is the smallest record id in it, so
+     * that it does not depend on the order in which matches were read.
+     */
+    private long storeClusters(String clusteringId, UnionFind clusters, CompactDictionary recordIds,
+            CompactDictionary datasetIds, IntList recordDatasets) {
+        int[] representatives = new int[clusters.size()];
+        for (int i = 0; i < representatives.length; i++) {
+            representatives[i] = -1;
+        }
+        for (int i = 0; i < clusters.size(); i++) {
+            int root = clusters.find(i);
+            if (representatives[root] == -1
+                    || recordIds.get(i).compareTo(recordIds.get(representatives[root])) < 0) {
+                representatives[root] = i;
+            }
+        }
+
+        long clusterCount = 0;
+        EntityManager em = transactionManager.getEntityManagerFactory().createEntityManager();
+        try {
+            em.getTransaction().begin();
+            int inBatch = 0;
+            for (int i = 0; i < clusters.size(); i++) {
+                int root = clusters.find(i);
+                if (clusters.getSetSize(root) < 2) {
+                    continue;
+                }
+                if (root == i) {
+                    clusterCount++;
+                }
+                RecordClusterImpl cluster = new RecordClusterImpl();
+                cluster.setId(clusteringId + ":" + recordIds.get(i));
+                cluster.setClusteringId(clusteringId);
+                cluster.setClusterId(recordIds.get(representatives[root]));
+                cluster.setRecordId(recordIds.get(i));
+                cluster.setDatasetId(datasetIds.get(recordDatasets.get(i)));
+                em.persist(cluster);
+
+                if (++inBatch == batchSize) {
+                    em.flush();
+                    em.clear();
+                    em.getTransaction().commit();
+                    em.getTransaction().begin();
+                    inBatch = 0;
+                }
+            }
+            em.getTransaction().commit();
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+        return clusterCount;
+    }
+}
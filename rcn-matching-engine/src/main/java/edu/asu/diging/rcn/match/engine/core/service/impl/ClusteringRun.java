@@ -0,0 +1,89 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import edu.asu.diging.rcn.match.engine.core.service.JobStatus;
+
+/**
+ * A run of the clustering of the matches of one or more jobs and its
+ * progress.
+ */
+public class ClusteringRun {
+
+    private final String clusteringId;
+    private final List<String> jobIds;
+    private final OffsetDateTime submittedOn = OffsetDateTime.now();
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile OffsetDateTime finishedOn;
+    private volatile long edges;
+    private volatile long records;
+    private volatile long clusters;
+    private volatile String errorMessage;
+
+    public ClusteringRun(String clusteringId, List<String> jobIds) {
+        this.clusteringId = clusteringId;
+        this.jobIds = jobIds;
+    }
+
+    public String getClusteringId() {
+        return clusteringId;
+    }
+
+    public List<String> getJobIds() {
+        return jobIds;
+    }
+
+    public OffsetDateTime getSubmittedOn() {
+        return submittedOn;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    public OffsetDateTime getFinishedOn() {
+        return finishedOn;
+    }
+
+    public void setFinishedOn(OffsetDateTime finishedOn) {
+        this.finishedOn = finishedOn;
+    }
+
+    public long getEdges() {
+        return edges;
+    }
+
+    public void setEdges(long edges) {
+        this.edges = edges;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public void setRecords(long records) {
+        this.records = records;
+    }
+
+    public long getClusters() {
+        return clusters;
+    }
+
+    public void setClusters(long clusters) {
+        this.clusters = clusters;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+}
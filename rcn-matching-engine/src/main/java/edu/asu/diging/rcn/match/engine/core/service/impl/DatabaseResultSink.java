@@ -0,0 +1,92 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.transaction.Transactional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import edu.asu.diging.eaccpf.model.match.MasterMatch;
+import edu.asu.diging.eaccpf.model.match.Match;
+import edu.asu.diging.eaccpf.model.match.impl.MasterMatchImpl;
+import edu.asu.diging.rcn.match.engine.core.data.JobMasterMatchRepository;
+import edu.asu.diging.rcn.match.engine.core.service.MatchManager;
+import edu.asu.diging.rcn.match.engine.core.service.MatchResultSink;
+import edu.asu.diging.rcn.match.engine.core.service.ResultExporter;
+
+/**
+ * Stores matches and master matches in the database and passes them on to
+ * the result export.
+ */
+@Service
+@Order(1)
+public class DatabaseResultSink implements MatchResultSink {
+
+    @Autowired
+    private MatchManager matchManager;
+
+    @Autowired
+    private JobMasterMatchRepository masterMatchRepo;
+
+    @Autowired
+    private ResultExporter resultExporter;
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * edu.asu.diging.rcn.match.engine.core.service.MatchResultSink#store(edu.asu.
+     * diging.rcn.match.engine.core.service.impl.MatchJob, java.util.List)
+     */
+    @Override
+    @Transactional
+    public void store(MatchJob job, List<MatchResult> results) {
+        for (MatchResult result : results) {
+            Match match = result.getMatch();
+            matchManager.saveMatch(match);
+            resultExporter.add(job, match);
+
+            storeMasterMatch(job, match.getBaseDatasetId(), match.getBaseRecordId(), match.getCompareDatasetId(),
+                    match.getCompareRecordId(), result.getNamePart1(), result.getNamePart2(), match, true);
+            // the matched record's master match points to the same record pair, but the match
+            // row only belongs to the forward master match; the matches of the reverse side are
+            // the rows of the job whose compare record is that record
+            if (job.isSymmetric(match.getCompareDatasetId())) {
+                storeMasterMatch(job, match.getCompareDatasetId(), match.getCompareRecordId(),
+                        match.getBaseDatasetId(), match.getBaseRecordId(), result.getMatchedNamePart1(),
+                        result.getMatchedNamePart2(), match, false);
+            }
+            job.matchStored();
+        }
+    }
+
+    private void storeMasterMatch(MatchJob job, String datasetId, String recordId, String matchedDatasetId,
+            String matchedRecordId, String namePart1, String namePart2, Match match, boolean owner) {
+        // a record gets one master match per dataset it was matched against
+        MasterMatch master = masterMatchRepo.findFirstByJobIdAndRecordIdAndMatchedDatasetId(job.getJobId(),
+                recordId, matchedDatasetId);
+        if (master == null) {
+            master = new MasterMatchImpl();
+            master.setJobId(job.getJobId());
+            master.setDatasetId(datasetId);
+            master.setRecordId(recordId);
+            master.setMatchedDatasetId(matchedDatasetId);
+            master.setMatchedRecordId(matchedRecordId);
+            master.setMatches(new ArrayList<Match>());
+        }
+        if (master.getScore() < match.getOverallScore()) {
+            master.setMatchedRecordId(matchedRecordId);
+            master.setNamePart1(namePart1);
+            master.setNamePart2(namePart2);
+            master.setScore(match.getOverallScore());
+            master.setMaster(match);
+        }
+        if (owner) {
+            master.getMatches().add(match);
+        }
+        masterMatchRepo.save((MasterMatchImpl) master);
+    }
+}
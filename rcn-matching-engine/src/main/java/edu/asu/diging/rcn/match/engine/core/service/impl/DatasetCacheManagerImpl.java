@@ -0,0 +1,275 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.stereotype.Service;
+
+import edu.asu.diging.eaccpf.model.impl.DatasetImpl;
+import edu.asu.diging.eaccpf.model.impl.RecordImpl;
+import edu.asu.diging.rcn.match.engine.core.service.CandidateStoreManager;
+import edu.asu.diging.rcn.match.engine.core.service.DatasetCacheManager;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+
+/**
+ * Keeps the candidate stores of recent jobs for later jobs against the same
+ * datasets, and evicts them together with the cached entities when records
+ * of a dataset change. At most the configured number of stores is kept, least
+ * recently used first out, and only through soft references, so that the
+ * garbage collector can drop them before a job runs out of heap. If several
+ * jobs need the same store at once, it is only built once. Stores of datasets
+ * that changed recently are built from the primary database, since the read
+ * replica may lag behind.
+ */
+@Service
+@PropertySource("classpath:/config.properties")
+public class DatasetCacheManagerImpl implements DatasetCacheManager {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private CandidateStoreManager storeManager;
+
+    @Autowired
+    private JpaTransactionManager transactionManager;
+
+    @Value("${_store_cache_size}")
+    private int cacheSize;
+
+    @Value("${_store_cache_ttl_minutes}")
+    private long ttlMinutes;
+
+    @Value("${_cache_enabled}")
+    private boolean entityCacheEnabled;
+
+    @Value("${_cache_collections}")
+    private String[] cachedCollections;
+
+    @Value("${_db_replica_max_lag_seconds}")
+    private long replicaMaxLagSeconds;
+
+    // when datasets were last evicted because their records changed
+    private final Map<String, Long> changedOn = new ConcurrentHashMap<>();
+
+    // access ordered, so that the least recently used store comes first
+    private final LinkedHashMap<List<String>, CachedStore> stores = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong storeHits = new AtomicLong();
+    private final AtomicLong storeMisses = new AtomicLong();
+
+    /**
+     * Returns the store of the given datasets, building it if it is not
+     * cached. The order of the datasets does not matter.
+     */
+    @Override
+    public CandidateStore getStore(List<String> datasetIds) {
+        List<String> key = new ArrayList<>(datasetIds);
+        Collections.sort(key);
+        if (cacheSize <= 0) {
+            storeMisses.incrementAndGet();
+            return createStore(key);
+        }
+
+        while (true) {
+            CachedStore cached;
+            boolean build = false;
+            synchronized (stores) {
+                cached = stores.get(key);
+                if (cached == null || cached.isStale()) {
+                    cached = new CachedStore();
+                    stores.put(key, cached);
+                    build = true;
+                    trim();
+                }
+            }
+            if (build) {
+                return build(key, cached);
+            }
+
+            CandidateStore store = cached.await();
+            if (store != null) {
+                storeHits.incrementAndGet();
+                return store;
+            }
+            // the build failed or the store has been garbage collected
+            synchronized (stores) {
+                stores.remove(key, cached);
+            }
+        }
+    }
+
+    private CandidateStore build(List<String> key, CachedStore cached) {
+        storeMisses.incrementAndGet();
+        try {
+            CandidateStore store = createStore(key);
+            cached.complete(store);
+            return store;
+        } catch (RuntimeException e) {
+            synchronized (stores) {
+                stores.remove(key, cached);
+            }
+            cached.complete(null);
+            throw e;
+        }
+    }
+
+    private CandidateStore createStore(List<String> datasetIds) {
+        long changedSince = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(replicaMaxLagSeconds);
+        boolean changed = false;
+        for (String datasetId : datasetIds) {
+            Long changedAt = changedOn.get(datasetId);
+            if (changedAt != null && changedAt >= changedSince) {
+                changed = true;
+            } else if (changedAt != null) {
+                changedOn.remove(datasetId, changedAt);
+            }
+        }
+        return changed ? storeManager.createStoreFromPrimary(datasetIds) : storeManager.createStore(datasetIds);
+    }
+
+    private void trim() {
+        Iterator<List<String>> keys = stores.keySet().iterator();
+        while (stores.size() > cacheSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * Evicts the stores containing a dataset and the cached entities of its
+     * records. If no record ids are given, all cached records are evicted,
+     * since the cache can't tell records of different datasets apart. Jobs
+     * that already use an evicted store keep using it.
+     */
+    @Override
+    public void evict(String datasetId, List<String> recordIds) {
+        changedOn.put(datasetId, System.currentTimeMillis());
+        int evicted = 0;
+        synchronized (stores) {
+            Iterator<List<String>> keys = stores.keySet().iterator();
+            while (keys.hasNext()) {
+                if (keys.next().contains(datasetId)) {
+                    keys.remove();
+                    evicted++;
+                }
+            }
+        }
+        if (evicted > 0) {
+            logger.info("Evicted " + evicted + " candidate stores containing dataset " + datasetId + ".");
+        }
+
+        if (!entityCacheEnabled) {
+            return;
+        }
+        boolean allRecords = recordIds == null || recordIds.isEmpty();
+        Cache cache = getSessionFactory().getCache();
+        cache.evictEntityData(DatasetImpl.class, datasetId);
+        if (allRecords) {
+            cache.evictEntityData(RecordImpl.class);
+        } else {
+            recordIds.forEach(id -> cache.evictEntityData(RecordImpl.class, id));
+        }
+        String recordRolePrefix = RecordImpl.class.getName() + ".";
+        for (String role : cachedCollections) {
+            role = role.trim();
+            if (role.isEmpty()) {
+                continue;
+            }
+            if (!allRecords && role.startsWith(recordRolePrefix)) {
+                String recordRole = role;
+                recordIds.forEach(id -> cache.evictCollectionData(recordRole, id));
+            } else {
+                cache.evictCollectionData(role);
+            }
+        }
+    }
+
+    @Override
+    public long getStoreHits() {
+        return storeHits.get();
+    }
+
+    @Override
+    public long getStoreMisses() {
+        return storeMisses.get();
+    }
+
+    @Override
+    public int getCachedStores() {
+        synchronized (stores) {
+            return stores.size();
+        }
+    }
+
+    @Override
+    public boolean isEntityCacheEnabled() {
+        return entityCacheEnabled;
+    }
+
+    @Override
+    public long getEntityHits() {
+        return entityCacheEnabled ? getStatistics().getSecondLevelCacheHitCount() : 0;
+    }
+
+    @Override
+    public long getEntityMisses() {
+        return entityCacheEnabled ? getStatistics().getSecondLevelCacheMissCount() : 0;
+    }
+
+    @Override
+    public long getEntityPuts() {
+        return entityCacheEnabled ? getStatistics().getSecondLevelCachePutCount() : 0;
+    }
+
+    private Statistics getStatistics() {
+        return getSessionFactory().getStatistics();
+    }
+
+    private SessionFactory getSessionFactory() {
+        return transactionManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+    }
+
+    private class CachedStore {
+
+        private final CompletableFuture<SoftReference<CandidateStore>> store = new CompletableFuture<>();
+        private final long createdAt = System.currentTimeMillis();
+
+        void complete(CandidateStore built) {
+            store.complete(new SoftReference<>(built));
+        }
+
+        CandidateStore await() {
+            return store.join().get();
+        }
+
+        /**
+         * Stores that are still being built are never stale.
+         */
+        boolean isStale() {
+            if (!store.isDone()) {
+                return false;
+            }
+            boolean expired = ttlMinutes > 0
+                    && System.currentTimeMillis() - createdAt > TimeUnit.MINUTES.toMillis(ttlMinutes);
+            return expired || store.join().get() == null;
+        }
+    }
+}
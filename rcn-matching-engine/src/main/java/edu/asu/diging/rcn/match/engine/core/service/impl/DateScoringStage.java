@@ -0,0 +1,88 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import org.springframework.stereotype.Component;
+
+import edu.asu.diging.rcn.match.engine.core.service.ScoringStage;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
+
+@Component
+public class DateScoringStage implements ScoringStage {
+
+    public static final String NAME = "date";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getCost() {
+        return 1;
+    }
+
+    @Override
+    public boolean isNeeded(ScoringContext context, MatchScore score) {
+        return true;
+    }
+
+    @Override
+    public void score(ScoringContext context, MatchScore score) {
+        score.setDateScore(scoreDatesMatch(context.getRecord(), context.getStore(), context.getCandidate()));
+    }
+
+    public float scoreDatesMatch(RecordFeatures record, CandidateStore store, int candidate) {
+        int[] yearsFrom = record.getYearsFrom();
+        int[] yearsTo = record.getYearsTo();
+        int yearStart = store.getYearStart(candidate);
+        int nrOfRanges2 = store.getYearEnd(candidate) - yearStart;
+
+        if (yearsFrom.length == 0 || nrOfRanges2 == 0) {
+            return -1;
+        }
+
+        // each range of the candidate can only be matched once
+        boolean[] matched = new boolean[nrOfRanges2];
+        int remaining = nrOfRanges2;
+        float totalScore = 0f;
+        for (int i = 0; i < yearsFrom.length; i++) {
+            if (remaining == 0) {
+                break;
+            }
+
+            float score = 0f;
+            int matchingIdx = -1;
+            for (int j = 0; j < nrOfRanges2; j++) {
+                if (matched[j]) {
+                    continue;
+                }
+                if (matchingIdx == -1) {
+                    matchingIdx = j;
+                }
+                int from2 = store.getYearFrom(yearStart + j);
+                int to2 = store.getYearTo(yearStart + j);
+                float currentScore = 0f;
+                if (yearsFrom[i] <= from2 + 1 && yearsFrom[i] >= from2 - 1) {
+                    // penalize if in range and not exact year
+                    currentScore = 0.5f * (1 - Math.abs((yearsFrom[i] - from2) / 3));
+                }
+                if (yearsTo[i] <= to2 + 1 && yearsTo[i] >= to2 - 1) {
+                    // penalize if in range and not exact year
+                    currentScore += 0.5f * (1 - Math.abs((yearsTo[i] - to2) / 3));
+                }
+
+                if (currentScore > score) {
+                    score = currentScore;
+                    matchingIdx = j;
+                }
+            }
+
+            totalScore += score;
+            matched[matchingIdx] = true;
+            remaining--;
+        }
+
+        // average over all years
+        return totalScore / yearsFrom.length;
+    }
+}
@@ -0,0 +1,152 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Service;
+
+import edu.asu.diging.rcn.match.engine.core.diagnostics.JfrDiagnostics;
+import edu.asu.diging.rcn.match.engine.core.service.DiagnosticsRecorder;
+import edu.asu.diging.rcn.match.engine.core.service.ScoringStage;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
+
+/**
+ * Records diagnostic events with the flight recorder if the JVM has one.
+ * Base records are recorded if they took longer than the record threshold or
+ * had more candidates than the candidate threshold, queries and pairs if they
+ * took longer than their thresholds.
+ */
+@Service
+@PropertySource("classpath:/config.properties")
+public class DiagnosticsRecorderImpl implements DiagnosticsRecorder {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Value("${_diagnostics_enabled}")
+    private boolean enabled;
+
+    @Value("${_diagnostics_record_threshold_ms}")
+    private long recordThresholdMillis;
+
+    @Value("${_diagnostics_candidate_threshold}")
+    private int candidateThreshold;
+
+    @Value("${_diagnostics_query_threshold_ms}")
+    private long queryThresholdMillis;
+
+    @Value("${_diagnostics_pair_threshold_ms}")
+    private long pairThresholdMillis;
+
+    private long recordThreshold;
+    private long queryThreshold;
+    private long pairThreshold;
+
+    // null if diagnostics are disabled or there is no flight recorder
+    private JfrDiagnostics jfr;
+
+    @PostConstruct
+    public void init() {
+        recordThreshold = TimeUnit.MILLISECONDS.toNanos(recordThresholdMillis);
+        queryThreshold = TimeUnit.MILLISECONDS.toNanos(queryThresholdMillis);
+        pairThreshold = TimeUnit.MILLISECONDS.toNanos(pairThresholdMillis);
+        if (!enabled) {
+            return;
+        }
+        try {
+            Class.forName("jdk.jfr.Event");
+        } catch (ClassNotFoundException e) {
+            logger.info("There is no flight recorder in this JVM, diagnostic events are not recorded.");
+            return;
+        }
+        if (!JfrDiagnostics.isAvailable()) {
+            logger.info("The flight recorder is disabled, diagnostic events are not recorded.");
+            return;
+        }
+        jfr = new JfrDiagnostics();
+    }
+
+    @Override
+    public boolean isRecordEnabled() {
+        return jfr != null && (jfr.isRetrievalEnabled() || jfr.isScoringEnabled());
+    }
+
+    @Override
+    public boolean isQueryEnabled() {
+        return jfr != null && jfr.isQueryEnabled();
+    }
+
+    @Override
+    public boolean isPairEnabled() {
+        return jfr != null && jfr.isPairEnabled();
+    }
+
+    @Override
+    public void recordRetrieval(MatchJob job, RecordFeatures record, int candidates, int scoredCandidates,
+            long retrievalTime) {
+        if (jfr == null || (retrievalTime < recordThreshold && candidates < candidateThreshold)) {
+            return;
+        }
+        jfr.commitRetrieval(job.getJobId(), record.getRecordId(), record.getEntries().size(), candidates,
+                scoredCandidates, retrievalTime);
+    }
+
+    @Override
+    public void recordScoring(MatchJob job, RecordFeatures record, int candidates, int matches, long scoringTime) {
+        if (jfr == null || (scoringTime < recordThreshold && candidates < candidateThreshold)) {
+            return;
+        }
+        long biographyLength = record.getBiography() != null ? record.getBiography().length() : 0;
+        jfr.commitScoring(job.getJobId(), record.getRecordId(), candidates, matches, biographyLength, scoringTime);
+    }
+
+    @Override
+    public void recordQuery(String retriever, RecordFeatures record, String term, int hits, long queryTime) {
+        if (jfr == null || queryTime < queryThreshold) {
+            return;
+        }
+        jfr.commitQuery(retriever, record.getRecordId(), term, hits, queryTime);
+    }
+
+    /**
+     * Adds up the stage times by stage, stages other than name, date and
+     * biography scoring are added up together.
+     */
+    @Override
+    public void recordPair(ScoringContext context, List<ScoringStage> stages, long[] stageTimes, MatchScore score,
+            long scoringTime) {
+        if (jfr == null || scoringTime < pairThreshold) {
+            return;
+        }
+        long[] times = new long[4];
+        for (int i = 0; i < stages.size(); i++) {
+            switch (stages.get(i).getName()) {
+            case NameScoringStage.NAME:
+                times[0] += stageTimes[i];
+                break;
+            case DateScoringStage.NAME:
+                times[1] += stageTimes[i];
+                break;
+            case BioScoringStage.NAME:
+                times[2] += stageTimes[i];
+                break;
+            default:
+                times[3] += stageTimes[i];
+            }
+        }
+
+        CandidateStore store = context.getStore();
+        int candidate = context.getCandidate();
+        List<String> bioKeywords = context.getRecord().getBioKeywords();
+        int[] candidateBioKeywords = store.getBioKeywords(candidate);
+        jfr.commitPair(context.getRecord().getRecordId(), store.getDatasetId(candidate), store.getRecordId(candidate),
+                times, scoringTime, bioKeywords != null ? bioKeywords.size() : 0,
+                candidateBioKeywords != null ? candidateBioKeywords.length : 0, score.getOverallScore());
+    }
+}
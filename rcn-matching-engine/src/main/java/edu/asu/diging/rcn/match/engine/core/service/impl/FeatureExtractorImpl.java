@@ -0,0 +1,244 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import edu.asu.diging.eaccpf.model.BiogHist;
+import edu.asu.diging.eaccpf.model.CpfRelation;
+import edu.asu.diging.eaccpf.model.Date;
+import edu.asu.diging.eaccpf.model.DateRange;
+import edu.asu.diging.eaccpf.model.Description;
+import edu.asu.diging.eaccpf.model.ExistDates;
+import edu.asu.diging.eaccpf.model.NameEntry;
+import edu.asu.diging.eaccpf.model.NamePart;
+import edu.asu.diging.eaccpf.model.Record;
+import edu.asu.diging.eaccpf.model.RelationEntry;
+import edu.asu.diging.eaccpf.model.Relations;
+import edu.asu.diging.rcn.match.engine.core.service.FeatureExtractor;
+import edu.asu.diging.rcn.match.engine.core.service.INameUtility;
+import edu.asu.diging.rcn.match.engine.core.service.NameNormalizer;
+import edu.asu.diging.rcn.match.engine.core.service.PartType;
+import edu.asu.diging.rcn.match.engine.core.store.EntryFeatures;
+import edu.asu.diging.rcn.match.engine.core.store.IntList;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
+
+@Service
+public class FeatureExtractorImpl implements FeatureExtractor {
+
+    private final String RELATION_TYPE_IDENTITY = "identity";
+
+    private final int MIN_BIOGRAPHY_LENGTH = 50;
+
+    private final Pattern IDENTITY_TEXT_DATES_PATTERN = Pattern.compile("\\(([0-9]{4}) ?- ?([0-9]{2,4})?\\)");
+
+    private final Pattern YEAR_PATTERN = Pattern.compile("[0-9]{4}");
+
+    @Autowired
+    private INameUtility nameUtility;
+
+    @Autowired
+    private NameNormalizer nameNormalizer;
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * edu.asu.diging.rcn.match.engine.core.service.FeatureExtractor#extract(edu.
+     * asu.diging.eaccpf.model.Record)
+     */
+    @Override
+    public RecordFeatures extract(Record record) {
+        List<EntryFeatures> entries = new ArrayList<>();
+        if (record.getIdentity() != null && record.getIdentity().getNameEntries() != null) {
+            for (NameEntry entry : record.getIdentity().getNameEntries()) {
+                entries.add(extract(entry));
+            }
+        }
+
+        IntList yearsFrom = new IntList();
+        IntList yearsTo = new IntList();
+        // without a description we don't score dates at all
+        Description description = record.getDescription();
+        if (description != null) {
+            ExistDates dates = description.getExistDates();
+            if (dates != null) {
+                parseYearRanges(dates.getDateRanges(), yearsFrom, yearsTo);
+                parseDates(dates.getDates(), yearsFrom, yearsTo);
+            }
+            parseDatesInIdentityText(getRelationsIdentityText(record.getRelations()), yearsFrom, yearsTo);
+        }
+
+        return new RecordFeatures(record.getId(), record.getDatasetId(), entries, yearsFrom.toArray(),
+                yearsTo.toArray(), getBiography(record));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * edu.asu.diging.rcn.match.engine.core.service.FeatureExtractor#extract(edu.
+     * asu.diging.eaccpf.model.NameEntry)
+     */
+    @Override
+    public EntryFeatures extract(NameEntry entry) {
+        Map<PartType, List<String>> nameParts = new HashMap<PartType, List<String>>();
+        for (PartType type : PartType.values()) {
+            nameParts.put(type, new ArrayList<>());
+        }
+
+        EntryFeatures features = new EntryFeatures(entry.getScriptCode(), nameParts);
+        if (entry.getParts() != null) {
+            for (NamePart part : entry.getParts()) {
+                PartType type = getPartType(part);
+                // parts are compared and searched for in their normalized form only
+                features.addPart(nameNormalizer.normalize(part.getPart()), type, part.getLocalType());
+                nameParts.get(type).addAll(nameNormalizer.getTokens(part.getPart()));
+            }
+        }
+        features.setPrimaryName(nameUtility.getPrimayName(entry));
+        features.setSecondaryName(nameUtility.getSecondaryName(entry));
+        return features;
+    }
+
+    /**
+     * Returns the text of the first biography of a record, or null if there is
+     * none or it is too short to be compared.
+     */
+    @Override
+    public String getBiography(Record record) {
+        Description desc = record.getDescription();
+        if (desc == null || desc.getBiogHists() == null || desc.getBiogHists().isEmpty()) {
+            return null;
+        }
+
+        // let's assume there is just one bio for now
+        BiogHist bio = desc.getBiogHists().get(0);
+        String bioString = null;
+        if (bio.getAbstractText() != null && bio.getAbstractText().getText() != null
+                && !bio.getAbstractText().getText().isEmpty()) {
+            bioString = bio.getAbstractText().getText();
+        } else if (bio.getPs() != null && !bio.getPs().isEmpty()) {
+            StringBuffer sb = new StringBuffer();
+            bio.getPs().forEach(p -> sb.append(p + "\n"));
+            bioString = sb.toString();
+        }
+
+        if (bioString == null || bioString.length() < MIN_BIOGRAPHY_LENGTH) {
+            return null;
+        }
+        return bioString;
+    }
+
+    private PartType getPartType(NamePart part) {
+        if (nameUtility.isFirstName(part)) {
+            return PartType.FIRST_NAME;
+        }
+        if (nameUtility.isLastName(part)) {
+            return PartType.LAST_NAME;
+        }
+        if (nameUtility.isOrgName(part)) {
+            return PartType.ORG_NAME;
+        }
+        return PartType.OTHER;
+    }
+
+    private String getRelationsIdentityText(List<Relations> relations1) {
+        String identityText1 = null;
+        if (relations1 != null) {
+            for (Relations rels : relations1) {
+                if (rels.getCpfRelations() != null) {
+                    StringBuffer sb = new StringBuffer();
+                    for (CpfRelation cpfRel : rels.getCpfRelations()) {
+                        if (cpfRel.getCpfRelationType().equals(RELATION_TYPE_IDENTITY)
+                                && cpfRel.getRelationEntries() != null) {
+                            for (RelationEntry entry : cpfRel.getRelationEntries()) {
+                                sb.append(entry.getText() + "\n");
+                            }
+                        }
+                    }
+                    identityText1 = sb.toString();
+                }
+            }
+        }
+        return identityText1;
+    }
+
+    private void parseYearRanges(List<DateRange> ranges, IntList yearsFrom, IntList yearsTo) {
+        if (ranges != null && !ranges.isEmpty()) {
+            for (DateRange range : ranges) {
+                int from = 0;
+                int to = 0;
+                Date fromDate = range.getFromDate();
+                if (fromDate != null && fromDate.getDate() != null) {
+                    from = findYear(fromDate.getDate());
+                }
+                Date toDate = range.getToDate();
+                if (toDate != null && toDate.getDate() != null) {
+                    to = findYear(toDate.getDate());
+                }
+                yearsFrom.add(from);
+                yearsTo.add(to);
+            }
+        }
+    }
+
+    private void parseDates(List<Date> dates, IntList yearsFrom, IntList yearsTo) {
+        if (dates != null && !dates.isEmpty()) {
+            for (Date date : dates) {
+                int from = 0;
+                int to = 0;
+                String fromDate = date.getNotBefore();
+                if (fromDate != null) {
+                    from = findYear(fromDate);
+                }
+                String toDate = date.getNotAfter();
+                if (toDate != null) {
+                    to = findYear(toDate);
+                }
+                yearsFrom.add(from);
+                yearsTo.add(to);
+            }
+        }
+    }
+
+    private void parseDatesInIdentityText(String text, IntList yearsFrom, IntList yearsTo) {
+        if (text != null) {
+            Matcher matcher = IDENTITY_TEXT_DATES_PATTERN.matcher(text);
+            if (matcher.find()) {
+                String startYear = matcher.group(1);
+                String endYear = matcher.group(2);
+
+                if (startYear != null && endYear != null && endYear.length() == 2) {
+                    endYear = startYear.substring(0, 2) + endYear;
+                }
+
+                if (startYear != null || endYear != null) {
+                    yearsFrom.add(startYear != null ? new Integer(startYear) : 0);
+                    yearsTo.add(endYear != null ? new Integer(endYear) : 0);
+                }
+            }
+        }
+    }
+
+    private int findYear(String yearString) {
+        Matcher matcher = YEAR_PATTERN.matcher(yearString);
+        // for now let's take the last one
+        // FIXME: is this valid?
+        String year = null;
+        while (matcher.find()) {
+            year = matcher.group();
+        }
+
+        if (year != null) {
+            return new Integer(year);
+        }
+        return Integer.MAX_VALUE;
+    }
+}
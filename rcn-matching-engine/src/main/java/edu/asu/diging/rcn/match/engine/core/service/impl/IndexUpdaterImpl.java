@@ -0,0 +1,269 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+
+import org.hibernate.search.jpa.FullTextEntityManager;
+import org.hibernate.search.jpa.Search;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.stereotype.Service;
+
+import edu.asu.diging.eaccpf.model.impl.RecordImpl;
+import edu.asu.diging.rcn.match.engine.core.service.IndexUpdater;
+
+/**
+ * Indexes imported records in the background. Updates are queued as they
+ * arrive and written to the index in batches every commit interval, so that
+ * imports don't have to wait for the index and the index does not have to be
+ * rebuilt for new records to be found.
+ */
+@Service
+@PropertySource("classpath:/config.properties")
+public class IndexUpdaterImpl implements IndexUpdater {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private JpaTransactionManager transactionManager;
+
+    @Value("${_index_commit_interval_seconds}")
+    private int commitInterval;
+
+    @Value("${_index_batch_size}")
+    private int batchSize;
+
+    @Value("${_index_max_attempts}")
+    private int maxAttempts;
+
+    private final BlockingQueue<Update> updates = new LinkedBlockingQueue<>();
+
+    private final AtomicLong indexedRecords = new AtomicLong();
+
+    private final AtomicLong failedUpdates = new AtomicLong();
+
+    private volatile long indexingSince;
+
+    private volatile OffsetDateTime lastCommit;
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "index-updater");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::commit, commitInterval, commitInterval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues records to be indexed. If no record ids are given, all records of
+     * the dataset are indexed.
+     */
+    @Override
+    public void enqueue(String datasetId, List<String> recordIds) {
+        long now = System.currentTimeMillis();
+        if (recordIds == null || recordIds.isEmpty()) {
+            updates.add(new Update(datasetId, null, now));
+            return;
+        }
+        recordIds.forEach(id -> updates.add(new Update(datasetId, id, now)));
+    }
+
+    @Override
+    public int getPendingUpdates() {
+        return updates.size();
+    }
+
+    /**
+     * Returns how many milliseconds the oldest update that is not in the index
+     * yet has been waiting.
+     */
+    @Override
+    public long getLag() {
+        long oldest = indexingSince;
+        Update next = updates.peek();
+        if (next != null && (oldest == 0 || next.getReceivedOn() < oldest)) {
+            oldest = next.getReceivedOn();
+        }
+        return oldest > 0 ? System.currentTimeMillis() - oldest : 0;
+    }
+
+    @Override
+    public long getIndexedRecords() {
+        return indexedRecords.get();
+    }
+
+    /**
+     * Returns the number of updates that were dropped because they could not
+     * be indexed.
+     */
+    @Override
+    public long getFailedUpdates() {
+        return failedUpdates.get();
+    }
+
+    @Override
+    public OffsetDateTime getLastCommit() {
+        return lastCommit;
+    }
+
+    /**
+     * Indexes the queued updates. New updates are indexed in one batch.
+     * Updates of a batch that failed are retried one by one, so that a
+     * record that can't be indexed doesn't hold back the others.
+     */
+    private void commit() {
+        List<Update> batch = new ArrayList<>();
+        updates.drainTo(batch);
+        if (batch.isEmpty()) {
+            return;
+        }
+        indexingSince = batch.get(0).getReceivedOn();
+        try {
+            List<Update> newUpdates = new ArrayList<>();
+            for (Update update : batch) {
+                if (update.getAttempts() > 0) {
+                    index(Collections.singletonList(update));
+                } else {
+                    newUpdates.add(update);
+                }
+            }
+            if (!newUpdates.isEmpty()) {
+                index(newUpdates);
+            }
+        } finally {
+            indexingSince = 0;
+        }
+    }
+
+    private void index(List<Update> batch) {
+        EntityManager em = transactionManager.getEntityManagerFactory().createEntityManager();
+        try {
+            FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(em);
+            em.getTransaction().begin();
+
+            Set<String> recordIds = new LinkedHashSet<>();
+            for (Update update : batch) {
+                if (update.getRecordId() != null) {
+                    recordIds.add(update.getRecordId());
+                } else {
+                    recordIds.addAll(em
+                            .createQuery("SELECT r.id FROM RecordImpl r WHERE r.datasetId = :datasetId", String.class)
+                            .setParameter("datasetId", update.getDatasetId()).getResultList());
+                }
+            }
+
+            List<String> ids = new ArrayList<>(recordIds);
+            for (int start = 0; start < ids.size(); start += batchSize) {
+                List<String> chunk = ids.subList(start, Math.min(start + batchSize, ids.size()));
+                List<RecordImpl> records = em
+                        .createQuery("SELECT r FROM RecordImpl r WHERE r.id IN :ids", RecordImpl.class)
+                        .setParameter("ids", chunk).getResultList();
+                Set<String> found = new HashSet<>();
+                for (RecordImpl record : records) {
+                    fullTextEntityManager.index(record);
+                    found.add(record.getId());
+                }
+                // records that are gone were deleted and are removed from the index
+                for (String id : chunk) {
+                    if (!found.contains(id)) {
+                        fullTextEntityManager.purge(RecordImpl.class, id);
+                    }
+                }
+                fullTextEntityManager.flushToIndexes();
+                fullTextEntityManager.clear();
+            }
+
+            em.getTransaction().commit();
+            indexedRecords.addAndGet(ids.size());
+            lastCommit = OffsetDateTime.now();
+            logger.info("Indexed " + ids.size() + " records.");
+        } catch (RuntimeException e) {
+            logger.error("Could not index " + batch.size() + " updates, will try again.", e);
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            for (Update update : batch) {
+                if (update.getAttempts() + 1 < maxAttempts) {
+                    updates.add(update.retry());
+                } else {
+                    failedUpdates.incrementAndGet();
+                    logger.error("Giving up on indexing " + (update.getRecordId() != null
+                            ? "record " + update.getRecordId() : "all records")
+                            + " of dataset " + update.getDatasetId() + " after " + maxAttempts + " attempts.");
+                }
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    private static class Update {
+
+        private final String datasetId;
+        private final String recordId;
+        private final long receivedOn;
+        private final int attempts;
+
+        public Update(String datasetId, String recordId, long receivedOn) {
+            this(datasetId, recordId, receivedOn, 0);
+        }
+
+        private Update(String datasetId, String recordId, long receivedOn, int attempts) {
+            this.datasetId = datasetId;
+            this.recordId = recordId;
+            this.receivedOn = receivedOn;
+            this.attempts = attempts;
+        }
+
+        /**
+         * Returns this update after one more failed attempt.
+         */
+        public Update retry() {
+            return new Update(datasetId, recordId, receivedOn, attempts + 1);
+        }
+
+        public String getDatasetId() {
+            return datasetId;
+        }
+
+        public String getRecordId() {
+            return recordId;
+        }
+
+        public long getReceivedOn() {
+            return receivedOn;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.util.List;
+
+import edu.asu.diging.rcn.match.engine.core.service.AdmissionDecision;
+
+/**
+ * Estimated cost of a match job and what admission control decided based on
+ * it. All numbers are rough upper estimates computed from a sample of the
+ * records of each dataset and the term statistics of the search index.
+ */
+public class JobEstimate {
+
+    private final String baseDataset;
+    private final List<String> matchDatasets;
+
+    private long baseRecords;
+    private long matchRecords;
+    private int sampledRecords;
+    private float baseBioShare;
+    private float matchBioShare;
+    private float candidatesPerRecord;
+    private long candidatePairs;
+    private long scoredPairs;
+    private long nlpCalls;
+    private long resultRows;
+    private long storeBytes;
+    private long peakMemoryBytes;
+    private AdmissionDecision decision = AdmissionDecision.ADMIT;
+    private String reason;
+
+    public JobEstimate(String baseDataset, List<String> matchDatasets) {
+        this.baseDataset = baseDataset;
+        this.matchDatasets = matchDatasets;
+    }
+
+    public String getBaseDataset() {
+        return baseDataset;
+    }
+
+    public List<String> getMatchDatasets() {
+        return matchDatasets;
+    }
+
+    public long getBaseRecords() {
+        return baseRecords;
+    }
+
+    public void setBaseRecords(long baseRecords) {
+        this.baseRecords = baseRecords;
+    }
+
+    public long getMatchRecords() {
+        return matchRecords;
+    }
+
+    public void setMatchRecords(long matchRecords) {
+        this.matchRecords = matchRecords;
+    }
+
+    public int getSampledRecords() {
+        return sampledRecords;
+    }
+
+    public void setSampledRecords(int sampledRecords) {
+        this.sampledRecords = sampledRecords;
+    }
+
+    /**
+     * Returns the share of base records with a biography.
+     */
+    public float getBaseBioShare() {
+        return baseBioShare;
+    }
+
+    public void setBaseBioShare(float baseBioShare) {
+        this.baseBioShare = baseBioShare;
+    }
+
+    /**
+     * Returns the share of compare records with a biography.
+     */
+    public float getMatchBioShare() {
+        return matchBioShare;
+    }
+
+    public void setMatchBioShare(float matchBioShare) {
+        this.matchBioShare = matchBioShare;
+    }
+
+    /**
+     * Returns the number of candidate name entry pairs retrieval is expected
+     * to find per base record.
+     */
+    public float getCandidatesPerRecord() {
+        return candidatesPerRecord;
+    }
+
+    public void setCandidatesPerRecord(float candidatesPerRecord) {
+        this.candidatesPerRecord = candidatesPerRecord;
+    }
+
+    public long getCandidatePairs() {
+        return candidatePairs;
+    }
+
+    public void setCandidatePairs(long candidatePairs) {
+        this.candidatePairs = candidatePairs;
+    }
+
+    /**
+     * Returns the number of candidate pairs left for scoring after the top K
+     * per dataset have been selected.
+     */
+    public long getScoredPairs() {
+        return scoredPairs;
+    }
+
+    public void setScoredPairs(long scoredPairs) {
+        this.scoredPairs = scoredPairs;
+    }
+
+    public long getNlpCalls() {
+        return nlpCalls;
+    }
+
+    public void setNlpCalls(long nlpCalls) {
+        this.nlpCalls = nlpCalls;
+    }
+
+    public long getResultRows() {
+        return resultRows;
+    }
+
+    public void setResultRows(long resultRows) {
+        this.resultRows = resultRows;
+    }
+
+    public long getStoreBytes() {
+        return storeBytes;
+    }
+
+    public void setStoreBytes(long storeBytes) {
+        this.storeBytes = storeBytes;
+    }
+
+    /**
+     * Returns the heap the job is expected to need while it runs: its
+     * candidate store, the indexes built on it and the records in its
+     * pipeline.
+     */
+    public long getPeakMemoryBytes() {
+        return peakMemoryBytes;
+    }
+
+    public void setPeakMemoryBytes(long peakMemoryBytes) {
+        this.peakMemoryBytes = peakMemoryBytes;
+    }
+
+    public AdmissionDecision getDecision() {
+        return decision;
+    }
+
+    public void setDecision(AdmissionDecision decision) {
+        this.decision = decision;
+    }
+
+    /**
+     * Returns why the job is downscaled or rejected, or null if it is
+     * admitted as it is.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
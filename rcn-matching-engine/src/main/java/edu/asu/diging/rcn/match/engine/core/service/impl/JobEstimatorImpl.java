@@ -0,0 +1,376 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.hibernate.search.indexes.IndexReaderAccessor;
+import org.hibernate.search.jpa.FullTextEntityManager;
+import org.hibernate.search.jpa.Search;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.asu.diging.eaccpf.model.impl.RecordImpl;
+import edu.asu.diging.rcn.match.engine.core.data.DatasetRecordRepository;
+import edu.asu.diging.rcn.match.engine.core.search.RecordNamesBridge;
+import edu.asu.diging.rcn.match.engine.core.search.SearchMappingFactory;
+import edu.asu.diging.rcn.match.engine.core.service.AdmissionDecision;
+import edu.asu.diging.rcn.match.engine.core.service.FeatureExtractor;
+import edu.asu.diging.rcn.match.engine.core.service.JobEstimator;
+import edu.asu.diging.rcn.match.engine.core.service.PartType;
+import edu.asu.diging.rcn.match.engine.core.store.EntryFeatures;
+import edu.asu.diging.rcn.match.engine.core.store.MinHashIndex;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
+
+/**
+ * Estimates the cost of a job before it is run and decides whether it can be
+ * run at all. Record counts come from the database; a sample of the records of
+ * every dataset gives the number of name entries, tokens, year ranges and
+ * biographies per record; and the document frequencies of the sampled base
+ * names in the search index give the number of candidates a record is
+ * expected to have.
+ *
+ * Jobs that are expected to need more heap than admission control allows, or
+ * to score more candidate pairs, are rejected. Jobs that are expected to call
+ * the NLP scorer too often run without biography scoring.
+ */
+@Service
+@PropertySource("classpath:/config.properties")
+public class JobEstimatorImpl implements JobEstimator {
+
+    // rough heap use of the parts of a candidate store and of a candidate, in bytes
+    private static final int RECORD_BYTES = 96;
+    private static final int ENTRY_BYTES = 32;
+    private static final int TOKEN_BYTES = 8;
+    private static final int YEAR_RANGE_BYTES = 8;
+    private static final int CANDIDATE_BYTES = 64;
+    private static final int NGRAM_BYTES_PER_TOKEN = 24;
+    private static final int BIO_SIGNATURE_BYTES = MinHashIndex.HASHES * 4;
+    private static final int BIO_BAND_BYTES = MinHashIndex.BANDS * 12;
+
+    // retrieval, scoring and persistence each have a queue of pipeline records
+    private static final int PIPELINE_QUEUES = 3;
+
+    @Autowired
+    private DatasetRecordRepository datasetRecordRepo;
+
+    @Autowired
+    private FeatureExtractor featureExtractor;
+
+    @Autowired
+    private JpaTransactionManager transactionManager;
+
+    @Value("${_estimate_sample_size}")
+    private int sampleSize;
+
+    @Value("${_estimate_fuzzy_expansion}")
+    private float fuzzyExpansion;
+
+    @Value("${_estimate_match_share}")
+    private float matchShare;
+
+    @Value("${_candidate_top_k}")
+    private int candidateTopK;
+
+    @Value("${_candidate_retrieval}")
+    private String retrieval;
+
+    @Value("${_bio_lsh_enabled}")
+    private boolean bioRetrievalEnabled;
+
+    @Value("${_pipeline_queue_size}")
+    private int pipelineQueueSize;
+
+    @Value("${_admission_enabled}")
+    private boolean admissionEnabled;
+
+    @Value("${_admission_max_heap_share}")
+    private float maxHeapShare;
+
+    @Value("${_admission_max_scored_pairs}")
+    private long maxScoredPairs;
+
+    @Value("${_admission_max_nlp_calls}")
+    private long maxNlpCalls;
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * edu.asu.diging.rcn.match.engine.core.service.JobEstimator#estimate(java.
+     * lang.String, java.util.List)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public JobEstimate estimate(String baseDataset, List<String> matchDatasets) {
+        return estimate(baseDataset, matchDatasets, 0);
+    }
+
+    /**
+     * Estimates the cost of a job that only matches some of the base records,
+     * such as a preview.
+     *
+     * @param maxBaseRecords
+     *            max number of base records that are matched, 0 for all
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public JobEstimate estimate(String baseDataset, List<String> matchDatasets, long maxBaseRecords) {
+        JobEstimate estimate = new JobEstimate(baseDataset, matchDatasets);
+        long baseRecords = datasetRecordRepo.countByDataset(baseDataset);
+        estimate.setBaseRecords(maxBaseRecords > 0 ? Math.min(baseRecords, maxBaseRecords) : baseRecords);
+        Sample base = sample(baseDataset);
+
+        List<String> distinctDatasets = new ArrayList<>();
+        Sample match = new Sample();
+        long matchRecords = 0;
+        for (String datasetId : matchDatasets) {
+            if (distinctDatasets.contains(datasetId)) {
+                continue;
+            }
+            distinctDatasets.add(datasetId);
+            matchRecords += datasetRecordRepo.countByDataset(datasetId);
+            match.add(sample(datasetId));
+        }
+        estimate.setMatchRecords(matchRecords);
+        estimate.setSampledRecords(base.records + match.records);
+        estimate.setBaseBioShare(base.getBioShare());
+        estimate.setMatchBioShare(match.getBioShare());
+
+        // name entry pairs found per base record: every hit of a name part is paired with
+        // the entries of the hit record
+        float recordHits = Math.min(getHitsPerRecord(base, matchRecords), matchRecords);
+        float candidatesPerRecord = recordHits * Math.max(match.getPerRecord(match.entries), 1);
+        float scoredPerRecord = candidatesPerRecord;
+        if (candidateTopK > 0) {
+            scoredPerRecord = Math.min(scoredPerRecord, (long) candidateTopK * distinctDatasets.size());
+        }
+        estimate.setCandidatesPerRecord(candidatesPerRecord);
+        estimate.setCandidatePairs((long) (candidatesPerRecord * estimate.getBaseRecords()));
+        estimate.setScoredPairs((long) (scoredPerRecord * estimate.getBaseRecords()));
+        // biographies are only compared if both records have one
+        long nlpCalls = (long) (estimate.getScoredPairs() * base.getBioShare() * match.getBioShare());
+        if (bioRetrievalEnabled || BioCandidateRetriever.NAME.equals(retrieval.trim())) {
+            // the biography index needs the keywords of every compare record with a biography, unless
+            // the index of a cached store can be reused
+            nlpCalls += (long) (matchRecords * match.getBioShare());
+        }
+        estimate.setNlpCalls(nlpCalls);
+        estimate.setResultRows((long) (estimate.getScoredPairs() * matchShare));
+
+        long storeBytes = (long) (matchRecords * match.getBytesPerRecord());
+        long indexBytes = 0;
+        if (NgramCandidateRetriever.NAME.equals(retrieval.trim())) {
+            indexBytes += (long) (matchRecords * match.getPerRecord(match.tokens) * NGRAM_BYTES_PER_TOKEN);
+        }
+        if (bioRetrievalEnabled || BioCandidateRetriever.NAME.equals(retrieval.trim())) {
+            indexBytes += matchRecords * BIO_SIGNATURE_BYTES
+                    + (long) (matchRecords * match.getBioShare() * BIO_BAND_BYTES);
+        }
+        long pipelineBytes = (long) pipelineQueueSize * PIPELINE_QUEUES
+                * (long) (base.getBytesPerRecord() + scoredPerRecord * CANDIDATE_BYTES);
+        estimate.setStoreBytes(storeBytes);
+        estimate.setPeakMemoryBytes(storeBytes + indexBytes + pipelineBytes);
+
+        decide(estimate);
+        return estimate;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * edu.asu.diging.rcn.match.engine.core.service.JobEstimator#fits(edu.asu.
+     * diging.rcn.match.engine.core.service.impl.MatchJob, java.util.List)
+     */
+    @Override
+    public boolean fits(MatchJob job, List<MatchJob> running) {
+        // a job that fits on its own always gets to run eventually
+        if (!admissionEnabled || job.getEstimate() == null || running.isEmpty()) {
+            return true;
+        }
+        long memory = job.getEstimate().getPeakMemoryBytes();
+        for (MatchJob other : running) {
+            if (other.getEstimate() != null) {
+                memory += other.getEstimate().getPeakMemoryBytes();
+            }
+        }
+        return memory <= getMemoryLimit();
+    }
+
+    private void decide(JobEstimate estimate) {
+        if (!admissionEnabled) {
+            return;
+        }
+        long memoryLimit = getMemoryLimit();
+        if (estimate.getPeakMemoryBytes() > memoryLimit) {
+            estimate.setDecision(AdmissionDecision.REJECT);
+            estimate.setReason("Job needs about " + toMegabytes(estimate.getPeakMemoryBytes())
+                    + " MB of heap, only " + toMegabytes(memoryLimit) + " MB are available for jobs.");
+        } else if (maxScoredPairs > 0 && estimate.getScoredPairs() > maxScoredPairs) {
+            estimate.setDecision(AdmissionDecision.REJECT);
+            estimate.setReason("Job would score about " + estimate.getScoredPairs() + " candidate pairs, at most "
+                    + maxScoredPairs + " are allowed.");
+        } else if (maxNlpCalls > 0 && estimate.getNlpCalls() > maxNlpCalls) {
+            estimate.setDecision(AdmissionDecision.DOWNSCALE);
+            estimate.setReason("Job would compare about " + estimate.getNlpCalls() + " biographies, at most "
+                    + maxNlpCalls + " are allowed; biographies are not scored.");
+        }
+    }
+
+    private long getMemoryLimit() {
+        return (long) (Runtime.getRuntime().maxMemory() * maxHeapShare);
+    }
+
+    private long toMegabytes(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+
+    /**
+     * Collects the features of a random sample of the records of a dataset.
+     * The first records of a dataset would be biased towards the records
+     * imported first.
+     */
+    private Sample sample(String datasetId) {
+        Sample sample = new Sample();
+        if (sampleSize <= 0) {
+            return sample;
+        }
+        List<String> ids = new ArrayList<>(datasetRecordRepo.findIdsByDataset(datasetId));
+        Collections.shuffle(ids);
+        if (ids.isEmpty()) {
+            return sample;
+        }
+        for (RecordImpl record : datasetRecordRepo.findByIds(ids.subList(0, Math.min(sampleSize, ids.size())))) {
+            sample.add(featureExtractor.extract(record));
+        }
+        return sample;
+    }
+
+    /**
+     * Returns the number of records the searches for the name parts of a
+     * sampled base record are expected to find. Each part is expected to hit
+     * the records containing one of its terms, times the number of similar
+     * terms a fuzzy query matches as well. Hits in datasets other than the
+     * compare datasets are filtered out, so only their share of the index
+     * counts.
+     */
+    private float getHitsPerRecord(Sample base, long matchRecords) {
+        if (base.records == 0) {
+            return 0;
+        }
+        EntityManager em = transactionManager.getEntityManagerFactory().createEntityManager();
+        try {
+            FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(em);
+            Analyzer analyzer = fullTextEntityManager.getSearchFactory()
+                    .getAnalyzer(SearchMappingFactory.NAME_ANALYZER);
+            IndexReaderAccessor accessor = fullTextEntityManager.getSearchFactory().getIndexReaderAccessor();
+            IndexReader reader = accessor.open(RecordImpl.class);
+            try {
+                if (reader.numDocs() == 0) {
+                    return 0;
+                }
+                long hits = 0;
+                for (List<String> parts : base.searchedParts) {
+                    for (String part : parts) {
+                        for (String term : analyze(analyzer, part)) {
+                            hits += reader.docFreq(new Term(RecordNamesBridge.NAMES_FIELD, term));
+                        }
+                    }
+                }
+                float indexedShare = Math.min((float) matchRecords / reader.numDocs(), 1);
+                return hits * fuzzyExpansion * indexedShare / base.records;
+            } finally {
+                accessor.close(reader);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read term statistics.", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    private List<String> analyze(Analyzer analyzer, String text) throws IOException {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(RecordNamesBridge.NAMES_FIELD, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        }
+        return terms;
+    }
+
+    private static class Sample {
+
+        private int records;
+        private long entries;
+        private long tokens;
+        private long yearRanges;
+        private long idChars;
+        private long biographies;
+        private final List<List<String>> searchedParts = new ArrayList<>();
+
+        void add(RecordFeatures features) {
+            records++;
+            entries += features.getEntries().size();
+            yearRanges += features.getYearsFrom().length;
+            idChars += features.getRecordId() != null ? features.getRecordId().length() : 0;
+            if (features.getBiography() != null) {
+                biographies++;
+            }
+            List<String> parts = new ArrayList<>();
+            for (EntryFeatures entry : features.getEntries()) {
+                for (List<String> partTokens : entry.getNameParts().values()) {
+                    tokens += partTokens.size();
+                }
+                for (EntryFeatures.Part part : entry.getParts()) {
+                    // first names are not searched for
+                    if (part.getType() != PartType.FIRST_NAME && part.getValue() != null
+                            && !part.getValue().isEmpty()) {
+                        parts.add(part.getValue());
+                    }
+                }
+            }
+            searchedParts.add(parts);
+        }
+
+        void add(Sample other) {
+            records += other.records;
+            entries += other.entries;
+            tokens += other.tokens;
+            yearRanges += other.yearRanges;
+            idChars += other.idChars;
+            biographies += other.biographies;
+            searchedParts.addAll(other.searchedParts);
+        }
+
+        float getPerRecord(long count) {
+            return records > 0 ? (float) count / records : 0;
+        }
+
+        float getBioShare() {
+            return getPerRecord(biographies);
+        }
+
+        float getBytesPerRecord() {
+            return RECORD_BYTES + 2 * getPerRecord(idChars) + ENTRY_BYTES * getPerRecord(entries)
+                    + TOKEN_BYTES * getPerRecord(tokens) + YEAR_RANGE_BYTES * getPerRecord(yearRanges);
+        }
+    }
+}
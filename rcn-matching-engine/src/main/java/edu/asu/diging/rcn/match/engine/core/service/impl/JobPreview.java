@@ -0,0 +1,145 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.asu.diging.rcn.match.engine.core.service.MatchResultSink;
+
+/**
+ * Results of a preview job. A preview scores a random sample of the base
+ * records just like a full job, but keeps its matches in memory instead of
+ * storing them: it counts the sampled records with at least one match and
+ * keeps the best match of the first few of them as examples. The score
+ * distribution is kept by the job's thresholds, as for every job.
+ */
+public class JobPreview implements MatchResultSink {
+
+    private final int sampleSize;
+    private final int maxExamples;
+    private final float z;
+
+    private volatile long population;
+    private final AtomicLong scoredRecords = new AtomicLong();
+    private final AtomicLong matchingRecords = new AtomicLong();
+    private final AtomicLong matches = new AtomicLong();
+    private final List<MatchResult> examples = new ArrayList<>();
+
+    /**
+     * @param z
+     *            z-score of the confidence level the margin of error is
+     *            computed for
+     */
+    public JobPreview(int sampleSize, int maxExamples, float z) {
+        this.sampleSize = sampleSize;
+        this.maxExamples = maxExamples;
+        this.z = z;
+    }
+
+    /**
+     * Returns the number of records needed to estimate a share within the
+     * given margin of error, assuming the worst case share of 0.5 and
+     * correcting for the size of the population.
+     */
+    public static int getSampleSize(long population, float z, float marginOfError) {
+        double size = z * z * 0.25 / (marginOfError * marginOfError);
+        if (population > 0) {
+            size = size / (1 + (size - 1) / population);
+        }
+        return (int) Math.ceil(size);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * edu.asu.diging.rcn.match.engine.core.service.MatchResultSink#store(edu.asu.
+     * diging.rcn.match.engine.core.service.impl.MatchJob, java.util.List)
+     */
+    @Override
+    public void store(MatchJob job, List<MatchResult> results) {
+        scoredRecords.incrementAndGet();
+        if (results.isEmpty()) {
+            return;
+        }
+        matchingRecords.incrementAndGet();
+        matches.addAndGet(results.size());
+
+        MatchResult best = results.get(0);
+        for (MatchResult result : results) {
+            if (result.getMatch().getOverallScore() > best.getMatch().getOverallScore()) {
+                best = result;
+            }
+        }
+        synchronized (examples) {
+            if (examples.size() < maxExamples) {
+                examples.add(best);
+            }
+        }
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * Returns the number of base records the sample was drawn from.
+     */
+    public long getPopulation() {
+        return population;
+    }
+
+    public void setPopulation(long population) {
+        this.population = population;
+    }
+
+    public long getScoredRecords() {
+        return scoredRecords.get();
+    }
+
+    public long getMatchingRecords() {
+        return matchingRecords.get();
+    }
+
+    public long getMatches() {
+        return matches.get();
+    }
+
+    /**
+     * Returns the share of sampled records with at least one match.
+     */
+    public float getMatchRate() {
+        long scored = scoredRecords.get();
+        return scored > 0 ? (float) matchingRecords.get() / scored : 0;
+    }
+
+    /**
+     * Returns the margin of error of the match rate at the preview's
+     * confidence level.
+     */
+    public float getMarginOfError() {
+        long scored = scoredRecords.get();
+        if (scored == 0) {
+            return 1;
+        }
+        float rate = getMatchRate();
+        double error = z * Math.sqrt(rate * (1 - rate) / scored);
+        if (population > 1) {
+            error *= Math.sqrt((double) (population - scored) / (population - 1));
+        }
+        return (float) error;
+    }
+
+    /**
+     * Returns the estimated number of base records with at least one match.
+     */
+    public long getEstimatedMatchingRecords() {
+        return Math.round(getMatchRate() * population);
+    }
+
+    public List<MatchResult> getExamples() {
+        synchronized (examples) {
+            return new ArrayList<>(examples);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import edu.asu.diging.rcn.match.engine.core.exception.DatasetDoesNotExistException;
+import edu.asu.diging.rcn.match.engine.core.service.AuthorityMatcher;
+import edu.asu.diging.rcn.match.engine.core.service.JobEstimator;
+import edu.asu.diging.rcn.match.engine.core.service.JobScheduler;
+import edu.asu.diging.rcn.match.engine.core.service.JobStatus;
+import edu.asu.diging.rcn.match.engine.core.service.ResultExporter;
+import edu.asu.diging.rcn.match.engine.core.service.impl.CancellationToken.StopReason;
+
+/**
+ * Runs match jobs on the match job executor. Jobs are not started in the order
+ * they are submitted:
+ * <ul>
+ * <li>more urgent priorities are started first,</li>
+ * <li>within a priority, jobs of initiators with the fewest running jobs are
+ * started first, so that one initiator can't take all workers,</li>
+ * <li>otherwise jobs are started in the order they were submitted.</li>
+ * </ul>
+ * A job is only started if its estimated heap fits next to the jobs already
+ * running; otherwise it waits until enough of them have finished. If all
+ * workers are busy, a running job that is less urgent than the next
+ * queued job is asked to give up its worker at the end of its current
+ * partition of base records. It is queued again and later resumes with the
+ * next partition.
+ */
+@Service
+public class JobSchedulerImpl implements JobScheduler {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private AuthorityMatcher matcher;
+
+    @Autowired
+    private ThreadPoolTaskExecutor matchJobExecutor;
+
+    @Autowired
+    private ResultExporter resultExporter;
+
+    @Autowired
+    private JobEstimator estimator;
+
+    private final List<MatchJob> queued = new ArrayList<>();
+
+    private final List<MatchJob> running = new ArrayList<>();
+
+    @Override
+    public void schedule(MatchJob job) {
+        synchronized (this) {
+            queued.add(job);
+        }
+        dispatch();
+    }
+
+    @Override
+    public synchronized boolean unschedule(MatchJob job) {
+        return queued.remove(job);
+    }
+
+    @Override
+    public synchronized List<MatchJob> getQueuedJobs() {
+        List<MatchJob> jobs = new ArrayList<>(queued);
+        jobs.sort(getOrder());
+        return jobs;
+    }
+
+    /**
+     * Starts queued jobs while there are free workers and enough heap. If
+     * there are none left, makes room for the next queued job if it should
+     * not have to wait.
+     */
+    private synchronized void dispatch() {
+        while (!queued.isEmpty() && running.size() < matchJobExecutor.getMaxPoolSize()) {
+            MatchJob next = Collections.min(queued, getOrder());
+            // later jobs don't overtake a job that is waiting for heap, it would never get to run
+            if (!estimator.fits(next, running)) {
+                break;
+            }
+            queued.remove(next);
+            running.add(next);
+            next.setFuture(matchJobExecutor.submit(() -> run(next)));
+        }
+        if (!queued.isEmpty()) {
+            preempt(Collections.min(queued, getOrder()));
+        }
+    }
+
+    private Comparator<MatchJob> getOrder() {
+        Map<String, Integer> runningJobs = countRunningJobs();
+        return Comparator.comparing(MatchJob::getPriority)
+                .thenComparingInt(job -> runningJobs.getOrDefault(getInitiator(job), 0))
+                .thenComparing(MatchJob::getSubmittedOn);
+    }
+
+    /**
+     * Asks a running job to give up its worker for the waiting job. Only less
+     * urgent jobs are preempted, or jobs of the same priority if their
+     * initiator has more than one job running and the waiting job's initiator
+     * has none. Only one job is preempted at a time.
+     */
+    private void preempt(MatchJob waiting) {
+        Map<String, Integer> runningJobs = countRunningJobs();
+        boolean waitingHasWorker = runningJobs.containsKey(getInitiator(waiting));
+
+        MatchJob victim = null;
+        for (MatchJob job : running) {
+            if (job.isPreemptionRequested()) {
+                return;
+            }
+            if (job.getStatus() != JobStatus.RUNNING) {
+                continue;
+            }
+            int comparison = job.getPriority().compareTo(waiting.getPriority());
+            boolean unfair = comparison == 0 && !waitingHasWorker && runningJobs.get(getInitiator(job)) > 1;
+            if (comparison <= 0 && !unfair) {
+                continue;
+            }
+            // the least urgent, most recently started job gives up its worker
+            if (victim == null || job.getPriority().compareTo(victim.getPriority()) > 0
+                    || (job.getPriority() == victim.getPriority()
+                            && job.getStartedOn().isAfter(victim.getStartedOn()))) {
+                victim = job;
+            }
+        }
+
+        if (victim != null) {
+            logger.info("Preempting job " + victim.getJobId() + " for job " + waiting.getJobId() + ".");
+            victim.requestPreemption();
+        }
+    }
+
+    private Map<String, Integer> countRunningJobs() {
+        Map<String, Integer> runningJobs = new HashMap<>();
+        running.forEach(job -> runningJobs.merge(getInitiator(job), 1, Integer::sum));
+        return runningJobs;
+    }
+
+    private String getInitiator(MatchJob job) {
+        return job.getInitiator() != null ? job.getInitiator() : "";
+    }
+
+    private void run(MatchJob job) {
+        try {
+            execute(job);
+        } finally {
+            synchronized (this) {
+                running.remove(job);
+            }
+            dispatch();
+        }
+    }
+
+    private void execute(MatchJob job) {
+        synchronized (job) {
+            if (job.getStatus() != JobStatus.QUEUED) {
+                return;
+            }
+            job.setStatus(JobStatus.RUNNING);
+            // resumed jobs keep their start time and time budget
+            if (job.getStartedOn() == null) {
+                job.setStartedOn(OffsetDateTime.now());
+                job.getToken().start();
+            }
+        }
+
+        JobStatus status = JobStatus.DONE;
+        try {
+            matcher.process(job);
+        } catch (DatasetDoesNotExistException e) {
+            logger.error("Could not match datasets.", e);
+            job.setErrorMessage(e.getMessage());
+            status = JobStatus.FAILED;
+        } catch (RuntimeException e) {
+            logger.error("Job " + job.getJobId() + " failed.", e);
+            job.setErrorMessage(e.getMessage());
+            status = JobStatus.FAILED;
+        }
+
+        StopReason reason = job.getToken().getReason();
+        synchronized (job) {
+            if (status == JobStatus.DONE && reason == null && job.isPreempted()) {
+                job.setPreempted(false);
+                job.setStatus(JobStatus.QUEUED);
+                synchronized (this) {
+                    queued.add(job);
+                }
+                return;
+            }
+            if (status == JobStatus.DONE && reason == StopReason.CANCELLED) {
+                status = JobStatus.CANCELLED;
+            } else if (status == JobStatus.DONE && reason != null) {
+                status = JobStatus.PARTIAL;
+            }
+            job.setStatus(status);
+            job.setFinishedOn(OffsetDateTime.now());
+        }
+        // previews are not announced, nobody waits for their results on the topic
+        if (job.getPreview() == null) {
+            resultExporter.finish(job);
+        }
+    }
+}
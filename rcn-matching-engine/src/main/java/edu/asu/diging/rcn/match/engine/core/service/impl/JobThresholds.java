@@ -0,0 +1,145 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import edu.asu.diging.rcn.match.engine.core.store.ScoreHistogram;
+
+/**
+ * Score histograms and thresholds of a single job. The histograms are kept
+ * for every job. If a target number of matches per base record is set, the
+ * thresholds are adapted to the scores seen so far: the match threshold is
+ * raised until the expected number of stored matches fits the target, name
+ * scores that can't reach the match threshold anymore skip biography
+ * scoring, and the number of candidates scored per record is limited to what
+ * is needed to find the target number of matches. Thresholds are only ever
+ * raised above the configured ones, never lowered.
+ */
+public class JobThresholds {
+
+    private static final int BIN_COUNT = 200;
+    private static final float MAX_SCORE = 2f;
+
+    /**
+     * Dates and biography add at most this much to the name score.
+     */
+    private static final float MAX_BONUS = 0.25f;
+
+    private static final int ADAPT_INTERVAL = 100;
+    private static final int MIN_TOP_K = 10;
+    private static final int TOP_K_FACTOR = 2;
+
+    private final float baseMatchThreshold;
+    private final float baseBioNameThreshold;
+    private final int baseCandidateTopK;
+    private final float targetMatchesPerRecord;
+    private final long minRecords;
+
+    private final ScoreHistogram nameScores = new ScoreHistogram(BIN_COUNT, MAX_SCORE);
+    private final ScoreHistogram dateScores = new ScoreHistogram(BIN_COUNT, MAX_SCORE);
+    private final ScoreHistogram bioScores = new ScoreHistogram(BIN_COUNT, MAX_SCORE);
+    private final ScoreHistogram overallScores = new ScoreHistogram(BIN_COUNT, MAX_SCORE);
+
+    private volatile float matchThreshold;
+    private volatile float bioNameThreshold;
+    private volatile int candidateTopK;
+    private long lastAdaptedAt;
+
+    /**
+     * @param targetMatchesPerRecord
+     *            number of matches per base record the thresholds are adapted
+     *            to, 0 to keep the configured thresholds
+     * @param minRecords
+     *            number of base records that have to be processed before the
+     *            thresholds are adapted
+     */
+    public JobThresholds(float matchThreshold, float bioNameThreshold, int candidateTopK,
+            float targetMatchesPerRecord, long minRecords) {
+        this.baseMatchThreshold = matchThreshold;
+        this.baseBioNameThreshold = bioNameThreshold;
+        this.baseCandidateTopK = candidateTopK;
+        this.targetMatchesPerRecord = targetMatchesPerRecord;
+        this.minRecords = minRecords;
+        this.matchThreshold = matchThreshold;
+        this.bioNameThreshold = bioNameThreshold;
+        this.candidateTopK = candidateTopK;
+    }
+
+    /**
+     * Counts the scores of a scored candidate.
+     */
+    public void add(MatchScore score) {
+        nameScores.add(score.getNameScore());
+        dateScores.add(score.getDateScore());
+        bioScores.add(score.getBioScore());
+        overallScores.add(score.getOverallScore());
+    }
+
+    /**
+     * Adapts the thresholds to the scores counted so far, if adapting is
+     * enabled. Only does any work every few records.
+     */
+    public synchronized void adapt(long processedRecords, long scoredCandidates) {
+        if (targetMatchesPerRecord <= 0 || processedRecords < minRecords
+                || processedRecords - lastAdaptedAt < ADAPT_INTERVAL) {
+            return;
+        }
+        lastAdaptedAt = processedRecords;
+
+        long maxMatches = (long) (processedRecords * targetMatchesPerRecord);
+        float threshold = Math.max(baseMatchThreshold, overallScores.getScoreWithCountAbove(maxMatches));
+        matchThreshold = threshold;
+        // overall scores are at most the name score plus the date and bio bonus
+        bioNameThreshold = Math.max(baseBioNameThreshold, threshold - MAX_BONUS);
+
+        long matches = overallScores.countAbove(threshold);
+        if (matches > 0) {
+            long candidatesPerMatch = (scoredCandidates + matches - 1) / matches;
+            long topK = (long) Math.ceil(targetMatchesPerRecord * candidatesPerMatch * TOP_K_FACTOR);
+            topK = Math.max(topK, MIN_TOP_K);
+            if (baseCandidateTopK > 0) {
+                topK = Math.min(topK, baseCandidateTopK);
+            }
+            candidateTopK = (int) Math.min(topK, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Candidates need an overall score above this threshold to be stored.
+     */
+    public float getMatchThreshold() {
+        return matchThreshold;
+    }
+
+    /**
+     * Biographies are only scored if the name score is above this threshold.
+     */
+    public float getBioNameThreshold() {
+        return bioNameThreshold;
+    }
+
+    /**
+     * Max number of candidates scored per base record and compare dataset, 0
+     * for no limit.
+     */
+    public int getCandidateTopK() {
+        return candidateTopK;
+    }
+
+    public float getTargetMatchesPerRecord() {
+        return targetMatchesPerRecord;
+    }
+
+    public ScoreHistogram getNameScores() {
+        return nameScores;
+    }
+
+    public ScoreHistogram getDateScores() {
+        return dateScores;
+    }
+
+    public ScoreHistogram getBioScores() {
+        return bioScores;
+    }
+
+    public ScoreHistogram getOverallScores() {
+        return overallScores;
+    }
+}
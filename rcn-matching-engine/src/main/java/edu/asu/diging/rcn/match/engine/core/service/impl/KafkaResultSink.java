@@ -0,0 +1,178 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.annotation.Order;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.asu.diging.eaccpf.model.match.Match;
+import edu.asu.diging.rcn.match.engine.core.kafka.MasterMatchSummary;
+import edu.asu.diging.rcn.match.engine.core.kafka.MatchSummary;
+import edu.asu.diging.rcn.match.engine.core.kafka.RecordMatchesMessage;
+import edu.asu.diging.rcn.match.engine.core.service.MatchResultSink;
+
+/**
+ * Publishes the matches of every base record to the results topic once they
+ * have been stored, so that consumers don't have to wait for the whole job.
+ * Messages are keyed by base record id and sent asynchronously; the producer
+ * batches and compresses them (see the producer properties). Records without
+ * matches are not published. Publishing is disabled if no results topic is
+ * configured.
+ * 
+ * As in the database, the matches of symmetric jobs are also published for
+ * the matched records, in reverse messages keyed by matched record id.
+ */
+@Service
+@Order(2)
+@PropertySource("classpath:/config.properties")
+public class KafkaResultSink implements MatchResultSink {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Value("${_results_topic}")
+    private String resultsTopic;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * edu.asu.diging.rcn.match.engine.core.service.MatchResultSink#store(edu.asu.
+     * diging.rcn.match.engine.core.service.impl.MatchJob, java.util.List)
+     */
+    @Override
+    public void store(MatchJob job, List<MatchResult> results) {
+        if (resultsTopic == null || resultsTopic.trim().isEmpty() || results.isEmpty()) {
+            return;
+        }
+        send(createMessage(job, results));
+
+        Map<String, List<MatchResult>> reverse = new LinkedHashMap<>();
+        for (MatchResult result : results) {
+            Match match = result.getMatch();
+            if (job.isSymmetric(match.getCompareDatasetId())) {
+                reverse.computeIfAbsent(match.getCompareRecordId(), id -> new ArrayList<>()).add(result);
+            }
+        }
+        for (List<MatchResult> matchedRecordResults : reverse.values()) {
+            send(createReverseMessage(job, matchedRecordResults));
+        }
+    }
+
+    private void send(RecordMatchesMessage msg) {
+        String value;
+        try {
+            value = mapper.writeValueAsString(msg);
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize matches of record " + msg.getBaseRecordId() + ".", e);
+            return;
+        }
+        // the matches are stored already, a failed send must not fail the job
+        kafkaTemplate.send(resultsTopic.trim(), msg.getBaseRecordId(), value).addCallback(result -> {
+        }, e -> logger.error("Could not publish matches of record " + msg.getBaseRecordId() + ".", e));
+    }
+
+    /**
+     * Groups the matches of a base record by compare dataset. As for the
+     * master matches in the database, the first match with the highest score
+     * is the master.
+     */
+    private RecordMatchesMessage createMessage(MatchJob job, List<MatchResult> results) {
+        Map<String, MasterMatchSummary> masters = new LinkedHashMap<>();
+        for (MatchResult result : results) {
+            Match match = result.getMatch();
+            MasterMatchSummary master = masters.get(match.getCompareDatasetId());
+            if (master == null) {
+                master = new MasterMatchSummary();
+                master.setMatchedDatasetId(match.getCompareDatasetId());
+                master.setMatches(new ArrayList<>());
+                master.setScore(-1);
+                masters.put(match.getCompareDatasetId(), master);
+            }
+            if (master.getScore() < match.getOverallScore()) {
+                master.setMatchedRecordId(match.getCompareRecordId());
+                master.setNamePart1(result.getNamePart1());
+                master.setNamePart2(result.getNamePart2());
+                master.setScore(match.getOverallScore());
+            }
+            master.getMatches().add(toSummary(match));
+        }
+
+        Match first = results.get(0).getMatch();
+        RecordMatchesMessage msg = new RecordMatchesMessage();
+        msg.setJobId(job.getJobId());
+        msg.setInitiator(job.getInitiator());
+        msg.setBaseDatasetId(first.getBaseDatasetId());
+        msg.setBaseRecordId(first.getBaseRecordId());
+        msg.setPublishedOn(OffsetDateTime.now().toString());
+        msg.setMasterMatches(new ArrayList<>(masters.values()));
+        return msg;
+    }
+
+    /**
+     * Creates the reverse message of a matched record from its matches with
+     * one base record. Its only master match is the base record.
+     */
+    private RecordMatchesMessage createReverseMessage(MatchJob job, List<MatchResult> results) {
+        Match first = results.get(0).getMatch();
+        MasterMatchSummary master = new MasterMatchSummary();
+        master.setMatchedDatasetId(first.getBaseDatasetId());
+        master.setMatchedRecordId(first.getBaseRecordId());
+        master.setMatches(new ArrayList<>());
+        master.setScore(-1);
+        for (MatchResult result : results) {
+            Match match = result.getMatch();
+            if (master.getScore() < match.getOverallScore()) {
+                master.setNamePart1(result.getMatchedNamePart1());
+                master.setNamePart2(result.getMatchedNamePart2());
+                master.setScore(match.getOverallScore());
+            }
+            MatchSummary summary = toSummary(match);
+            summary.setCompareDatasetId(match.getBaseDatasetId());
+            summary.setCompareRecordId(match.getBaseRecordId());
+            master.getMatches().add(summary);
+        }
+
+        RecordMatchesMessage msg = new RecordMatchesMessage();
+        msg.setJobId(job.getJobId());
+        msg.setInitiator(job.getInitiator());
+        msg.setBaseDatasetId(first.getCompareDatasetId());
+        msg.setBaseRecordId(first.getCompareRecordId());
+        msg.setPublishedOn(OffsetDateTime.now().toString());
+        msg.setReverse(true);
+        List<MasterMatchSummary> masters = new ArrayList<>();
+        masters.add(master);
+        msg.setMasterMatches(masters);
+        return msg;
+    }
+
+    private MatchSummary toSummary(Match match) {
+        MatchSummary summary = new MatchSummary();
+        summary.setCompareDatasetId(match.getCompareDatasetId());
+        summary.setCompareRecordId(match.getCompareRecordId());
+        summary.setMatchedOn(match.getMatchedOn() != null ? match.getMatchedOn().toString() : null);
+        summary.setLuceneScore(match.getLuceneScore());
+        summary.setNameScore(match.getNameScore());
+        summary.setDateScore(match.getDateScore());
+        summary.setBioScore(match.getBioScore());
+        summary.setOverallScore(match.getOverallScore());
+        return summary;
+    }
+}
@@ -0,0 +1,143 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.util.List;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.TermQuery;
+import org.hibernate.search.jpa.FullTextEntityManager;
+import org.hibernate.search.jpa.FullTextQuery;
+import org.hibernate.search.jpa.Search;
+import org.hibernate.search.query.dsl.QueryBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.stereotype.Component;
+
+import edu.asu.diging.eaccpf.model.impl.RecordImpl;
+import edu.asu.diging.rcn.match.engine.core.search.RecordNamesBridge;
+import edu.asu.diging.rcn.match.engine.core.search.SearchMappingFactory;
+import edu.asu.diging.rcn.match.engine.core.service.CandidateRetriever;
+import edu.asu.diging.rcn.match.engine.core.service.CandidateSearcher;
+import edu.asu.diging.rcn.match.engine.core.service.DiagnosticsRecorder;
+import edu.asu.diging.rcn.match.engine.core.service.PartType;
+import edu.asu.diging.rcn.match.engine.core.store.Candidate;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateCollector;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+import edu.asu.diging.rcn.match.engine.core.store.EntryFeatures;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
+
+/**
+ * Finds candidates with fuzzy queries on the search index. Every searcher has
+ * its own entity manager, they can't be shared between threads.
+ */
+@Component
+public class LuceneCandidateRetriever implements CandidateRetriever {
+
+    public static final String NAME = "lucene";
+
+    @Autowired
+    private JpaTransactionManager transactionManager;
+
+    @Autowired
+    private DiagnosticsRecorder diagnostics;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public CandidateSearcher createSearcher(CandidateStore store) {
+        return new LuceneSearcher(store);
+    }
+
+    private class LuceneSearcher implements CandidateSearcher {
+
+        private final CandidateStore store;
+        private final FullTextEntityManager fullTextEntityManager;
+        private final QueryBuilder queryBuilder;
+        private final BooleanQuery datasetFilter;
+
+        LuceneSearcher(CandidateStore store) {
+            this.store = store;
+            this.fullTextEntityManager = Search
+                    .getFullTextEntityManager(transactionManager.getEntityManagerFactory().createEntityManager());
+            this.queryBuilder = fullTextEntityManager.getSearchFactory().buildQueryBuilder()
+                    .forEntity(RecordImpl.class)
+                    .overridesForField(RecordNamesBridge.NAMES_FIELD, SearchMappingFactory.NAME_ANALYZER).get();
+
+            BooleanQuery.Builder datasetFilterBuilder = new BooleanQuery.Builder();
+            for (String datasetId : store.getDatasetIds()) {
+                datasetFilterBuilder.add(new TermQuery(new Term(RecordNamesBridge.DATASET_ID_FIELD, datasetId)),
+                        Occur.SHOULD);
+            }
+            this.datasetFilter = datasetFilterBuilder.build();
+        }
+
+        /**
+         * Runs a fuzzy query for every part of a record's names (except first
+         * names) and collects the name entries of matching records in the
+         * candidate store. Each pair of name entries is only returned once,
+         * with the highest Lucene score it was found with. All compare
+         * datasets are searched with the same query.
+         */
+        @Override
+        public List<Candidate> findCandidates(RecordFeatures features, String baseDatasetId) {
+            CandidateCollector candidates = new CandidateCollector();
+            List<EntryFeatures> entries = features.getEntries();
+            for (int entryIdx = 0; entryIdx < entries.size(); entryIdx++) {
+                EntryFeatures entry = entries.get(entryIdx);
+                // entries in all scripts are searched for, their parts have been transliterated
+                for (EntryFeatures.Part part : entry.getParts()) {
+                    if (part.getType() == PartType.FIRST_NAME || part.getValue() == null
+                            || part.getValue().isEmpty()) {
+                        continue;
+                    }
+
+                    org.apache.lucene.search.Query nameQuery = queryBuilder.keyword().fuzzy()
+                            .onField(RecordNamesBridge.NAMES_FIELD).matching(part.getValue()).createQuery();
+                    // hits in other datasets would be thrown away anyway
+                    org.apache.lucene.search.Query query = new BooleanQuery.Builder().add(nameQuery, Occur.MUST)
+                            .add(datasetFilter, Occur.FILTER).build();
+
+                    FullTextQuery jpaQuery = fullTextEntityManager.createFullTextQuery(query, RecordImpl.class);
+                    // only project ids, hits are looked up in the candidate store
+                    jpaQuery.setProjection(FullTextQuery.SCORE, FullTextQuery.ID);
+                    boolean timed = diagnostics.isQueryEnabled();
+                    long start = timed ? System.nanoTime() : 0;
+                    List<Object[]> results = jpaQuery.getResultList();
+                    if (timed) {
+                        diagnostics.recordQuery(NAME, features, part.getValue(), results.size(),
+                                System.nanoTime() - start);
+                    }
+
+                    for (Object[] searchResult : results) {
+                        int record = store.indexOf(searchResult[1].toString());
+                        if (record < 0) {
+                            // not part of the compare datasets
+                            continue;
+                        }
+                        if (store.getDatasetId(record).equals(baseDatasetId)
+                                && store.getRecordId(record).compareTo(features.getRecordId()) <= 0) {
+                            continue;
+                        }
+                        float score = (float) searchResult[0];
+                        for (int recordEntry = store.getEntryStart(record); recordEntry < store
+                                .getEntryEnd(record); recordEntry++) {
+                            if (store.hasMatchingPart(recordEntry, part.getType(), part.getLocalType())) {
+                                candidates.add(entryIdx, record, recordEntry, score);
+                            }
+                        }
+                    }
+                }
+            }
+            return candidates.getCandidates();
+        }
+
+        @Override
+        public void close() {
+            fullTextEntityManager.close();
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.asu.diging.rcn.kafka.messages.model.KafkaMatchAuthoritiesJobMessage;
+import edu.asu.diging.rcn.match.engine.core.export.MatchResultWriter;
+import edu.asu.diging.rcn.match.engine.core.service.JobPriority;
+import edu.asu.diging.rcn.match.engine.core.service.JobStatus;
+
+/**
+ * A match job and its progress. Counters are updated by the thread running the
+ * job and can be read at any time.
+ */
+public class MatchJob {
+
+    private final String jobId;
+    private final String baseDataset;
+    private final List<String> matchDatasets;
+    private final String initiator;
+    private final OffsetDateTime submittedOn = OffsetDateTime.now();
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile OffsetDateTime startedOn;
+    private volatile OffsetDateTime finishedOn;
+    private volatile long totalRecords = -1;
+    private final AtomicLong processedRecords = new AtomicLong();
+    private final AtomicLong storedMatches = new AtomicLong();
+    private volatile String errorMessage;
+    private volatile Future<?> future;
+    private final CancellationToken token;
+
+    private volatile JobPriority priority = JobPriority.NORMAL;
+    private volatile int nextPartition;
+    private volatile boolean preemptionRequested;
+    private volatile boolean preempted;
+    private volatile boolean symmetric;
+    private volatile JobThresholds thresholds;
+    private volatile MatchResultWriter resultWriter;
+    private volatile JobEstimate estimate;
+    private volatile boolean bioScoringDisabled;
+    private volatile JobPreview preview;
+
+    public MatchJob(String jobId, String baseDataset, String matchDataset, String initiator) {
+        this(jobId, baseDataset, matchDataset, initiator, 0, 0);
+    }
+
+    /**
+     * @param maxDuration
+     *            max run time in milliseconds, 0 for no limit
+     * @param maxCandidates
+     *            max number of candidates to score, 0 for no limit
+     */
+    public MatchJob(String jobId, String baseDataset, String matchDataset, String initiator, long maxDuration,
+            long maxCandidates) {
+        this(jobId, baseDataset, Collections.singletonList(matchDataset), initiator, maxDuration, maxCandidates);
+    }
+
+    /**
+     * Creates a job that matches the base dataset against several datasets in
+     * one pass over the base records.
+     */
+    public MatchJob(String jobId, String baseDataset, List<String> matchDatasets, String initiator,
+            long maxDuration, long maxCandidates) {
+        this.jobId = jobId;
+        this.baseDataset = baseDataset;
+        this.matchDatasets = Collections.unmodifiableList(new ArrayList<>(matchDatasets));
+        this.initiator = initiator;
+        this.token = new CancellationToken(maxDuration, maxCandidates);
+    }
+
+    public MatchJob(KafkaMatchAuthoritiesJobMessage msg) {
+        this(msg.getJobId(), msg.getBaseDataset(), msg.getMatchDataset(), msg.getInitiator());
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getBaseDataset() {
+        return baseDataset;
+    }
+
+    /**
+     * Returns the first dataset the base dataset is matched against.
+     */
+    public String getMatchDataset() {
+        return matchDatasets.get(0);
+    }
+
+    public List<String> getMatchDatasets() {
+        return matchDatasets;
+    }
+
+    public String getInitiator() {
+        return initiator;
+    }
+
+    public OffsetDateTime getSubmittedOn() {
+        return submittedOn;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    public OffsetDateTime getStartedOn() {
+        return startedOn;
+    }
+
+    public void setStartedOn(OffsetDateTime startedOn) {
+        this.startedOn = startedOn;
+    }
+
+    public OffsetDateTime getFinishedOn() {
+        return finishedOn;
+    }
+
+    public void setFinishedOn(OffsetDateTime finishedOn) {
+        this.finishedOn = finishedOn;
+    }
+
+    public long getTotalRecords() {
+        return totalRecords;
+    }
+
+    public void setTotalRecords(long totalRecords) {
+        this.totalRecords = totalRecords;
+    }
+
+    public long getProcessedRecords() {
+        return processedRecords.get();
+    }
+
+    public void recordProcessed() {
+        processedRecords.incrementAndGet();
+    }
+
+    public long getStoredMatches() {
+        return storedMatches.get();
+    }
+
+    public void matchStored() {
+        storedMatches.incrementAndGet();
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public Future<?> getFuture() {
+        return future;
+    }
+
+    public void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    public CancellationToken getToken() {
+        return token;
+    }
+
+    public JobPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(JobPriority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Returns the partition of base records the job starts or resumes with.
+     */
+    public int getNextPartition() {
+        return nextPartition;
+    }
+
+    public void setNextPartition(int nextPartition) {
+        this.nextPartition = nextPartition;
+    }
+
+    public boolean isPreemptionRequested() {
+        return preemptionRequested;
+    }
+
+    /**
+     * Asks the job to give up its worker after the partition it is working
+     * on. The job is then queued again and resumes with the next partition.
+     */
+    public void requestPreemption() {
+        this.preemptionRequested = true;
+    }
+
+    /**
+     * Returns true if the job stopped at a partition boundary to give up its
+     * worker and has not been resumed yet.
+     */
+    public boolean isPreempted() {
+        return preempted;
+    }
+
+    public void setPreempted(boolean preempted) {
+        this.preempted = preempted;
+        this.preemptionRequested = false;
+    }
+
+    /**
+     * Returns true if the results of this job are also stored for the
+     * opposite direction, so that the job does not have to be run again with
+     * base and match dataset swapped. Jobs matching a dataset against itself
+     * are always symmetric.
+     */
+    public boolean isSymmetric() {
+        return symmetric || (matchDatasets.size() == 1 && baseDataset.equals(matchDatasets.get(0)));
+    }
+
+    /**
+     * Returns true if the results against the given match dataset are also
+     * stored for the opposite direction.
+     */
+    public boolean isSymmetric(String matchDataset) {
+        return symmetric || baseDataset.equals(matchDataset);
+    }
+
+    public void setSymmetric(boolean symmetric) {
+        this.symmetric = symmetric;
+    }
+
+    /**
+     * Returns the score histograms and thresholds of the job, or null if the
+     * job has not been started yet.
+     */
+    public JobThresholds getThresholds() {
+        return thresholds;
+    }
+
+    public void setThresholds(JobThresholds thresholds) {
+        this.thresholds = thresholds;
+    }
+
+    /**
+     * Returns the writer of the job's export file, or null if the results are
+     * not exported.
+     */
+    public MatchResultWriter getResultWriter() {
+        return resultWriter;
+    }
+
+    public void setResultWriter(MatchResultWriter resultWriter) {
+        this.resultWriter = resultWriter;
+    }
+
+    /**
+     * Returns the estimated cost of the job, or null if it could not be
+     * estimated.
+     */
+    public JobEstimate getEstimate() {
+        return estimate;
+    }
+
+    public void setEstimate(JobEstimate estimate) {
+        this.estimate = estimate;
+    }
+
+    /**
+     * Returns true if biographies are neither scored nor used to find
+     * candidates, because admission control downscaled the job.
+     */
+    public boolean isBioScoringDisabled() {
+        return bioScoringDisabled;
+    }
+
+    public void setBioScoringDisabled(boolean bioScoringDisabled) {
+        this.bioScoringDisabled = bioScoringDisabled;
+    }
+
+    /**
+     * Returns the results of a preview job, or null if the job is a full
+     * job.
+     */
+    public JobPreview getPreview() {
+        return preview;
+    }
+
+    public void setPreview(JobPreview preview) {
+        this.preview = preview;
+    }
+
+    public boolean isFinished() {
+        return status == JobStatus.DONE || status == JobStatus.FAILED || status == JobStatus.CANCELLED
+                || status == JobStatus.PARTIAL || status == JobStatus.REJECTED;
+    }
+}
@@ -0,0 +1,264 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Service;
+
+import edu.asu.diging.rcn.kafka.messages.model.KafkaMatchAuthoritiesJobMessage;
+import edu.asu.diging.rcn.match.engine.core.data.DatasetRecordRepository;
+import edu.asu.diging.rcn.match.engine.core.service.AdmissionDecision;
+import edu.asu.diging.rcn.match.engine.core.service.JobEstimator;
+import edu.asu.diging.rcn.match.engine.core.service.JobPriority;
+import edu.asu.diging.rcn.match.engine.core.service.JobScheduler;
+import edu.asu.diging.rcn.match.engine.core.service.JobStatus;
+import edu.asu.diging.rcn.match.engine.core.service.MatchJobManager;
+import edu.asu.diging.rcn.match.engine.core.service.ResultExporter;
+
+@Service
+@PropertySource("classpath:/config.properties")
+public class MatchJobManagerImpl implements MatchJobManager {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private JobScheduler scheduler;
+
+    @Autowired
+    private DatasetRecordRepository datasetRecordRepo;
+
+    @Autowired
+    private JobEstimator estimator;
+
+    @Autowired
+    private ResultExporter resultExporter;
+
+    @Value("${_job_history_size}")
+    private int historySize;
+
+    @Value("${_job_max_duration_minutes}")
+    private long defaultMaxDuration;
+
+    @Value("${_job_max_candidates}")
+    private long defaultMaxCandidates;
+
+    @Value("${_job_interactive_max_records}")
+    private long interactiveMaxRecords;
+
+    @Value("${_job_batch_min_records}")
+    private long batchMinRecords;
+
+    @Value("${_preview_margin_of_error}")
+    private float previewMarginOfError;
+
+    @Value("${_preview_z}")
+    private float previewZ;
+
+    @Value("${_preview_examples}")
+    private int previewExamples;
+
+    private final Map<String, MatchJob> jobs = new LinkedHashMap<>();
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * edu.asu.diging.rcn.match.engine.core.service.MatchJobManager#submit(java.lang
+     * .String, java.lang.String, java.lang.String)
+     */
+    @Override
+    public MatchJob submit(String baseDataset, String matchDataset, String initiator) {
+        return submit(baseDataset, Collections.singletonList(matchDataset), initiator, null,
+                TimeUnit.MINUTES.toMillis(defaultMaxDuration), defaultMaxCandidates, false);
+    }
+
+    /**
+     * Submits a job with its own priority and budgets. If no priority is given,
+     * it is derived from the size of the base dataset. A budget of 0 means no
+     * limit. If several match datasets are given, the base records are read
+     * and searched for only once for all of them.
+     */
+    @Override
+    public MatchJob submit(String baseDataset, List<String> matchDatasets, String initiator, JobPriority priority,
+            long maxDuration, long maxCandidates, boolean symmetric) {
+        MatchJob job = new MatchJob(UUID.randomUUID().toString(), baseDataset, matchDatasets, initiator,
+                maxDuration, maxCandidates);
+        job.setSymmetric(symmetric);
+        return submit(job, priority);
+    }
+
+    /**
+     * Submits a job received through Kafka. The job keeps the id of the
+     * message; if a job with that id is already queued or running, the message
+     * is ignored.
+     */
+    @Override
+    public MatchJob submit(KafkaMatchAuthoritiesJobMessage msg) {
+        MatchJob existing = getJob(msg.getJobId());
+        if (existing != null && !existing.isFinished()) {
+            logger.warn("Job " + msg.getJobId() + " has already been submitted.");
+            return existing;
+        }
+        return submit(new MatchJob(msg.getJobId(), msg.getBaseDataset(), msg.getMatchDataset(),
+                msg.getInitiator(), TimeUnit.MINUTES.toMillis(defaultMaxDuration), defaultMaxCandidates), null);
+    }
+
+    /**
+     * Submits a preview of a job. The preview scores a random sample of the
+     * base records that is large enough to estimate the share of records with
+     * a match within the configured margin of error, and does not store any
+     * matches. Previews run with interactive priority.
+     */
+    @Override
+    public MatchJob preview(String baseDataset, List<String> matchDatasets, String initiator) {
+        long population = datasetRecordRepo.countByDataset(baseDataset);
+        int sampleSize = (int) Math.min(JobPreview.getSampleSize(population, previewZ, previewMarginOfError),
+                population);
+        JobPreview preview = new JobPreview(sampleSize, previewExamples, previewZ);
+        preview.setPopulation(population);
+
+        MatchJob job = new MatchJob(UUID.randomUUID().toString(), baseDataset, matchDatasets, initiator,
+                TimeUnit.MINUTES.toMillis(defaultMaxDuration), defaultMaxCandidates);
+        job.setPreview(preview);
+        return submit(job, JobPriority.INTERACTIVE);
+    }
+
+    private MatchJob submit(MatchJob job, JobPriority priority) {
+        long sampleSize = job.getPreview() != null ? job.getPreview().getSampleSize() : 0;
+        JobEstimate estimate = estimate(job, sampleSize);
+        long totalRecords = estimate != null ? estimate.getBaseRecords()
+                : datasetRecordRepo.countByDataset(job.getBaseDataset());
+        if (job.getPreview() != null) {
+            totalRecords = Math.min(totalRecords, sampleSize);
+        }
+        job.setTotalRecords(totalRecords);
+        if (priority == null) {
+            priority = JobPriority.NORMAL;
+            if (totalRecords <= interactiveMaxRecords) {
+                priority = JobPriority.INTERACTIVE;
+            } else if (totalRecords >= batchMinRecords) {
+                priority = JobPriority.BATCH;
+            }
+        }
+        job.setPriority(priority);
+
+        if (estimate != null && estimate.getDecision() == AdmissionDecision.REJECT) {
+            job.setErrorMessage(estimate.getReason());
+            job.setStatus(JobStatus.REJECTED);
+            job.setFinishedOn(OffsetDateTime.now());
+        } else if (estimate != null && estimate.getDecision() == AdmissionDecision.DOWNSCALE) {
+            job.setBioScoringDisabled(true);
+        }
+
+        synchronized (jobs) {
+            jobs.put(job.getJobId(), job);
+            removeOldJobs();
+        }
+        if (job.getStatus() == JobStatus.REJECTED) {
+            logger.warn("Rejected job " + job.getJobId() + ": " + estimate.getReason());
+            resultExporter.finish(job);
+            return job;
+        }
+        if (job.isBioScoringDisabled()) {
+            logger.info("Downscaled job " + job.getJobId() + ": " + estimate.getReason());
+        }
+        scheduler.schedule(job);
+        logger.info("Submitted job " + job.getJobId() + " matching " + job.getBaseDataset() + " against "
+                + job.getMatchDatasets() + " with priority " + priority + ".");
+        return job;
+    }
+
+    /**
+     * Estimates the cost of a job. Jobs that can't be estimated are admitted
+     * without an estimate.
+     */
+    private JobEstimate estimate(MatchJob job, long maxBaseRecords) {
+        try {
+            JobEstimate estimate = estimator.estimate(job.getBaseDataset(), job.getMatchDatasets(),
+                    maxBaseRecords);
+            job.setEstimate(estimate);
+            return estimate;
+        } catch (RuntimeException e) {
+            logger.warn("Could not estimate cost of job " + job.getJobId() + ".", e);
+            return null;
+        }
+    }
+
+    @Override
+    public MatchJob getJob(String jobId) {
+        synchronized (jobs) {
+            return jobs.get(jobId);
+        }
+    }
+
+    @Override
+    public List<MatchJob> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    /**
+     * Cancels a job. Queued jobs will not be started; running jobs stop after
+     * the record or scoring stage they are working on. Running jobs are not
+     * interrupted, since an interrupt closes the channels of the Lucene index.
+     */
+    @Override
+    public boolean cancel(String jobId) {
+        MatchJob job = getJob(jobId);
+        if (job == null) {
+            return false;
+        }
+        boolean dequeued = false;
+        synchronized (job) {
+            if (job.isFinished()) {
+                return false;
+            }
+            job.getToken().cancel();
+            if (job.getStatus() == JobStatus.QUEUED) {
+                scheduler.unschedule(job);
+                job.setStatus(JobStatus.CANCELLED);
+                job.setFinishedOn(OffsetDateTime.now());
+                dequeued = true;
+            }
+        }
+        logger.info("Cancelled job " + jobId + ".");
+        // a queued job may have been preempted with its export already open; running jobs
+        // finish their export themselves when they stop
+        if (dequeued && job.getPreview() == null) {
+            resultExporter.finish(job);
+        }
+        return true;
+    }
+
+    /**
+     * Keeps at most the configured number of finished jobs around.
+     */
+    private void removeOldJobs() {
+        int finished = 0;
+        for (MatchJob job : jobs.values()) {
+            if (job.isFinished()) {
+                finished++;
+            }
+        }
+        Iterator<MatchJob> iterator = jobs.values().iterator();
+        while (finished > historySize && iterator.hasNext()) {
+            if (iterator.next().isFinished()) {
+                iterator.remove();
+                finished--;
+            }
+        }
+    }
+}
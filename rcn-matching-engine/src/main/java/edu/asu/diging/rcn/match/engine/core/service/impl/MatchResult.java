@@ -0,0 +1,45 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import edu.asu.diging.eaccpf.model.match.Match;
+
+/**
+ * A scored match that passed the threshold, together with the display names
+ * of the two name entries that were matched.
+ */
+public class MatchResult {
+
+    private final Match match;
+    private final String namePart1;
+    private final String namePart2;
+    private final String matchedNamePart1;
+    private final String matchedNamePart2;
+
+    public MatchResult(Match match, String namePart1, String namePart2, String matchedNamePart1,
+            String matchedNamePart2) {
+        this.match = match;
+        this.namePart1 = namePart1;
+        this.namePart2 = namePart2;
+        this.matchedNamePart1 = matchedNamePart1;
+        this.matchedNamePart2 = matchedNamePart2;
+    }
+
+    public Match getMatch() {
+        return match;
+    }
+
+    public String getNamePart1() {
+        return namePart1;
+    }
+
+    public String getNamePart2() {
+        return namePart2;
+    }
+
+    public String getMatchedNamePart1() {
+        return matchedNamePart1;
+    }
+
+    public String getMatchedNamePart2() {
+        return matchedNamePart2;
+    }
+}
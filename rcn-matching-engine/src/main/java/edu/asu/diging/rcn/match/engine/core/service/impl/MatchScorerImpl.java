@@ -1,16 +1,12 @@
 package edu.asu.diging.rcn.match.engine.core.service.impl;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.annotation.PostConstruct;
 
-import org.apache.commons.text.similarity.JaroWinklerSimilarity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,20 +14,17 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Service;
 
-import edu.asu.diging.eaccpf.model.BiogHist;
-import edu.asu.diging.eaccpf.model.CpfRelation;
-import edu.asu.diging.eaccpf.model.Date;
-import edu.asu.diging.eaccpf.model.DateRange;
-import edu.asu.diging.eaccpf.model.Description;
-import edu.asu.diging.eaccpf.model.ExistDates;
-import edu.asu.diging.eaccpf.model.Identity;
 import edu.asu.diging.eaccpf.model.NameEntry;
-import edu.asu.diging.eaccpf.model.NamePart;
 import edu.asu.diging.eaccpf.model.Record;
-import edu.asu.diging.eaccpf.model.RelationEntry;
-import edu.asu.diging.eaccpf.model.Relations;
+import edu.asu.diging.rcn.match.engine.core.exception.JobStoppedException;
+import edu.asu.diging.rcn.match.engine.core.service.DiagnosticsRecorder;
+import edu.asu.diging.rcn.match.engine.core.service.FeatureExtractor;
 import edu.asu.diging.rcn.match.engine.core.service.MatchScorer;
 import edu.asu.diging.rcn.match.engine.core.service.NlpScorer;
+import edu.asu.diging.rcn.match.engine.core.service.ScoringStage;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+import edu.asu.diging.rcn.match.engine.core.store.EntryFeatures;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
 
 @Service
 @PropertySource("classpath:/config.properties")
@@ -39,34 +32,70 @@ public class MatchScorerImpl implements MatchScorer {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    private final String RELATION_TYPE_IDENTITY = "identity";
-
     @Autowired
     private NlpScorer nlpScorer;
 
-    @Value("${_last_name_local_types}")
-    private String lastNameLocalTypes;
+    @Autowired
+    private FeatureExtractor featureExtractor;
+
+    @Autowired
+    private List<ScoringStage> availableStages;
+
+    @Autowired
+    private NameScoringStage nameStage;
+
+    @Autowired
+    private DateScoringStage dateStage;
+
+    @Autowired
+    private BioScoringStage bioStage;
 
-    @Value("${_first_name_local_types}")
-    private String firstNameLocalTypes;
+    @Autowired
+    private DiagnosticsRecorder diagnostics;
 
-    @Value("${_org_name_local_types}")
-    private String orgNameLocalTypes;
+    @Value("${_scoring_stages}")
+    private String scoringStages;
 
-    private List<String> lastNameLocalTypesList;
-    private List<String> firstNameLocalTypesList;
-    private List<String> orgNameLocalTypesList;
+    private List<ScoringStage> stages;
 
+    /**
+     * Sets up the configured stages in the configured order. If no stages are
+     * configured, all stages are run, cheapest first.
+     */
     @PostConstruct
     public void init() {
-        lastNameLocalTypesList = Arrays.asList(lastNameLocalTypes.split(","));
-        firstNameLocalTypesList = Arrays.asList(firstNameLocalTypes.split(","));
-        orgNameLocalTypesList = Arrays.asList(orgNameLocalTypes.split(","));
+        stages = new ArrayList<>();
+        if (scoringStages == null || scoringStages.trim().isEmpty()) {
+            stages.addAll(availableStages);
+            stages.sort(Comparator.comparingInt(ScoringStage::getCost));
+        } else {
+            for (String name : scoringStages.split(",")) {
+                ScoringStage stage = availableStages.stream().filter(s -> s.getName().equals(name.trim()))
+                        .findFirst().orElse(null);
+                if (stage == null) {
+                    logger.warn("There is no scoring stage " + name + ".");
+                    continue;
+                }
+                stages.add(stage);
+            }
+        }
+        if (!stages.contains(nameStage)) {
+            logger.warn("Name scoring is disabled, no matches will be found.");
+        } else if (stages.contains(bioStage) && stages.indexOf(bioStage) < stages.indexOf(nameStage)) {
+            // the biography stage decides whether it is needed based on the name score
+            throw new IllegalStateException("Biography scoring has to come after name scoring in _scoring_stages.");
+        }
+        stages = Collections.unmodifiableList(stages);
+    }
+
+    @Override
+    public List<ScoringStage> getStages() {
+        return stages;
     }
 
     /*
      * (non-Javadoc)
-     * 
+     *
      * @see
      * edu.asu.diging.rcn.match.engine.core.service.impl.MatchScorer#score(edu.asu.
      * diging.eaccpf.model.Record, edu.asu.diging.eaccpf.model.Record,
@@ -75,196 +104,152 @@ public class MatchScorerImpl implements MatchScorer {
      */
     @Override
     public MatchScore score(Record record1, Record record2, NameEntry entry1, NameEntry entry2, float luceneScore) {
-        try {
-            MatchScore score = new MatchScore();
-            score.setNameScore(scoreNameMatch(entry1, entry2, luceneScore));
-            score.setDateScore(scoreDatesMatch(record1, record2));
-            if (score.getNameScore() > 0.2) {
-                // this score is slow to calculate, we won't always need it
-                score.setBioScore(scoreBiography(record1, record2));
-            } else {
-                score.setBioScore(-1f);
-            }
-            calculateOverallScore(score);
-            return score;
-        } catch (Exception ex) {
-            logger.error("Exception in scoring ", ex);
-            return null;
-        }
-    }
-
-    private float scoreNameMatch(NameEntry entry1, NameEntry entry2, float luceneScore) {
-        // if lucene is highly matched, let's start at threshold
-        float overallScore = luceneScore > 1 ? 0.3f : 0.15f;
-
-        Map<PartType, List<String>> nameParts1 = getNameParts(entry1);
-        Map<PartType, List<String>> nameParts2 = getNameParts(entry2);
-
-        float lastNameSim = calculateSimilarity(nameParts1.get(PartType.LAST_NAME), nameParts2.get(PartType.LAST_NAME));
-        float firstNameSim = calculateSimilarity(nameParts1.get(PartType.FIRST_NAME),
-                nameParts2.get(PartType.FIRST_NAME));
-        float orgNameSim = calculateSimilarity(nameParts1.get(PartType.ORG_NAME), nameParts2.get(PartType.ORG_NAME));
-
-        if (orgNameSim > -1) {
-            if (orgNameSim < 0.85) {
-                overallScore = overallScore - 0.2f;
-            }
+        RecordFeatures features1 = featureExtractor.extract(record1);
+        RecordFeatures features2 = featureExtractor.extract(record2);
 
-            return overallScore + (orgNameSim * 0.5f);
-        }
-        // give a boost if first and last name the same
-        if (lastNameSim >= 0.9 && firstNameSim == 1) {
-            overallScore = overallScore + 0.3f;
-        }
-        // if last name is not the same, penalize
-        if (lastNameSim < 0.85 || firstNameSim < 0.7) {
-            overallScore = overallScore - 0.2f;
-        }
-        return overallScore * (lastNameSim * 0.5f + firstNameSim * 0.5f);
-    }
-
-    private float scoreDatesMatch(Record record1, Record record2) {
-        Description description1 = record1.getDescription();
-        Description description2 = record2.getDescription();
-
-        if (description1 == null || description2 == null) {
-            return -1;
-        }
-
-        ExistDates dates1 = description1.getExistDates();
-        ExistDates dates2 = description2.getExistDates();
-
-        List<YearRange> ranges1 = new ArrayList<>();
-        List<YearRange> ranges2 = new ArrayList<>();
-
-        if (dates1 != null) {
-            parseYearRanges(dates1.getDateRanges(), ranges1);
-            parseDates(dates1.getDates(), ranges1);
-        }
-
-        if (dates2 != null) {
-            parseYearRanges(dates2.getDateRanges(), ranges2);
-            parseDates(dates2.getDates(), ranges1);
+        // single record store that only contains the entry to compare with
+        RecordFeatures candidate = new RecordFeatures(features2.getRecordId(), features2.getDatasetId(),
+                Collections.singletonList(featureExtractor.extract(entry2)), features2.getYearsFrom(),
+                features2.getYearsTo(), features2.getBiography());
+        CandidateStore.Builder builder = new CandidateStore.Builder();
+        int idx = builder.addRecord(candidate);
+        CandidateStore store = builder.build();
+        if (candidate.getBiography() != null) {
+            store.setBioKeywords(idx, store.internKeywords(nlpScorer.getKeywords(candidate.getBiography())));
         }
 
-        String identityText1 = getRelationsIdentityText(record1.getRelations());
-        String identityText2 = getRelationsIdentityText(record2.getRelations());
-        parseDatesInIdentityText(identityText1, ranges1);
-        parseDatesInIdentityText(identityText2, ranges2);
-
-        if (ranges1.isEmpty() || ranges2.isEmpty()) {
-            return -1;
-        }
-
-        for (YearRange range1 : ranges1) {
-            if (ranges2.isEmpty()) {
-                break;
-            }
+        return score(features1, featureExtractor.extract(entry1), store, idx, store.getEntryStart(idx), luceneScore);
+    }
 
-            float score = 0f;
-            int rangeIdx = 0;
-            int matchingIdx = 0;
-            for (YearRange range2 : ranges2) {
-                float currentScore = 0f;
-                if (range1.from <= range2.from + 1 && range1.from >= range2.from - 1) {
-                    // penalize if in range and not exact year
-                    currentScore = 0.5f * (1 - Math.abs((range1.from - range2.from) / 3));
-                }
-                if (range1.to <= range2.to + 1 && range1.to >= range2.to - 1) {
-                    // penalize if in range and not exact year
-                    currentScore += 0.5f * (1 - Math.abs((range1.to - range2.to) / 3));
-                }
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * edu.asu.diging.rcn.match.engine.core.service.MatchScorer#score(edu.asu.diging
+     * .rcn.match.engine.core.store.RecordFeatures,
+     * edu.asu.diging.rcn.match.engine.core.store.EntryFeatures,
+     * edu.asu.diging.rcn.match.engine.core.store.CandidateStore, int, int, float)
+     */
+    @Override
+    public MatchScore score(RecordFeatures record, EntryFeatures entry, CandidateStore store, int candidate,
+            int candidateEntry, float luceneScore) {
+        return score(new ScoringContext(record, entry, store, candidate, candidateEntry, luceneScore), stages);
+    }
 
-                if (currentScore > score) {
-                    score = currentScore;
-                    matchingIdx = rangeIdx;
-                }
+    @Override
+    public MatchScores score(RecordFeatures record, EntryFeatures entry, CandidateStore store, int[] candidates,
+            int[] candidateEntries, float[] luceneScores, CancellationToken token, JobThresholds thresholds) {
+        return score(record, entry, store, candidates, candidateEntries, luceneScores, stages, token, thresholds);
+    }
 
-                rangeIdx++;
+    /**
+     * Scores one base name entry against many candidates. The base side
+     * features (name tokens, year ranges, biography keywords) are computed once
+     * and reused for every candidate. If the token is stopped, a
+     * {@link JobStoppedException} is thrown between two stages. Stages that
+     * are gated by a threshold use the job's thresholds if there are any.
+     */
+    @Override
+    public MatchScores score(RecordFeatures record, EntryFeatures entry, CandidateStore store, int[] candidates,
+            int[] candidateEntries, float[] luceneScores, List<ScoringStage> stages, CancellationToken token,
+            JobThresholds thresholds) {
+        MatchScores scores = new MatchScores(candidates.length);
+        ScoringContext context = new ScoringContext(record, entry, store, -1, -1, 0);
+        context.setToken(token);
+        context.setThresholds(thresholds);
+        for (int i = 0; i < candidates.length; i++) {
+            context.setCandidate(candidates[i], candidateEntries[i], luceneScores[i]);
+            MatchScore score = score(context, stages);
+            if (score == null) {
+                score = new MatchScore();
+                score.setNameScore(-1f);
+                score.setDateScore(-1f);
+                score.setBioScore(-1f);
+                score.setOverallScore(-1f);
             }
-
-            range1.score = score;
-            ranges2.remove(matchingIdx);
-        }
-
-        // average over all years
-        float totalScore = 0f;
-        int nrOfYearsMatched = 0;
-        for (YearRange year : ranges1) {
-            totalScore += year.score;
-            nrOfYearsMatched++;
-        }
-        if (nrOfYearsMatched > 0) {
-            return totalScore / nrOfYearsMatched;
+            scores.set(i, score);
         }
-        return -1;
+        return scores;
     }
 
-    private String getRelationsIdentityText(List<Relations> relations1) {
-        String identityText1 = null;
-        if (relations1 != null) {
-            for (Relations rels : relations1) {
-                if (rels.getCpfRelations() != null) {
-                    StringBuffer sb = new StringBuffer();
-                    for (CpfRelation cpfRel : rels.getCpfRelations()) {
-                        if (cpfRel.getCpfRelationType().equals(RELATION_TYPE_IDENTITY)
-                                && cpfRel.getRelationEntries() != null) {
-                            for (RelationEntry entry : cpfRel.getRelationEntries()) {
-                                sb.append(entry.getText() + "\n");
-                            }
-                        }
+    /**
+     * Runs the given stages in order. Date and biography scores of stages that
+     * are disabled or skipped stay at -1, which means they are unknown. The
+     * stages are only timed while pairs are recorded for diagnostics.
+     */
+    @Override
+    public MatchScore score(ScoringContext context, List<ScoringStage> stages) {
+        try {
+            MatchScore score = new MatchScore();
+            score.setDateScore(-1f);
+            score.setBioScore(-1f);
+            boolean timed = diagnostics.isPairEnabled();
+            long start = timed ? System.nanoTime() : 0;
+            long[] stageTimes = timed ? new long[stages.size()] : null;
+            for (int i = 0; i < stages.size(); i++) {
+                ScoringStage stage = stages.get(i);
+                if (context.getToken() != null) {
+                    context.getToken().throwIfStopped();
+                }
+                if (stage.isNeeded(context, score)) {
+                    long stageStart = timed ? System.nanoTime() : 0;
+                    stage.score(context, score);
+                    if (timed) {
+                        stageTimes[i] = System.nanoTime() - stageStart;
                     }
-                    identityText1 = sb.toString();
                 }
             }
+            calculateOverallScore(score);
+            if (timed) {
+                diagnostics.recordPair(context, stages, stageTimes, score, System.nanoTime() - start);
+            }
+            return score;
+        } catch (JobStoppedException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            logger.error("Exception in scoring ", ex);
+            return null;
         }
-        return identityText1;
     }
 
-    private float scoreBiography(Record record1, Record record2) {
-        Description desc1 = record1.getDescription();
-        Description desc2 = record2.getDescription();
-        if (desc1 == null || desc2 == null || desc1.getBiogHists() == null || desc2.getBiogHists() == null) {
-            return -1;
+    /**
+     * Cheap upper bound of the overall score {@link #score} would return. Name
+     * similarities are bounded using only token lengths and common prefixes,
+     * dates are scored exactly since they are already available as ints, and
+     * the biography is assumed to match if both records have one. Dates only
+     * bound the score if date scoring is configured.
+     */
+    @Override
+    public float upperBound(RecordFeatures record, EntryFeatures entry, CandidateStore store, int candidate,
+            int candidateEntry, float luceneScore) {
+        float nameBound = nameStage.upperBound(entry, store, candidateEntry, luceneScore);
+        if (nameBound < 0.2) {
+            return nameBound;
         }
 
-        List<BiogHist> bio1 = desc1.getBiogHists();
-        List<BiogHist> bio2 = desc2.getBiogHists();
-
-        if (bio1.isEmpty() || bio2.isEmpty()) {
-            return -1;
+        float bound = nameBound;
+        if (record.getBiography() != null && store.hasBiography(candidate)) {
+            bound += 0.05f;
         }
-
-        // let's assume there is just one bio for now
-        String bioString1 = null;
-        if (bio1.get(0).getAbstractText() != null && bio1.get(0).getAbstractText().getText() != null
-                && !bio1.get(0).getAbstractText().getText().isEmpty()) {
-            bioString1 = bio1.get(0).getAbstractText().getText();
-        } else if (bio1.get(0).getPs() != null && !bio1.get(0).getPs().isEmpty()) {
-            StringBuffer sb = new StringBuffer();
-            bio1.get(0).getPs().forEach(p -> sb.append(p + "\n"));
-            bioString1 = sb.toString();
+        if (!isDateScoringEnabled()) {
+            return bound;
         }
-
-        if (bioString1 == null || bioString1.length() < 50) {
-            return -1;
+        float dateScore = dateStage.scoreDatesMatch(record, store, candidate);
+        if (dateScore == 0) {
+            return DATE_MISMATCH_SCORE;
         }
-
-        String bioString2 = null;
-        if (bio2.get(0).getAbstractText() != null && bio2.get(0).getAbstractText().getText() != null
-                && !bio2.get(0).getAbstractText().getText().isEmpty()) {
-            bioString2 = bio2.get(0).getAbstractText().getText();
-        } else if (bio2.get(0).getPs() != null && !bio2.get(0).getPs().isEmpty()) {
-            StringBuffer sb = new StringBuffer();
-            bio2.get(0).getPs().forEach(p -> sb.append(p + "\n"));
-            bioString2 = sb.toString();
+        if (dateScore > 0 && dateScore < 0.8) {
+            return bound + 0.05f;
         }
-
-        if (bioString2 == null || bioString2.length() < 50) {
-            return -1;
+        if (dateScore > 0.8) {
+            return bound + 0.2f;
         }
+        return bound;
+    }
 
-        return 1 - nlpScorer.calculateKeywordSimilarity(bioString1, bioString2);
+    @Override
+    public boolean isDateScoringEnabled() {
+        return stages.contains(dateStage);
     }
 
     private void calculateOverallScore(MatchScore score) {
@@ -276,7 +261,7 @@ public class MatchScorerImpl implements MatchScorer {
 
         // if dates do not match, we probably do not have a match
         if (score.getDateScore() == 0) {
-            score.setOverallScore(0.2f);
+            score.setOverallScore(DATE_MISMATCH_SCORE);
             return;
         }
 
@@ -299,153 +284,4 @@ public class MatchScorerImpl implements MatchScorer {
             score.setOverallScore(score.getOverallScore() + 0.2f);
         }
     }
-
-    private void parseYearRanges(List<DateRange> ranges, List<YearRange> years) {
-        if (ranges != null && !ranges.isEmpty()) {
-            for (DateRange range : ranges) {
-                YearRange yearRange = new YearRange();
-                Date fromDate = range.getFromDate();
-                if (fromDate != null && fromDate.getDate() != null) {
-                    yearRange.from = findYear(fromDate.getDate());
-                }
-                Date toDate = range.getToDate();
-                if (toDate != null && toDate.getDate() != null) {
-                    yearRange.to = findYear(toDate.getDate());
-                }
-                years.add(yearRange);
-            }
-        }
-    }
-
-    private void parseDates(List<Date> dates, List<YearRange> years) {
-        if (dates != null && !dates.isEmpty()) {
-            for (Date date : dates) {
-                YearRange yearRange = new YearRange();
-                String fromDate = date.getNotBefore();
-                if (fromDate != null) {
-                    yearRange.from = findYear(fromDate);
-                }
-                String toDate = date.getNotAfter();
-                if (toDate != null) {
-                    yearRange.to = findYear(toDate);
-                }
-                years.add(yearRange);
-            }
-        }
-    }
-
-    private void parseDatesInIdentityText(String text, List<YearRange> years) {
-        if (text != null) {
-            Pattern pattern = Pattern.compile("\\(([0-9]{4}) ?- ?([0-9]{2,4})?\\)");
-            Matcher matcher = pattern.matcher(text);
-            if (matcher.find()) {
-                String startYear = matcher.group(1);
-                String endYear = matcher.group(2);
-
-                if (startYear != null && endYear != null && endYear.length() == 2) {
-                    endYear = startYear.substring(0, 2) + endYear;
-                }
-
-                if (startYear != null || endYear != null) {
-                    YearRange range = new YearRange();
-                    if (startYear != null) {
-                        range.from = new Integer(startYear);
-                    }
-                    if (endYear != null) {
-                        range.to = new Integer(endYear);
-                    }
-                    years.add(range);
-                }
-            }
-        }
-    }
-
-    private int findYear(String yearString) {
-        Pattern pattern = Pattern.compile("[0-9]{4}");
-        Matcher matcher = pattern.matcher(yearString);
-        // for now let's take the last one
-        // FIXME: is this valid?
-        String year = null;
-        while (matcher.find()) {
-            year = matcher.group();
-        }
-
-        if (year != null) {
-            return new Integer(year);
-        }
-        return Integer.MAX_VALUE;
-    }
-
-    private float calculateSimilarity(List<String> names1, List<String> names2) {
-        JaroWinklerSimilarity jSimilarity = new JaroWinklerSimilarity();
-        if (names1.isEmpty() || names2.isEmpty()) {
-            return -1;
-        }
-        float listSim = 0;
-        float matchedNames = 0;
-        for (String name1 : names1) {
-            double sim = -1;
-            int idx = 0;
-            int matchIdx = 0;
-            for (String name2 : names2) {
-                double jSim = jSimilarity.apply(name1.trim(), name2.trim());
-                if (jSim > sim) {
-                    sim = jSim;
-                    matchIdx = idx;
-                }
-                idx++;
-            }
-            listSim += sim;
-            if (names2.size() > matchIdx) {
-                names2.remove(matchIdx);
-            }
-            matchedNames++;
-            if (names2.isEmpty()) {
-                break;
-            }
-        }
-
-        return listSim / matchedNames;
-    }
-
-    private Map<PartType, List<String>> getNameParts(NameEntry entry) {
-        Map<PartType, List<String>> nameParts = new HashMap<PartType, List<String>>();
-        nameParts.put(PartType.FIRST_NAME, new ArrayList<>());
-        nameParts.put(PartType.LAST_NAME, new ArrayList<>());
-        nameParts.put(PartType.ORG_NAME, new ArrayList<>());
-        for (NamePart part : entry.getParts()) {
-            String partString = part.getPart();
-            List<String> partStringList = Arrays.asList(partString.split(" "));
-            if (isFirstName(part)) {
-                nameParts.get(PartType.FIRST_NAME).addAll(partStringList);
-            } else if (isLastName(part)) {
-                nameParts.get(PartType.LAST_NAME).addAll(partStringList);
-            } else if (isOrgName(part)) {
-                nameParts.get(PartType.ORG_NAME).addAll(partStringList);
-            }
-        }
-        return nameParts;
-    }
-
-    private boolean isLastName(NamePart namePart) {
-        return lastNameLocalTypesList.contains(namePart.getLocalType());
-    }
-
-    private boolean isFirstName(NamePart namePart) {
-        return firstNameLocalTypesList.contains(namePart.getLocalType());
-    }
-
-    private boolean isOrgName(NamePart namePart) {
-        return orgNameLocalTypesList.contains(namePart.getLocalType());
-    }
-
-    enum PartType {
-        FIRST_NAME, LAST_NAME, ORG_NAME;
-    }
-
-    class YearRange {
-        public int from;
-        public int to;
-        public float score;
-    }
 }
@@ -0,0 +1,57 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+/**
+ * Scores of one base name entry against a batch of candidates, stored as one
+ * primitive array per score. Candidates that could not be scored have an
+ * overall score of -1.
+ */
+public class MatchScores {
+
+    private final float[] nameScores;
+    private final float[] dateScores;
+    private final float[] bioScores;
+    private final float[] overallScores;
+
+    public MatchScores(int size) {
+        nameScores = new float[size];
+        dateScores = new float[size];
+        bioScores = new float[size];
+        overallScores = new float[size];
+    }
+
+    public int size() {
+        return overallScores.length;
+    }
+
+    public void set(int idx, MatchScore score) {
+        nameScores[idx] = score.getNameScore();
+        dateScores[idx] = score.getDateScore();
+        bioScores[idx] = score.getBioScore();
+        overallScores[idx] = score.getOverallScore();
+    }
+
+    public MatchScore get(int idx) {
+        MatchScore score = new MatchScore();
+        score.setNameScore(nameScores[idx]);
+        score.setDateScore(dateScores[idx]);
+        score.setBioScore(bioScores[idx]);
+        score.setOverallScore(overallScores[idx]);
+        return score;
+    }
+
+    public float[] getNameScores() {
+        return nameScores;
+    }
+
+    public float[] getDateScores() {
+        return dateScores;
+    }
+
+    public float[] getBioScores() {
+        return bioScores;
+    }
+
+    public float[] getOverallScores() {
+        return overallScores;
+    }
+}
@@ -0,0 +1,176 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Service;
+
+import edu.asu.diging.rcn.match.engine.core.service.NameNormalizer;
+
+/**
+ * Normalizes name parts before they are indexed or scored:
+ * <ol>
+ * <li>Cyrillic, Greek and Arabic letters are transliterated to Latin
+ * letters,</li>
+ * <li>the name is decomposed (NFKD) and diacritics are removed,</li>
+ * <li>punctuation is replaced with spaces, so that e.g. inverted names are
+ * split at their comma,</li>
+ * <li>the name is lower cased.</li>
+ * </ol>
+ * Normalized names are cached, the least recently used names are evicted
+ * once the cache is full.
+ */
+@Service
+@PropertySource("classpath:/config.properties")
+public class NameNormalizerImpl implements NameNormalizer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final String[] CYRILLIC_BASIC = { "a", "b", "v", "g", "d", "e", "zh", "z", "i", "y", "k", "l",
+            "m", "n", "o", "p", "r", "s", "t", "u", "f", "kh", "ts", "ch", "sh", "shch", "", "y", "", "e", "yu",
+            "ya" };
+
+    private static final String[] CYRILLIC_EXTENDED = { "e", "e", "dj", "g", "ye", "dz", "i", "yi", "j", "lj", "nj",
+            "c", "k", "i", "u", "dz" };
+
+    private static final String[] GREEK = { "a", "v", "g", "d", "e", "z", "i", "th", "i", "k", "l", "m", "n", "x",
+            "o", "p", "r", "s", "s", "t", "y", "f", "ch", "ps", "o" };
+
+    private static final String[] ARABIC = { "", "a", "a", "w", "i", "y", "a", "b", "h", "t", "th", "j", "h", "kh",
+            "d", "dh", "r", "z", "s", "sh", "s", "d", "t", "z", "", "gh", "", "", "", "", "", "", "f", "q", "k", "l",
+            "m", "n", "h", "w", "a", "y" };
+
+    private static final Map<Integer, String> TRANSLITERATIONS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < CYRILLIC_EXTENDED.length; i++) {
+            TRANSLITERATIONS.put(0x0400 + i, CYRILLIC_EXTENDED[i]);
+            TRANSLITERATIONS.put(0x0450 + i, CYRILLIC_EXTENDED[i]);
+        }
+        for (int i = 0; i < CYRILLIC_BASIC.length; i++) {
+            TRANSLITERATIONS.put(0x0410 + i, CYRILLIC_BASIC[i]);
+            TRANSLITERATIONS.put(0x0430 + i, CYRILLIC_BASIC[i]);
+        }
+        TRANSLITERATIONS.put(0x0490, "g");
+        TRANSLITERATIONS.put(0x0491, "g");
+        // final sigma is part of the lower case table
+        for (int i = 0; i < GREEK.length; i++) {
+            TRANSLITERATIONS.put(0x0391 + i, GREEK[i]);
+            TRANSLITERATIONS.put(0x03B1 + i, GREEK[i]);
+        }
+        for (int i = 0; i < ARABIC.length; i++) {
+            TRANSLITERATIONS.put(0x0621 + i, ARABIC[i]);
+        }
+        // Persian letters
+        TRANSLITERATIONS.put(0x067E, "p");
+        TRANSLITERATIONS.put(0x0686, "ch");
+        TRANSLITERATIONS.put(0x0698, "zh");
+        TRANSLITERATIONS.put(0x06A9, "k");
+        TRANSLITERATIONS.put(0x06AF, "g");
+        TRANSLITERATIONS.put(0x06CC, "y");
+    }
+
+    // the cache is split into segments with a lock each, so that scoring threads
+    // rarely wait for each other
+    private static final int CACHE_SEGMENTS = 16;
+
+    @Value("${_name_normalizer_cache_size}")
+    private int cacheSize = 100000;
+
+    private final List<Map<String, String>> cache = new ArrayList<>(CACHE_SEGMENTS);
+
+    public NameNormalizerImpl() {
+        for (int i = 0; i < CACHE_SEGMENTS; i++) {
+            cache.add(new LinkedHashMap<String, String>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > Math.max(cacheSize / CACHE_SEGMENTS, 1);
+                }
+            });
+        }
+    }
+
+    /**
+     * Creates a normalizer outside of Spring, e.g. for the search index.
+     */
+    public NameNormalizerImpl(int cacheSize) {
+        this();
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Returns the normalized name or null if the name is null.
+     */
+    @Override
+    public String normalize(String name) {
+        if (name == null) {
+            return null;
+        }
+        // least recently used names are evicted once a segment is full
+        Map<String, String> segment = cache.get((name.hashCode() & 0x7FFFFFFF) % CACHE_SEGMENTS);
+        String normalized;
+        synchronized (segment) {
+            normalized = segment.get(name);
+        }
+        if (normalized != null) {
+            return normalized;
+        }
+        normalized = doNormalize(name);
+        synchronized (segment) {
+            segment.put(name, normalized);
+        }
+        return normalized;
+    }
+
+    @Override
+    public List<String> getTokens(String name) {
+        List<String> tokens = new ArrayList<>();
+        String normalized = normalize(name);
+        if (normalized == null || normalized.isEmpty()) {
+            return tokens;
+        }
+        for (String token : normalized.split(" ")) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private String doNormalize(String name) {
+        // transliterating before decomposing keeps letters like the short i, which
+        // would otherwise lose their breve; greek letters with accents are only
+        // transliterated once the accent has been split off
+        String normalized = transliterate(name);
+        normalized = Normalizer.normalize(normalized, Normalizer.Form.NFKD);
+        normalized = MARKS.matcher(normalized).replaceAll("");
+        normalized = transliterate(normalized);
+        normalized = SEPARATORS.matcher(normalized).replaceAll(" ").trim();
+        return normalized.toLowerCase(Locale.ROOT);
+    }
+
+    private String transliterate(String name) {
+        StringBuilder sb = null;
+        for (int i = 0; i < name.length(); i++) {
+            String latin = TRANSLITERATIONS.get((int) name.charAt(i));
+            if (latin != null && sb == null) {
+                sb = new StringBuilder(name.length());
+                sb.append(name, 0, i);
+            }
+            if (sb != null) {
+                sb.append(latin != null ? latin : String.valueOf(name.charAt(i)));
+            }
+        }
+        return sb != null ? sb.toString() : name;
+    }
+}
@@ -0,0 +1,181 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.text.similarity.JaroWinklerSimilarity;
+import org.springframework.stereotype.Component;
+
+import edu.asu.diging.rcn.match.engine.core.service.PartType;
+import edu.asu.diging.rcn.match.engine.core.service.ScoringStage;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+import edu.asu.diging.rcn.match.engine.core.store.EntryFeatures;
+
+@Component
+public class NameScoringStage implements ScoringStage {
+
+    public static final String NAME = "name";
+
+    private final JaroWinklerSimilarity jSimilarity = new JaroWinklerSimilarity();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getCost() {
+        return 10;
+    }
+
+    @Override
+    public boolean isNeeded(ScoringContext context, MatchScore score) {
+        return true;
+    }
+
+    @Override
+    public void score(ScoringContext context, MatchScore score) {
+        score.setNameScore(scoreNameMatch(context.getEntry(), context.getStore(), context.getCandidateEntry(),
+                context.getLuceneScore()));
+    }
+
+    private float scoreNameMatch(EntryFeatures entry, CandidateStore store, int candidateEntry, float luceneScore) {
+        // if lucene is highly matched, let's start at threshold
+        float overallScore = luceneScore > 1 ? 0.3f : 0.15f;
+
+        Map<PartType, List<String>> nameParts1 = entry.getNameParts();
+
+        float lastNameSim = calculateSimilarity(nameParts1.get(PartType.LAST_NAME),
+                store.getTokens(candidateEntry, PartType.LAST_NAME));
+        float firstNameSim = calculateSimilarity(nameParts1.get(PartType.FIRST_NAME),
+                store.getTokens(candidateEntry, PartType.FIRST_NAME));
+        float orgNameSim = calculateSimilarity(nameParts1.get(PartType.ORG_NAME),
+                store.getTokens(candidateEntry, PartType.ORG_NAME));
+
+        if (orgNameSim > -1) {
+            if (orgNameSim < 0.85) {
+                overallScore = overallScore - 0.2f;
+            }
+
+            return overallScore + (orgNameSim * 0.5f);
+        }
+        // give a boost if first and last name the same
+        if (lastNameSim >= 0.9 && firstNameSim == 1) {
+            overallScore = overallScore + 0.3f;
+        }
+        // if last name is not the same, penalize
+        if (lastNameSim < 0.85 || firstNameSim < 0.7) {
+            overallScore = overallScore - 0.2f;
+        }
+        return overallScore * (lastNameSim * 0.5f + firstNameSim * 0.5f);
+    }
+
+    /**
+     * Cheap upper bound of the name score that only uses token lengths and
+     * common prefixes.
+     */
+    public float upperBound(EntryFeatures entry, CandidateStore store, int candidateEntry, float luceneScore) {
+        float startScore = luceneScore > 1 ? 0.3f : 0.15f;
+
+        Map<PartType, List<String>> nameParts1 = entry.getNameParts();
+        float orgNameSim = similarityUpperBound(nameParts1.get(PartType.ORG_NAME),
+                store.getTokens(candidateEntry, PartType.ORG_NAME));
+        if (orgNameSim > -1) {
+            return orgNameSim < 0.85 ? startScore - 0.2f + orgNameSim * 0.5f : startScore + orgNameSim * 0.5f;
+        }
+
+        float lastNameSim = similarityUpperBound(nameParts1.get(PartType.LAST_NAME),
+                store.getTokens(candidateEntry, PartType.LAST_NAME));
+        float firstNameSim = similarityUpperBound(nameParts1.get(PartType.FIRST_NAME),
+                store.getTokens(candidateEntry, PartType.FIRST_NAME));
+
+        // the name score is factor * (last * 0.5 + first * 0.5); both the factor
+        // and the similarities are only known to lie within an interval, so the
+        // maximum is found at one of the interval corners
+        float minFactor = startScore - 0.2f;
+        float maxFactor = startScore;
+        if (lastNameSim >= 0.9 && firstNameSim == 1) {
+            maxFactor = startScore + 0.3f;
+        } else if (lastNameSim < 0.85 || firstNameSim < 0.7) {
+            maxFactor = minFactor;
+        }
+        float maxSim = lastNameSim * 0.5f + firstNameSim * 0.5f;
+        float minSim = (lastNameSim > -1 ? 0 : -1) * 0.5f + (firstNameSim > -1 ? 0 : -1) * 0.5f;
+
+        return Math.max(Math.max(maxFactor * maxSim, maxFactor * minSim),
+                Math.max(minFactor * maxSim, minFactor * minSim));
+    }
+
+    /**
+     * Upper bound of {@link #calculateSimilarity(List, List)}. Each name is
+     * matched at most once, so only the first min(n1, n2) names are averaged.
+     */
+    private float similarityUpperBound(List<String> names1, List<String> names2) {
+        if (names1.isEmpty() || names2.isEmpty()) {
+            return -1;
+        }
+        int nrOfNames = Math.min(names1.size(), names2.size());
+        float listSim = 0;
+        for (int i = 0; i < nrOfNames; i++) {
+            float sim = 0;
+            for (String name2 : names2) {
+                sim = Math.max(sim, jaroWinklerUpperBound(names1.get(i).trim(), name2.trim()));
+            }
+            listSim += sim;
+        }
+        return listSim / nrOfNames;
+    }
+
+    /**
+     * Jaro-Winkler can at most match as many characters as the shorter string
+     * has, which bounds the Jaro similarity by (2 + min / max) / 3. The Winkler
+     * boost only depends on the common prefix, which is cheap to compute.
+     */
+    private float jaroWinklerUpperBound(String name1, String name2) {
+        int length1 = name1.length();
+        int length2 = name2.length();
+        if (length1 == 0 || length2 == 0) {
+            return name1.equals(name2) ? 1 : 0;
+        }
+        double jaro = (2 + Math.min(length1, length2) / (double) Math.max(length1, length2)) / 3;
+        if (jaro < 0.7) {
+            return (float) jaro;
+        }
+        int prefix = 0;
+        while (prefix < 4 && prefix < length1 && prefix < length2 && name1.charAt(prefix) == name2.charAt(prefix)) {
+            prefix++;
+        }
+        return (float) (jaro + 0.1 * prefix * (1 - jaro));
+    }
+
+    private float calculateSimilarity(List<String> names1, List<String> names2) {
+        if (names1.isEmpty() || names2.isEmpty()) {
+            return -1;
+        }
+        float listSim = 0;
+        float matchedNames = 0;
+        for (String name1 : names1) {
+            double sim = -1;
+            int idx = 0;
+            int matchIdx = 0;
+            for (String name2 : names2) {
+                double jSim = jSimilarity.apply(name1.trim(), name2.trim());
+                if (jSim > sim) {
+                    sim = jSim;
+                    matchIdx = idx;
+                }
+                idx++;
+            }
+            listSim += sim;
+            if (names2.size() > matchIdx) {
+                names2.remove(matchIdx);
+            }
+            matchedNames++;
+            if (names2.isEmpty()) {
+                break;
+            }
+        }
+
+        return listSim / matchedNames;
+    }
+}
@@ -0,0 +1,102 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+import edu.asu.diging.rcn.match.engine.core.service.CandidateRetriever;
+import edu.asu.diging.rcn.match.engine.core.service.CandidateSearcher;
+import edu.asu.diging.rcn.match.engine.core.service.PartType;
+import edu.asu.diging.rcn.match.engine.core.store.Candidate;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateCollector;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+import edu.asu.diging.rcn.match.engine.core.store.EntryFeatures;
+import edu.asu.diging.rcn.match.engine.core.store.NgramIndex;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
+
+/**
+ * Finds candidates in an in-memory trigram index of the candidate store
+ * instead of the shared search index. Unlike fuzzy queries, which are limited
+ * to an edit distance of 2, the index finds names by the share of trigrams
+ * they have in common with a name part.
+ */
+@Component
+@PropertySource("classpath:/config.properties")
+public class NgramCandidateRetriever implements CandidateRetriever {
+
+    public static final String NAME = "ngram";
+
+    /**
+     * Shares of common trigrams are scaled by this factor, so that candidates
+     * sharing more than half of the trigrams of a part get the same start
+     * score in name scoring as strong Lucene hits.
+     */
+    private final float SCORE_FACTOR = 2f;
+
+    @Value("${_ngram_min_similarity}")
+    private float minSimilarity;
+
+    @Value("${_ngram_top_k}")
+    private int topK;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * The index is built by the first searcher of a store, all searchers of
+     * the store share it.
+     */
+    @Override
+    public CandidateSearcher createSearcher(CandidateStore store) {
+        NgramIndex index = store.getNgramIndex();
+        return (features, baseDatasetId) -> findCandidates(store, index, features, baseDatasetId);
+    }
+
+    private List<Candidate> findCandidates(CandidateStore store, NgramIndex index, RecordFeatures features,
+            String baseDatasetId) {
+        CandidateCollector candidates = new CandidateCollector();
+        List<EntryFeatures> entries = features.getEntries();
+        for (int entryIdx = 0; entryIdx < entries.size(); entryIdx++) {
+            EntryFeatures entry = entries.get(entryIdx);
+            for (EntryFeatures.Part part : entry.getParts()) {
+                if (part.getType() == PartType.FIRST_NAME || part.getValue() == null || part.getValue().isEmpty()) {
+                    continue;
+                }
+
+                List<String> ngrams = new ArrayList<>();
+                for (String token : part.getValue().split(" ")) {
+                    for (String ngram : NgramIndex.getNgrams(token)) {
+                        if (!ngrams.contains(ngram)) {
+                            ngrams.add(ngram);
+                        }
+                    }
+                }
+                if (ngrams.isEmpty()) {
+                    continue;
+                }
+
+                int minOverlap = (int) Math.ceil(minSimilarity * ngrams.size());
+                NgramIndex.Hits hits = index.search(ngrams, minOverlap, topK);
+                for (int hit = 0; hit < hits.size(); hit++) {
+                    int recordEntry = hits.getEntry(hit);
+                    int record = index.getRecord(recordEntry);
+                    if (store.getDatasetId(record).equals(baseDatasetId)
+                            && store.getRecordId(record).compareTo(features.getRecordId()) <= 0) {
+                        continue;
+                    }
+                    if (!store.hasMatchingPart(recordEntry, part.getType(), part.getLocalType())) {
+                        continue;
+                    }
+                    float score = SCORE_FACTOR * hits.getOverlap(hit) / ngrams.size();
+                    candidates.add(entryIdx, record, recordEntry, score);
+                }
+            }
+        }
+        return candidates.getCandidates();
+    }
+}
@@ -36,14 +36,16 @@ public class NlpScorerImpl implements NlpScorer {
      */
     @Override
     public float calculateKeywordSimilarity(String text1, String text2) {
-        
-        List<String> significantWords = getWordVector(text1);
-        List<String> significantWords2 = getWordVector(text2);
-        Collections.sort(significantWords);
-        Collections.sort(significantWords2);
+        return calculateKeywordSimilarity(getKeywords(text1), getKeywords(text2));
+    }
 
-        String sigWords1 = String.join(" ", significantWords);
-        String sigWords2 = String.join(" ", significantWords2);
+    /* (non-Javadoc)
+     * @see edu.asu.diging.rcn.match.engine.core.service.NlpScorer#calculateKeywordSimilarity(java.util.List, java.util.List)
+     */
+    @Override
+    public float calculateKeywordSimilarity(List<String> keywords1, List<String> keywords2) {
+        String sigWords1 = String.join(" ", keywords1);
+        String sigWords2 = String.join(" ", keywords2);
 
         LongestCommonSubsequence lcs = new LongestCommonSubsequence();
         double lcsDist = lcs.distance(sigWords1, sigWords2);
@@ -54,6 +56,16 @@ public class NlpScorerImpl implements NlpScorer {
         // normalize by longest text
         return sigWords1.length() > sigWords2.length() ? (float)lcsDist/(float)sigWords1.length() : (float)lcsDist/(float)sigWords2.length();
     }
+
+    /**
+     * Returns the sorted significant words (nouns and named entities) of a text.
+     */
+    @Override
+    public List<String> getKeywords(String text) {
+        List<String> significantWords = getWordVector(text);
+        Collections.sort(significantWords);
+        return significantWords;
+    }
     
     private List<String> getWordVector(String text) {
         CoreDocument document = new CoreDocument(text);
@@ -0,0 +1,249 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs items through a sequence of stages. Stages are connected by bounded
+ * queues and each stage has its own worker threads, so stages doing I/O and
+ * stages doing CPU work overlap and a full queue slows down the stages before
+ * it. Items are put into the pipeline by the thread that owns it.
+ *
+ * If a worker fails, the pipeline is stopped: the remaining items are still
+ * passed through all queues, so that no thread blocks, but they are not
+ * processed anymore. The failure is thrown by {@link #close()}. Workers are
+ * never interrupted.
+ */
+public class Pipeline<T> {
+
+    /**
+     * Processes the items of one stage. Every worker thread gets its own
+     * worker, so workers can hold state that can't be shared between threads.
+     */
+    public interface Worker<T> {
+
+        void process(T item);
+
+        default void close() {
+        }
+    }
+
+    private static final Object END = new Object();
+
+    private final String name;
+    private final int queueSize;
+    private final List<Stage> stages = new ArrayList<>();
+
+    private final Object inFlightLock = new Object();
+    private long inFlight;
+
+    private volatile RuntimeException failure;
+    private boolean started;
+
+    public Pipeline(String name, int queueSize) {
+        this.name = name;
+        this.queueSize = queueSize;
+    }
+
+    public Pipeline<T> addStage(String stageName, int threads, Supplier<Worker<T>> workers) {
+        if (started) {
+            throw new IllegalStateException("Pipeline has already been started.");
+        }
+        stages.add(new Stage(stageName, Math.max(threads, 1), workers));
+        return this;
+    }
+
+    public void start() {
+        started = true;
+        for (int i = 0; i < stages.size(); i++) {
+            stages.get(i).start(i + 1 < stages.size() ? stages.get(i + 1).input : null);
+        }
+    }
+
+    /**
+     * Puts an item into the first stage, waiting for room if its queue is
+     * full. Returns false if the pipeline has been stopped.
+     */
+    public boolean put(T item) {
+        if (failure != null) {
+            return false;
+        }
+        synchronized (inFlightLock) {
+            inFlight++;
+        }
+        enqueue(stages.get(0).input, item);
+        return true;
+    }
+
+    /**
+     * Waits until all items put so far have passed the last stage.
+     */
+    public void drain() {
+        synchronized (inFlightLock) {
+            while (inFlight > 0) {
+                try {
+                    inFlightLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops processing items. Only the first cause is kept.
+     */
+    public synchronized void stop(RuntimeException cause) {
+        if (failure == null) {
+            failure = cause;
+        }
+    }
+
+    public boolean isStopped() {
+        return failure != null;
+    }
+
+    /**
+     * Signals that no more items will be put, waits for all workers to finish
+     * and throws the exception that stopped the pipeline, if any.
+     */
+    public void close() {
+        enqueue(stages.get(0).input, END);
+        for (Stage stage : stages) {
+            stage.join();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void done() {
+        synchronized (inFlightLock) {
+            inFlight--;
+            if (inFlight == 0) {
+                inFlightLock.notifyAll();
+            }
+        }
+    }
+
+    private static void enqueue(BlockingQueue<Object> queue, Object item) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(item);
+                break;
+            } catch (InterruptedException e) {
+                // items can't be dropped, otherwise the stages would never end
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class Stage {
+
+        private final String stageName;
+        private final int threads;
+        private final Supplier<Worker<T>> workers;
+        private final BlockingQueue<Object> input = new ArrayBlockingQueue<>(queueSize);
+        private final AtomicInteger running = new AtomicInteger();
+        private final List<Thread> workerThreads = new ArrayList<>();
+
+        Stage(String stageName, int threads, Supplier<Worker<T>> workers) {
+            this.stageName = stageName;
+            this.threads = threads;
+            this.workers = workers;
+        }
+
+        void start(BlockingQueue<Object> output) {
+            running.set(threads);
+            for (int i = 0; i < threads; i++) {
+                Thread thread = new Thread(() -> run(output), name + "-" + stageName + "-" + i);
+                workerThreads.add(thread);
+                thread.start();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void run(BlockingQueue<Object> output) {
+            Worker<T> worker = null;
+            try {
+                worker = workers.get();
+                while (true) {
+                    Object item = take();
+                    if (item == END) {
+                        // the other workers of this stage need to see the end as well
+                        enqueue(input, END);
+                        break;
+                    }
+                    if (failure == null) {
+                        try {
+                            worker.process((T) item);
+                        } catch (RuntimeException e) {
+                            stop(e);
+                        }
+                    }
+                    if (output != null) {
+                        enqueue(output, item);
+                    } else {
+                        done();
+                    }
+                }
+            } catch (RuntimeException e) {
+                stop(e);
+                // keep passing items on so that earlier stages don't block
+                drainInput(output);
+            } finally {
+                if (worker != null) {
+                    worker.close();
+                }
+                if (running.decrementAndGet() == 0 && output != null) {
+                    enqueue(output, END);
+                }
+            }
+        }
+
+        private void drainInput(BlockingQueue<Object> output) {
+            while (true) {
+                Object item = take();
+                if (item == END) {
+                    enqueue(input, END);
+                    return;
+                }
+                if (output != null) {
+                    enqueue(output, item);
+                } else {
+                    done();
+                }
+            }
+        }
+
+        private Object take() {
+            while (true) {
+                try {
+                    return input.take();
+                } catch (InterruptedException e) {
+                    // workers only end at the end of the input
+                }
+            }
+        }
+
+        void join() {
+            for (Thread thread : workerThreads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.util.Collections;
+import java.util.List;
+
+import edu.asu.diging.rcn.match.engine.core.store.Candidate;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
+
+/**
+ * A base record on its way through the match pipeline. Each stage adds its
+ * output: retrieval the candidates to score, scoring the matches to store.
+ */
+public class PipelineRecord {
+
+    private final RecordFeatures features;
+    private float threshold;
+    private List<Candidate> candidates = Collections.emptyList();
+    private List<MatchResult> results = Collections.emptyList();
+
+    public PipelineRecord(RecordFeatures features) {
+        this.features = features;
+    }
+
+    public RecordFeatures getFeatures() {
+        return features;
+    }
+
+    /**
+     * Returns the match threshold the candidates were selected with, matches
+     * are stored with the same threshold.
+     */
+    public float getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(float threshold) {
+        this.threshold = threshold;
+    }
+
+    public List<Candidate> getCandidates() {
+        return candidates;
+    }
+
+    public void setCandidates(List<Candidate> candidates) {
+        this.candidates = candidates;
+    }
+
+    public List<MatchResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<MatchResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,131 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.asu.diging.eaccpf.model.match.Match;
+import edu.asu.diging.rcn.match.engine.core.export.MatchResultWriter;
+import edu.asu.diging.rcn.match.engine.core.kafka.JobCompletedMessage;
+import edu.asu.diging.rcn.match.engine.core.service.ResultExporter;
+
+/**
+ * Writes the matches of every job to an export file in the configured export
+ * directory (see {@link MatchResultWriter} for the format) and announces
+ * finished jobs on the job completed topic. Export errors are logged but
+ * don't fail the job, the matches are still stored in the database.
+ */
+@Service
+@PropertySource("classpath:/config.properties")
+public class ResultExporterImpl implements ResultExporter {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final String FILE_EXTENSION = ".rcnm";
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Value("${_export_dir}")
+    private String exportDir;
+
+    @Value("${_export_block_size}")
+    private int blockSize;
+
+    @Value("${_job_completed_topic}")
+    private String jobCompletedTopic;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Creates the export file of a job if exports are enabled. Resumed jobs
+     * keep writing to the file they started.
+     */
+    @Override
+    public void open(MatchJob job) {
+        if (exportDir == null || exportDir.trim().isEmpty() || job.getResultWriter() != null) {
+            return;
+        }
+        File dir = new File(exportDir.trim());
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            logger.error("Could not create export directory " + dir + ".");
+            return;
+        }
+        try {
+            job.setResultWriter(new MatchResultWriter(new File(dir, job.getJobId() + FILE_EXTENSION), blockSize,
+                    job.getJobId(), job.getBaseDataset(), job.getMatchDatasets(), job.getInitiator()));
+        } catch (IOException e) {
+            logger.error("Could not create export file for job " + job.getJobId() + ".", e);
+        }
+    }
+
+    @Override
+    public void add(MatchJob job, Match match) {
+        MatchResultWriter writer = job.getResultWriter();
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.add(match.getBaseRecordId(), job.getMatchDatasets().indexOf(match.getCompareDatasetId()),
+                    match.getCompareRecordId(), match.getLuceneScore(), match.getNameScore(),
+                    match.getDateScore(), match.getBioScore(), match.getOverallScore());
+        } catch (IOException e) {
+            logger.error("Could not export match of job " + job.getJobId() + ", stopping export.", e);
+            closeQuietly(job, writer);
+        }
+    }
+
+    /**
+     * Completes the export file of a finished job and sends the job completed
+     * message.
+     */
+    @Override
+    public void finish(MatchJob job) {
+        JobCompletedMessage msg = new JobCompletedMessage();
+        msg.setJobId(job.getJobId());
+        msg.setStatus(job.getStatus().name());
+        msg.setBaseDataset(job.getBaseDataset());
+        msg.setMatchDatasets(job.getMatchDatasets());
+        msg.setInitiator(job.getInitiator());
+        msg.setFinishedOn(job.getFinishedOn() != null ? job.getFinishedOn().toString() : null);
+        msg.setProcessedRecords(job.getProcessedRecords());
+        msg.setStoredMatches(job.getStoredMatches());
+
+        MatchResultWriter writer = job.getResultWriter();
+        if (writer != null) {
+            try {
+                writer.finish(job.getStatus().name());
+                msg.setExportFile(writer.getFile().getAbsolutePath());
+                msg.setExportedMatches(writer.getRows());
+            } catch (IOException e) {
+                logger.error("Could not complete export file of job " + job.getJobId() + ".", e);
+                closeQuietly(job, writer);
+            }
+        }
+
+        try {
+            kafkaTemplate.send(jobCompletedTopic, job.getJobId(), mapper.writeValueAsString(msg));
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize job completed message.", e);
+        }
+    }
+
+    private void closeQuietly(MatchJob job, MatchResultWriter writer) {
+        job.setResultWriter(null);
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.warn("Could not close export file " + writer.getFile() + ".", e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+import edu.asu.diging.rcn.match.engine.core.store.EntryFeatures;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
+
+/**
+ * Everything a {@link edu.asu.diging.rcn.match.engine.core.service.ScoringStage}
+ * needs to score a base name entry against a name entry in a candidate store.
+ */
+public class ScoringContext {
+
+    private final RecordFeatures record;
+    private final EntryFeatures entry;
+    private final CandidateStore store;
+    private int candidate;
+    private int candidateEntry;
+    private float luceneScore;
+    private CancellationToken token;
+    private JobThresholds thresholds;
+
+    public ScoringContext(RecordFeatures record, EntryFeatures entry, CandidateStore store, int candidate,
+            int candidateEntry, float luceneScore) {
+        this.record = record;
+        this.entry = entry;
+        this.store = store;
+        this.candidate = candidate;
+        this.candidateEntry = candidateEntry;
+        this.luceneScore = luceneScore;
+    }
+
+    /**
+     * Points this context at another candidate, so that one context can be
+     * reused when scoring a base entry against many candidates.
+     */
+    public void setCandidate(int candidate, int candidateEntry, float luceneScore) {
+        this.candidate = candidate;
+        this.candidateEntry = candidateEntry;
+        this.luceneScore = luceneScore;
+    }
+
+    public RecordFeatures getRecord() {
+        return record;
+    }
+
+    public EntryFeatures getEntry() {
+        return entry;
+    }
+
+    public CandidateStore getStore() {
+        return store;
+    }
+
+    public int getCandidate() {
+        return candidate;
+    }
+
+    public int getCandidateEntry() {
+        return candidateEntry;
+    }
+
+    public float getLuceneScore() {
+        return luceneScore;
+    }
+
+    /**
+     * Returns the token of the job the scoring is done for, or null if it
+     * can't be stopped.
+     */
+    public CancellationToken getToken() {
+        return token;
+    }
+
+    public void setToken(CancellationToken token) {
+        this.token = token;
+    }
+
+    /**
+     * Returns the thresholds of the job the scoring is done for, or null if
+     * the default thresholds apply.
+     */
+    public JobThresholds getThresholds() {
+        return thresholds;
+    }
+
+    public void setThresholds(JobThresholds thresholds) {
+        this.thresholds = thresholds;
+    }
+}
@@ -0,0 +1,164 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.persistence.EntityManager;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.hibernate.search.indexes.IndexReaderAccessor;
+import org.hibernate.search.jpa.FullTextEntityManager;
+import org.hibernate.search.jpa.Search;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.stereotype.Service;
+
+import edu.asu.diging.eaccpf.model.impl.RecordImpl;
+import edu.asu.diging.rcn.match.engine.core.data.DatasetRecordRepository;
+import edu.asu.diging.rcn.match.engine.core.search.SearchMappingFactory;
+import edu.asu.diging.rcn.match.engine.core.service.SearchIndexManager;
+
+/**
+ * Makes sure the record index exists and is up to date when the engine
+ * starts. The index is only rebuilt if it is missing, was built with another
+ * version of the search mapping or does not contain as many records as the
+ * database.
+ */
+@Service
+@PropertySource("classpath:/config.properties")
+public class SearchIndexManagerImpl implements SearchIndexManager {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final String VERSION_FILE = "mapping.version";
+
+    @Autowired
+    private JpaTransactionManager transactionManager;
+
+    @Autowired
+    private DatasetRecordRepository datasetRecordRepo;
+
+    @Value("${_hibernate_index_base}")
+    private String indexBase;
+
+    @Value("${_hibernate_index_on_startup}")
+    private boolean checkOnStartup;
+
+    @Value("${_hibernate_index_threads}")
+    private int indexThreads;
+
+    @Value("${_hibernate_index_batch_size}")
+    private int indexBatchSize;
+
+    private final AtomicBoolean checked = new AtomicBoolean();
+
+    @EventListener
+    public void onStartup(ContextRefreshedEvent event) {
+        // the event is published by the root and the servlet context
+        if (!checkOnStartup || !checked.compareAndSet(false, true)) {
+            return;
+        }
+        if (isIndexCurrent()) {
+            logger.info("Search index is up to date.");
+            return;
+        }
+        try {
+            reindex();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Indexing was interrupted.", e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * edu.asu.diging.rcn.match.engine.core.service.SearchIndexManager#isIndexCurrent()
+     */
+    @Override
+    public boolean isIndexCurrent() {
+        Path indexDir = Paths.get(indexBase, RecordImpl.class.getName());
+        try (Directory directory = FSDirectory.open(indexDir)) {
+            if (!DirectoryReader.indexExists(directory)) {
+                logger.info("There is no search index yet.");
+                return false;
+            }
+        } catch (IOException e) {
+            logger.warn("Could not open search index.", e);
+            return false;
+        }
+
+        Path versionFile = Paths.get(indexBase, VERSION_FILE);
+        try {
+            String version = Files.exists(versionFile)
+                    ? new String(Files.readAllBytes(versionFile), StandardCharsets.UTF_8).trim()
+                    : null;
+            if (!String.valueOf(SearchMappingFactory.MAPPING_VERSION).equals(version)) {
+                logger.info("Search index was built with mapping version " + version + ".");
+                return false;
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read mapping version.", e);
+            return false;
+        }
+
+        long records = datasetRecordRepo.countAll();
+        long documents;
+        EntityManager em = transactionManager.getEntityManagerFactory().createEntityManager();
+        try {
+            FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(em);
+            IndexReaderAccessor accessor = fullTextEntityManager.getSearchFactory().getIndexReaderAccessor();
+            IndexReader reader = accessor.open(RecordImpl.class);
+            try {
+                documents = reader.numDocs();
+            } finally {
+                accessor.close(reader);
+            }
+        } finally {
+            em.close();
+        }
+        if (documents != records) {
+            logger.info("Search index contains " + documents + " of " + records + " records.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Rebuilds the record index with the configured number of loader threads
+     * and batch size. Blocks until indexing is done.
+     */
+    @Override
+    public void reindex() throws InterruptedException {
+        logger.info("Rebuilding search index.");
+        EntityManager em = transactionManager.getEntityManagerFactory().createEntityManager();
+        try {
+            Search.getFullTextEntityManager(em).createIndexer(RecordImpl.class).threadsToLoadObjects(indexThreads)
+                    .batchSizeToLoadObjects(indexBatchSize).startAndWait();
+        } finally {
+            em.close();
+        }
+
+        try {
+            Files.write(Paths.get(indexBase, VERSION_FILE),
+                    String.valueOf(SearchMappingFactory.MAPPING_VERSION).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warn("Could not write mapping version, index will be rebuilt on next start.", e);
+        }
+        logger.info("Done rebuilding search index.");
+    }
+}
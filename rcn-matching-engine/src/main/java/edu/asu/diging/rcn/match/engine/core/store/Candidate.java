@@ -0,0 +1,50 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+/**
+ * A candidate pair found for a base record: the index of the base record's
+ * name entry and the record and name entry indexes of the candidate in a
+ * {@link CandidateStore}.
+ */
+public class Candidate {
+
+    private final int entry;
+    private final int record;
+    private final int recordEntry;
+    private float luceneScore;
+    private float upperBound;
+
+    public Candidate(int entry, int record, int recordEntry, float luceneScore) {
+        this.entry = entry;
+        this.record = record;
+        this.recordEntry = recordEntry;
+        this.luceneScore = luceneScore;
+    }
+
+    public int getEntry() {
+        return entry;
+    }
+
+    public int getRecord() {
+        return record;
+    }
+
+    public int getRecordEntry() {
+        return recordEntry;
+    }
+
+    public float getLuceneScore() {
+        return luceneScore;
+    }
+
+    public void setLuceneScore(float luceneScore) {
+        this.luceneScore = luceneScore;
+    }
+
+    public float getUpperBound() {
+        return upperBound;
+    }
+
+    public void setUpperBound(float upperBound) {
+        this.upperBound = upperBound;
+    }
+}
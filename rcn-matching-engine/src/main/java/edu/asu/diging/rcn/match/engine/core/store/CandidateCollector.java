@@ -0,0 +1,33 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the candidates found for a base record. Each pair of name entries
+ * is only kept once, with the highest score it was found with.
+ */
+public class CandidateCollector {
+
+    private final Map<Long, Candidate> candidates = new LinkedHashMap<>();
+
+    public void add(int entry, int record, int recordEntry, float score) {
+        long key = ((long) entry << 32) | recordEntry;
+        Candidate candidate = candidates.get(key);
+        if (candidate == null) {
+            candidates.put(key, new Candidate(entry, record, recordEntry, score));
+        } else if (candidate.getLuceneScore() < score) {
+            candidate.setLuceneScore(score);
+        }
+    }
+
+    public void add(Candidate candidate) {
+        add(candidate.getEntry(), candidate.getRecord(), candidate.getRecordEntry(), candidate.getLuceneScore());
+    }
+
+    public List<Candidate> getCandidates() {
+        return new ArrayList<>(candidates.values());
+    }
+}
@@ -0,0 +1,362 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import edu.asu.diging.rcn.match.engine.core.service.PartType;
+
+/**
+ * Columnar, primitive-array representation of the records of one or more
+ * compare datasets. Only data needed for scoring is kept: interned name tokens per
+ * {@link PartType}, year ranges and biography keyword ids, plus the display
+ * names of name entries for storing matches. Records, name
+ * entries, tokens and year ranges are referenced by int index; the offset
+ * arrays map a record to its entries and year ranges and an entry to its
+ * tokens and parts. The dataset of a record is kept as a small int column,
+ * so that one store can serve a job matching against several datasets.
+ *
+ * Apart from the lazily computed biography keywords, a store is immutable once
+ * built and can be shared between threads.
+ */
+public class CandidateStore {
+
+    private static final PartType[] PART_TYPES = PartType.values();
+
+    private final String[] datasetIds;
+    private final TokenDictionary dictionary;
+
+    private final String[] recordIds;
+    private final int[] recordDatasets;
+    private final String[] sortedRecordIds;
+    private final int[] sortedRecordIndexes;
+
+    private final int[] recordEntryOffsets;
+    private final int[] entryTokenOffsets;
+    private final int[] tokenIds;
+    private final byte[] tokenTypes;
+    private final int[] entryPartOffsets;
+    private final byte[] partTypes;
+    private final int[] partLocalTypes;
+    private final String[] primaryNames;
+    private final String[] secondaryNames;
+
+    private final int[] recordYearOffsets;
+    private final int[] yearsFrom;
+    private final int[] yearsTo;
+
+    private final BitSet biographies;
+    private final AtomicReferenceArray<int[]> bioKeywords;
+
+    private NgramIndex ngramIndex;
+    private YearIndex yearIndex;
+    private volatile MinHashIndex bioIndex;
+
+    private CandidateStore(Builder builder) {
+        this.datasetIds = builder.datasetIds.toArray(new String[builder.datasetIds.size()]);
+        this.dictionary = builder.dictionary;
+        this.recordIds = builder.recordIds.toArray(new String[builder.recordIds.size()]);
+        this.recordDatasets = builder.recordDatasets.toArray();
+        this.recordEntryOffsets = builder.recordEntryOffsets.toArray();
+        this.entryTokenOffsets = builder.entryTokenOffsets.toArray();
+        this.tokenIds = builder.tokenIds.toArray();
+        this.tokenTypes = builder.tokenTypes.toByteArray();
+        this.entryPartOffsets = builder.entryPartOffsets.toArray();
+        this.partTypes = builder.partTypes.toByteArray();
+        this.partLocalTypes = builder.partLocalTypes.toArray();
+        this.primaryNames = builder.primaryNames.toArray(new String[builder.primaryNames.size()]);
+        this.secondaryNames = builder.secondaryNames.toArray(new String[builder.secondaryNames.size()]);
+        this.recordYearOffsets = builder.recordYearOffsets.toArray();
+        this.yearsFrom = builder.yearsFrom.toArray();
+        this.yearsTo = builder.yearsTo.toArray();
+        this.biographies = builder.biographies;
+        this.bioKeywords = new AtomicReferenceArray<>(recordIds.length);
+
+        Integer[] order = new Integer[recordIds.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> recordIds[i]));
+        this.sortedRecordIds = new String[order.length];
+        this.sortedRecordIndexes = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedRecordIds[i] = recordIds[order[i]];
+            sortedRecordIndexes[i] = order[i];
+        }
+    }
+
+    /**
+     * Returns the ids of all datasets with records in this store, in the order
+     * they were added.
+     */
+    public List<String> getDatasetIds() {
+        return Arrays.asList(datasetIds);
+    }
+
+    public String getDatasetId(int record) {
+        return datasetIds[recordDatasets[record]];
+    }
+
+    /**
+     * Returns the position of a record's dataset in {@link #getDatasetIds()}.
+     */
+    public int getDatasetIndex(int record) {
+        return recordDatasets[record];
+    }
+
+    /**
+     * Returns the trigram index of the names in this store. It is built the
+     * first time it is needed.
+     */
+    public synchronized NgramIndex getNgramIndex() {
+        if (ngramIndex == null) {
+            ngramIndex = NgramIndex.build(this);
+        }
+        return ngramIndex;
+    }
+
+    /**
+     * Returns the index of the existence dates in this store. It is built the
+     * first time it is needed.
+     */
+    public synchronized YearIndex getYearIndex() {
+        if (yearIndex == null) {
+            yearIndex = YearIndex.build(this);
+        }
+        return yearIndex;
+    }
+
+    /**
+     * Returns the biography index of this store, or null if it has not been
+     * built.
+     */
+    public MinHashIndex getBioIndex() {
+        return bioIndex;
+    }
+
+    public void setBioIndex(MinHashIndex bioIndex) {
+        this.bioIndex = bioIndex;
+    }
+
+    public TokenDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public int size() {
+        return recordIds.length;
+    }
+
+    /**
+     * Returns the index of the record with the given id or -1 if the record is
+     * not part of this store.
+     */
+    public int indexOf(String recordId) {
+        int pos = Arrays.binarySearch(sortedRecordIds, recordId);
+        return pos >= 0 ? sortedRecordIndexes[pos] : -1;
+    }
+
+    public String getRecordId(int record) {
+        return recordIds[record];
+    }
+
+    public int getEntryStart(int record) {
+        return recordEntryOffsets[record];
+    }
+
+    public int getEntryEnd(int record) {
+        return recordEntryOffsets[record + 1];
+    }
+
+    /**
+     * Checks if the given entry has a name part of the same type as a part of
+     * the given type and local type.
+     */
+    public boolean hasMatchingPart(int entry, PartType type, String localType) {
+        int localTypeId = dictionary.lookup(localType);
+        for (int i = entryPartOffsets[entry]; i < entryPartOffsets[entry + 1]; i++) {
+            if (type != PartType.OTHER && partTypes[i] == type.ordinal()) {
+                return true;
+            }
+            if (localTypeId != TokenDictionary.NOT_FOUND && partLocalTypes[i] == localTypeId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<String> getTokens(int entry, PartType type) {
+        List<String> tokens = new ArrayList<>();
+        for (int i = entryTokenOffsets[entry]; i < entryTokenOffsets[entry + 1]; i++) {
+            if (tokenTypes[i] == type.ordinal()) {
+                tokens.add(dictionary.get(tokenIds[i]));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the display name of an entry, as it is stored with master
+     * matches.
+     */
+    public String getPrimaryName(int entry) {
+        return primaryNames[entry];
+    }
+
+    public String getSecondaryName(int entry) {
+        return secondaryNames[entry];
+    }
+
+    public int getTokenStart(int entry) {
+        return entryTokenOffsets[entry];
+    }
+
+    public int getTokenEnd(int entry) {
+        return entryTokenOffsets[entry + 1];
+    }
+
+    public int getTokenId(int token) {
+        return tokenIds[token];
+    }
+
+    public PartType getTokenType(int token) {
+        return PART_TYPES[tokenTypes[token]];
+    }
+
+    public int getYearStart(int record) {
+        return recordYearOffsets[record];
+    }
+
+    public int getYearEnd(int record) {
+        return recordYearOffsets[record + 1];
+    }
+
+    public int getYearFrom(int year) {
+        return yearsFrom[year];
+    }
+
+    public int getYearTo(int year) {
+        return yearsTo[year];
+    }
+
+    /**
+     * Returns true if the record has a biography long enough to be scored.
+     */
+    public boolean hasBiography(int record) {
+        return biographies.get(record);
+    }
+
+    /**
+     * Returns the biography keyword ids of a record or null if they have not
+     * been computed yet.
+     */
+    public int[] getBioKeywords(int record) {
+        return bioKeywords.get(record);
+    }
+
+    /**
+     * Keywords are computed on demand by the scoring threads. Two threads might
+     * compute the keywords of the same record, in which case both will store
+     * the same ids. The ids are published safely, a thread that reads them
+     * sees the complete array.
+     */
+    public void setBioKeywords(int record, int[] keywordIds) {
+        bioKeywords.set(record, keywordIds);
+    }
+
+    public int[] internKeywords(List<String> keywords) {
+        int[] ids = new int[keywords.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = dictionary.intern(keywords.get(i));
+        }
+        return ids;
+    }
+
+    public List<String> getKeywords(int[] keywordIds) {
+        List<String> keywords = new ArrayList<>(keywordIds.length);
+        for (int id : keywordIds) {
+            keywords.add(dictionary.get(id));
+        }
+        return keywords;
+    }
+
+    public static class Builder {
+
+        private final List<String> datasetIds = new ArrayList<>();
+        private final TokenDictionary dictionary = new TokenDictionary();
+
+        private final List<String> recordIds = new ArrayList<>();
+        private final IntList recordDatasets = new IntList();
+        private final IntList recordEntryOffsets = new IntList();
+        private final IntList entryTokenOffsets = new IntList();
+        private final IntList tokenIds = new IntList();
+        private final IntList tokenTypes = new IntList();
+        private final IntList entryPartOffsets = new IntList();
+        private final IntList partTypes = new IntList();
+        private final IntList partLocalTypes = new IntList();
+        private final List<String> primaryNames = new ArrayList<>();
+        private final List<String> secondaryNames = new ArrayList<>();
+        private final IntList recordYearOffsets = new IntList();
+        private final IntList yearsFrom = new IntList();
+        private final IntList yearsTo = new IntList();
+        private final BitSet biographies = new BitSet();
+
+        /**
+         * Adds a record and returns its index in the store.
+         */
+        public int addRecord(RecordFeatures record) {
+            int idx = recordIds.size();
+            recordIds.add(record.getRecordId());
+            int dataset = datasetIds.indexOf(record.getDatasetId());
+            if (dataset < 0) {
+                dataset = datasetIds.size();
+                datasetIds.add(record.getDatasetId());
+            }
+            recordDatasets.add(dataset);
+            recordEntryOffsets.add(entryTokenOffsets.size());
+            for (EntryFeatures entry : record.getEntries()) {
+                entryTokenOffsets.add(tokenIds.size());
+                entryPartOffsets.add(partTypes.size());
+                primaryNames.add(entry.getPrimaryName());
+                secondaryNames.add(entry.getSecondaryName());
+                for (PartType type : PART_TYPES) {
+                    if (type == PartType.OTHER || entry.getNameParts().get(type) == null) {
+                        continue;
+                    }
+                    for (String token : entry.getNameParts().get(type)) {
+                        tokenIds.add(dictionary.intern(token));
+                        tokenTypes.add(type.ordinal());
+                    }
+                }
+                for (EntryFeatures.Part part : entry.getParts()) {
+                    partTypes.add(part.getType().ordinal());
+                    partLocalTypes.add(part.getLocalType() != null ? dictionary.intern(part.getLocalType())
+                            : TokenDictionary.NOT_FOUND);
+                }
+            }
+            recordYearOffsets.add(yearsFrom.size());
+            int[] from = record.getYearsFrom();
+            int[] to = record.getYearsTo();
+            for (int i = 0; i < from.length; i++) {
+                yearsFrom.add(from[i]);
+                yearsTo.add(to[i]);
+            }
+            if (record.getBiography() != null) {
+                biographies.set(idx);
+            }
+            return idx;
+        }
+
+        public CandidateStore build() {
+            // closing offsets so that entries and year ranges of the last record can be
+            // looked up the same way as all others
+            recordEntryOffsets.add(entryTokenOffsets.size());
+            entryTokenOffsets.add(tokenIds.size());
+            entryPartOffsets.add(partTypes.size());
+            recordYearOffsets.add(yearsFrom.size());
+            return new CandidateStore(this);
+        }
+    }
+}
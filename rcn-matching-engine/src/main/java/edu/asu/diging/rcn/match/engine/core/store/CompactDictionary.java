@@ -0,0 +1,80 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import java.util.Arrays;
+
+/**
+ * Interns strings to dense int ids like {@link TokenDictionary}, but keeps the
+ * ids in an open addressing table of ints instead of a map, so that an entry
+ * takes about 12 bytes besides the string itself. Meant for dictionaries with
+ * millions of entries, such as the record ids of a clustering. Not thread
+ * safe.
+ */
+public class CompactDictionary {
+
+    public static final int NOT_FOUND = -1;
+
+    private String[] tokens = new String[1024];
+    // id + 1 of the token in each slot, 0 for empty slots; at most half full
+    private int[] slots = new int[2048];
+    private int size;
+
+    public int intern(String token) {
+        int slot = findSlot(token);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+        if (size == tokens.length) {
+            tokens = Arrays.copyOf(tokens, tokens.length * 2);
+        }
+        tokens[size] = token;
+        slots[slot] = ++size;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    public int lookup(String token) {
+        if (token == null) {
+            return NOT_FOUND;
+        }
+        return slots[findSlot(token)] - 1;
+    }
+
+    public String get(int id) {
+        return tokens[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the slot of a token or the empty slot it would go into.
+     */
+    private int findSlot(String token) {
+        int mask = slots.length - 1;
+        int slot = hash(token) & mask;
+        while (slots[slot] != 0 && !tokens[slots[slot] - 1].equals(token)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(tokens[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int hash(String token) {
+        int h = token.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,82 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import edu.asu.diging.rcn.match.engine.core.service.PartType;
+
+/**
+ * Scoring relevant data of a single name entry. Instances do not hold on to
+ * any entity, so they can be used after the persistence context is gone.
+ */
+public class EntryFeatures {
+
+    private final String scriptCode;
+    private final Map<PartType, List<String>> nameParts;
+    private final List<Part> parts = new ArrayList<>();
+    private String primaryName;
+    private String secondaryName;
+
+    public EntryFeatures(String scriptCode, Map<PartType, List<String>> nameParts) {
+        this.scriptCode = scriptCode;
+        this.nameParts = nameParts;
+    }
+
+    public void addPart(String value, PartType type, String localType) {
+        parts.add(new Part(value, type, localType));
+    }
+
+    public String getScriptCode() {
+        return scriptCode;
+    }
+
+    public Map<PartType, List<String>> getNameParts() {
+        return nameParts;
+    }
+
+    public List<Part> getParts() {
+        return parts;
+    }
+
+    public String getPrimaryName() {
+        return primaryName;
+    }
+
+    public void setPrimaryName(String primaryName) {
+        this.primaryName = primaryName;
+    }
+
+    public String getSecondaryName() {
+        return secondaryName;
+    }
+
+    public void setSecondaryName(String secondaryName) {
+        this.secondaryName = secondaryName;
+    }
+
+    public static class Part {
+
+        private final String value;
+        private final PartType type;
+        private final String localType;
+
+        public Part(String value, PartType type, String localType) {
+            this.value = value;
+            this.type = type;
+            this.localType = localType;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public PartType getType() {
+            return type;
+        }
+
+        public String getLocalType() {
+            return localType;
+        }
+    }
+}
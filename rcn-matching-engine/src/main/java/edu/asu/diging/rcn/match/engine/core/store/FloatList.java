@@ -0,0 +1,43 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive floats.
+ */
+public class FloatList {
+
+    private float[] values;
+    private int size;
+
+    public FloatList() {
+        this(16);
+    }
+
+    public FloatList(int capacity) {
+        values = new float[Math.max(capacity, 1)];
+    }
+
+    public void add(float value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[size++] = value;
+    }
+
+    public float get(int idx) {
+        return values[idx];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public float[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
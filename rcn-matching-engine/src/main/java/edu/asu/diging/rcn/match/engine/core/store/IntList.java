@@ -0,0 +1,55 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints used while building the columnar stores.
+ */
+public class IntList {
+
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[size++] = value;
+    }
+
+    public int get(int idx) {
+        return values[idx];
+    }
+
+    public void set(int idx, int value) {
+        values[idx] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,43 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive longs.
+ */
+public class LongList {
+
+    private long[] values;
+    private int size;
+
+    public LongList() {
+        this(16);
+    }
+
+    public LongList(int capacity) {
+        values = new long[Math.max(capacity, 1)];
+    }
+
+    public void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[size++] = value;
+    }
+
+    public long get(int idx) {
+        return values[idx];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
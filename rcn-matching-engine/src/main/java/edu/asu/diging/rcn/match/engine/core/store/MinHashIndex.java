@@ -0,0 +1,168 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntFunction;
+
+/**
+ * Locality sensitive hashing index of the biography keywords of the records
+ * in a {@link CandidateStore}. Every record with keywords gets a MinHash
+ * signature of {@link #HASHES} values; the share of equal values of two
+ * signatures estimates the Jaccard similarity of the two keyword sets. The
+ * signatures are split into {@link #BANDS} bands, and records are found if at
+ * least one band of their signature is equal to the query's, so that records
+ * with similar keywords are found without comparing against every record.
+ *
+ * The index is immutable once built and can be shared between threads.
+ */
+public class MinHashIndex {
+
+    public static final int BANDS = 16;
+    public static final int ROWS = 4;
+    public static final int HASHES = BANDS * ROWS;
+
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < HASHES; i++) {
+            seed = mix(seed + i);
+            SEEDS[i] = seed;
+        }
+    }
+
+    private final int[] signatures;
+    private final boolean[] hasSignature;
+    private final long[][] bandKeys;
+    private final int[][] bandRecords;
+
+    private MinHashIndex(int[] signatures, boolean[] hasSignature, long[][] bandKeys, int[][] bandRecords) {
+        this.signatures = signatures;
+        this.hasSignature = hasSignature;
+        this.bandKeys = bandKeys;
+        this.bandRecords = bandRecords;
+    }
+
+    /**
+     * Computes the signature of a set of keywords, or returns null if there
+     * are no keywords.
+     */
+    public static int[] signature(Collection<String> keywords) {
+        if (keywords == null || keywords.isEmpty()) {
+            return null;
+        }
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String keyword : keywords) {
+            long hash = keyword.hashCode();
+            for (int i = 0; i < HASHES; i++) {
+                int value = (int) (mix(hash ^ SEEDS[i]) >>> 33);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Builds the index of the given number of records.
+     *
+     * @param signatures
+     *            returns the signature of a record, or null if it has none
+     */
+    public static MinHashIndex build(int size, IntFunction<int[]> signatures) {
+        int[] allSignatures = new int[size * HASHES];
+        boolean[] hasSignature = new boolean[size];
+        IntList records = new IntList();
+        for (int record = 0; record < size; record++) {
+            int[] signature = signatures.apply(record);
+            if (signature != null) {
+                System.arraycopy(signature, 0, allSignatures, record * HASHES, HASHES);
+                hasSignature[record] = true;
+                records.add(record);
+            }
+        }
+
+        long[][] bandKeys = new long[BANDS][];
+        int[][] bandRecords = new int[BANDS][];
+        for (int band = 0; band < BANDS; band++) {
+            long[] keys = new long[records.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = bandKey(allSignatures, records.get(i) * HASHES, band);
+            }
+            Integer[] order = new Integer[keys.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (i1, i2) -> Long.compare(keys[i1], keys[i2]));
+            bandKeys[band] = new long[order.length];
+            bandRecords[band] = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                bandKeys[band][i] = keys[order[i]];
+                bandRecords[band][i] = records.get(order[i]);
+            }
+        }
+        return new MinHashIndex(allSignatures, hasSignature, bandKeys, bandRecords);
+    }
+
+    /**
+     * Returns all records that share at least one band with the given
+     * signature. Records can be returned more than once.
+     */
+    public IntList query(int[] signature) {
+        IntList result = new IntList();
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(signature, 0, band);
+            long[] keys = bandKeys[band];
+            int pos = Arrays.binarySearch(keys, key);
+            if (pos < 0) {
+                continue;
+            }
+            // binary search finds any of the equal keys
+            while (pos > 0 && keys[pos - 1] == key) {
+                pos--;
+            }
+            for (; pos < keys.length && keys[pos] == key; pos++) {
+                result.add(bandRecords[band][pos]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of the keywords of the given signature
+     * and those of a record, or returns 0 if the record has no keywords.
+     */
+    public float estimateSimilarity(int[] signature, int record) {
+        if (!hasSignature[record]) {
+            return 0;
+        }
+        int offset = record * HASHES;
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (signatures[offset + i] == signature[i]) {
+                equal++;
+            }
+        }
+        return (float) equal / HASHES;
+    }
+
+    private static long bandKey(int[] signature, int offset, int band) {
+        long key = 0;
+        for (int row = 0; row < ROWS; row++) {
+            key = mix(key * 31 + signature[offset + band * ROWS + row]);
+        }
+        return key;
+    }
+
+    private static long mix(long value) {
+        // finalizer of MurmurHash3
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB93FE1A85355L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,201 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory inverted index of the character trigrams of the name tokens in a
+ * {@link CandidateStore}. Tokens are padded with a space on both sides, so
+ * that short tokens have trigrams as well and the start and end of a token
+ * weigh more. Each trigram maps to a sorted posting list of the name entries
+ * containing it.
+ *
+ * Searches return the entries sharing the most trigrams with a query. Only
+ * entries that share at least a minimum number of trigrams can be returned,
+ * so only the shortest posting lists have to be scanned to find candidates
+ * (prefix filtering); the remaining lists are only probed for these
+ * candidates, and probing stops as soon as a candidate can't reach the
+ * minimum or the current top K anymore.
+ *
+ * The index is immutable once built and can be shared between threads.
+ */
+public class NgramIndex {
+
+    public static final int N = 3;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final TokenDictionary ngrams;
+    private final int[][] postings;
+    private final int[] entryRecords;
+
+    private NgramIndex(TokenDictionary ngrams, int[][] postings, int[] entryRecords) {
+        this.ngrams = ngrams;
+        this.postings = postings;
+        this.entryRecords = entryRecords;
+    }
+
+    /**
+     * Indexes the name tokens of all entries in a store.
+     */
+    public static NgramIndex build(CandidateStore store) {
+        TokenDictionary ngrams = new TokenDictionary();
+        List<IntList> lists = new ArrayList<>();
+        IntList entryRecords = new IntList();
+        for (int record = 0; record < store.size(); record++) {
+            for (int entry = store.getEntryStart(record); entry < store.getEntryEnd(record); entry++) {
+                entryRecords.add(record);
+                for (int token = store.getTokenStart(entry); token < store.getTokenEnd(entry); token++) {
+                    for (String ngram : getNgrams(store.getDictionary().get(store.getTokenId(token)))) {
+                        int id = ngrams.intern(ngram);
+                        if (id == lists.size()) {
+                            lists.add(new IntList(4));
+                        }
+                        IntList list = lists.get(id);
+                        // entries are added in order, so a trigram repeated within an entry is
+                        // always the last element
+                        if (list.size() == 0 || list.get(list.size() - 1) != entry) {
+                            list.add(entry);
+                        }
+                    }
+                }
+            }
+        }
+
+        int[][] postings = new int[lists.size()][];
+        for (int i = 0; i < postings.length; i++) {
+            postings[i] = lists.get(i).toArray();
+        }
+        return new NgramIndex(ngrams, postings, entryRecords.toArray());
+    }
+
+    /**
+     * Returns the distinct, padded trigrams of a token.
+     */
+    public static List<String> getNgrams(String token) {
+        List<String> result = new ArrayList<>();
+        if (token == null || token.isEmpty()) {
+            return result;
+        }
+        String padded = " " + token + " ";
+        for (int i = 0; i + N <= padded.length(); i++) {
+            String ngram = padded.substring(i, i + N);
+            if (!result.contains(ngram)) {
+                result.add(ngram);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the record of an entry found by {@link #search}.
+     */
+    public int getRecord(int entry) {
+        return entryRecords[entry];
+    }
+
+    /**
+     * Finds the entries sharing the most trigrams with the given query
+     * trigrams.
+     *
+     * @param queryNgrams
+     *            distinct trigrams of the query
+     * @param minOverlap
+     *            min number of trigrams an entry has to share with the query
+     * @param topK
+     *            max number of entries returned
+     * @return the matching entries and the number of trigrams they share with
+     *         the query, most overlap first
+     */
+    public Hits search(List<String> queryNgrams, int minOverlap, int topK) {
+        int queryCount = queryNgrams.size();
+        minOverlap = Math.max(minOverlap, 1);
+        if (queryCount < minOverlap || topK <= 0) {
+            return new Hits(EMPTY, EMPTY);
+        }
+
+        int[][] lists = new int[queryCount][];
+        for (int i = 0; i < queryCount; i++) {
+            int id = ngrams.lookup(queryNgrams.get(i));
+            lists[i] = id != TokenDictionary.NOT_FOUND ? postings[id] : EMPTY;
+        }
+        // rare trigrams first, they have the shortest lists
+        Arrays.sort(lists, (l1, l2) -> Integer.compare(l1.length, l2.length));
+
+        // an entry sharing minOverlap trigrams has to be in at least one of these lists
+        int prefix = queryCount - minOverlap + 1;
+        IntList found = new IntList();
+        for (int i = 0; i < prefix; i++) {
+            for (int entry : lists[i]) {
+                found.add(entry);
+            }
+        }
+        int[] candidates = found.toArray();
+        Arrays.sort(candidates);
+
+        // min heap of (overlap << 32 | entry) holding the best entries so far
+        PriorityQueue<Long> best = new PriorityQueue<>();
+        int idx = 0;
+        while (idx < candidates.length) {
+            int entry = candidates[idx];
+            int overlap = 0;
+            while (idx < candidates.length && candidates[idx] == entry) {
+                overlap++;
+                idx++;
+            }
+            int required = minOverlap;
+            if (best.size() == topK) {
+                required = Math.max(required, (int) (best.peek() >>> 32) + 1);
+            }
+            for (int i = prefix; i < queryCount; i++) {
+                if (overlap + (queryCount - i) < required) {
+                    break;
+                }
+                if (Arrays.binarySearch(lists[i], entry) >= 0) {
+                    overlap++;
+                }
+            }
+            if (overlap < required) {
+                continue;
+            }
+            best.add(((long) overlap << 32) | entry);
+            if (best.size() > topK) {
+                best.poll();
+            }
+        }
+
+        int[] entries = new int[best.size()];
+        int[] overlaps = new int[best.size()];
+        for (int i = entries.length - 1; i >= 0; i--) {
+            long hit = best.poll();
+            entries[i] = (int) hit;
+            overlaps[i] = (int) (hit >>> 32);
+        }
+        return new Hits(entries, overlaps);
+    }
+
+    public static class Hits {
+
+        private final int[] entries;
+        private final int[] overlaps;
+
+        Hits(int[] entries, int[] overlaps) {
+            this.entries = entries;
+            this.overlaps = overlaps;
+        }
+
+        public int size() {
+            return entries.length;
+        }
+
+        public int getEntry(int hit) {
+            return entries[hit];
+        }
+
+        public int getOverlap(int hit) {
+            return overlaps[hit];
+        }
+    }
+}
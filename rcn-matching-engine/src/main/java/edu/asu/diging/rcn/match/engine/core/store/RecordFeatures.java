@@ -0,0 +1,62 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import java.util.List;
+
+/**
+ * Scoring relevant data of a single record: its name entries, the year ranges
+ * found in its exist dates and identity relations, and its biography.
+ * Biography keywords are expensive to compute and are only filled in once
+ * they are needed.
+ */
+public class RecordFeatures {
+
+    private final String recordId;
+    private final String datasetId;
+    private final List<EntryFeatures> entries;
+    private final int[] yearsFrom;
+    private final int[] yearsTo;
+    private final String biography;
+    private volatile List<String> bioKeywords;
+
+    public RecordFeatures(String recordId, String datasetId, List<EntryFeatures> entries, int[] yearsFrom,
+            int[] yearsTo, String biography) {
+        this.recordId = recordId;
+        this.datasetId = datasetId;
+        this.entries = entries;
+        this.yearsFrom = yearsFrom;
+        this.yearsTo = yearsTo;
+        this.biography = biography;
+    }
+
+    public String getRecordId() {
+        return recordId;
+    }
+
+    public String getDatasetId() {
+        return datasetId;
+    }
+
+    public List<EntryFeatures> getEntries() {
+        return entries;
+    }
+
+    public int[] getYearsFrom() {
+        return yearsFrom;
+    }
+
+    public int[] getYearsTo() {
+        return yearsTo;
+    }
+
+    public String getBiography() {
+        return biography;
+    }
+
+    public List<String> getBioKeywords() {
+        return bioKeywords;
+    }
+
+    public void setBioKeywords(List<String> bioKeywords) {
+        this.bioKeywords = bioKeywords;
+    }
+}
@@ -0,0 +1,104 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-width histogram of scores. Scores are counted into bins of equal
+ * width between 0 and a max score; scores below 0 go into the first bin and
+ * scores at or above the max into the last one. A score of exactly -1 means
+ * the score is unknown and is only counted as such.
+ *
+ * Counting is lock free, so one histogram can be filled by several threads
+ * and read while it is filled.
+ */
+public class ScoreHistogram {
+
+    public static final float UNKNOWN = -1f;
+
+    private final float maxScore;
+    private final AtomicLongArray bins;
+    private final AtomicLong unknown = new AtomicLong();
+
+    public ScoreHistogram(int binCount, float maxScore) {
+        this.maxScore = maxScore;
+        this.bins = new AtomicLongArray(binCount);
+    }
+
+    public void add(float score) {
+        if (score == UNKNOWN) {
+            unknown.incrementAndGet();
+            return;
+        }
+        bins.incrementAndGet(getBin(score));
+    }
+
+    public int getBin(float score) {
+        int bin = (int) (score / maxScore * bins.length());
+        return Math.min(Math.max(bin, 0), bins.length() - 1);
+    }
+
+    public int getBinCount() {
+        return bins.length();
+    }
+
+    public float getBinWidth() {
+        return maxScore / bins.length();
+    }
+
+    public float getMaxScore() {
+        return maxScore;
+    }
+
+    public long[] getCounts() {
+        long[] counts = new long[bins.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = bins.get(i);
+        }
+        return counts;
+    }
+
+    public long getUnknown() {
+        return unknown.get();
+    }
+
+    /**
+     * Returns the number of known scores counted so far.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < bins.length(); i++) {
+            count += bins.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of scores in bins that lie completely at or above the
+     * given score.
+     */
+    public long countAbove(float score) {
+        // small tolerance so that bin boundaries computed by multiplication map to their bin
+        int start = Math.max((int) Math.ceil(score / getBinWidth() - 0.001), 0);
+        long count = 0;
+        for (int i = start; i < bins.length(); i++) {
+            count += bins.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the lowest bin boundary above which at most the given number of
+     * scores were counted.
+     */
+    public float getScoreWithCountAbove(long maxCount) {
+        long count = 0;
+        for (int i = bins.length() - 1; i >= 0; i--) {
+            count += bins.get(i);
+            if (count > maxCount) {
+                return (i + 1) * getBinWidth();
+            }
+        }
+        return 0;
+    }
+}
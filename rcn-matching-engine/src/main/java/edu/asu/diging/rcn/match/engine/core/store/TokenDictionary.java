@@ -0,0 +1,55 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns strings (name tokens, local types, biography keywords) to dense int
+ * ids so that the columnar stores only have to hold primitive arrays.
+ */
+public class TokenDictionary {
+
+    public static final int NOT_FOUND = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] tokens = new String[1024];
+    private int size;
+
+    public int intern(String token) {
+        Integer id = ids.get(token);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(token);
+            if (id != null) {
+                return id;
+            }
+            String[] current = tokens;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[size] = token;
+            tokens = current;
+            ids.put(token, size);
+            return size++;
+        }
+    }
+
+    public int lookup(String token) {
+        if (token == null) {
+            return NOT_FOUND;
+        }
+        Integer id = ids.get(token);
+        return id != null ? id : NOT_FOUND;
+    }
+
+    public String get(int id) {
+        return tokens[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,80 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import java.util.Arrays;
+
+/**
+ * Disjoint sets over the ints 0 to size - 1, backed by two int arrays. Sets
+ * are merged by size and paths are halved on lookup, so that both operations
+ * are effectively constant time even for tens of millions of elements.
+ */
+public class UnionFind {
+
+    private int[] parents;
+    private int[] sizes;
+    private int size;
+
+    public UnionFind() {
+        this(16);
+    }
+
+    public UnionFind(int capacity) {
+        parents = new int[Math.max(capacity, 1)];
+        sizes = new int[parents.length];
+    }
+
+    /**
+     * Adds elements until there are at least the given number of elements.
+     * New elements are in a set of their own.
+     */
+    public void ensureSize(int newSize) {
+        if (newSize > parents.length) {
+            int capacity = Math.max(newSize, parents.length * 2);
+            parents = Arrays.copyOf(parents, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+        for (int i = size; i < newSize; i++) {
+            parents[i] = i;
+            sizes[i] = 1;
+        }
+        size = Math.max(size, newSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int find(int element) {
+        while (parents[element] != element) {
+            parents[element] = parents[parents[element]];
+            element = parents[element];
+        }
+        return element;
+    }
+
+    /**
+     * Merges the sets of the two elements and returns the root of the merged
+     * set.
+     */
+    public int union(int element1, int element2) {
+        int root1 = find(element1);
+        int root2 = find(element2);
+        if (root1 == root2) {
+            return root1;
+        }
+        if (sizes[root1] < sizes[root2]) {
+            int tmp = root1;
+            root1 = root2;
+            root2 = tmp;
+        }
+        parents[root2] = root1;
+        sizes[root1] += sizes[root2];
+        return root1;
+    }
+
+    /**
+     * Returns the size of the set the element is in.
+     */
+    public int getSetSize(int element) {
+        return sizes[find(element)];
+    }
+}
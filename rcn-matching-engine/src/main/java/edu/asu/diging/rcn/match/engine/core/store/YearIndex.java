@@ -0,0 +1,98 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import java.util.Arrays;
+
+/**
+ * Sorted index of the start and end years of the year ranges in a
+ * {@link CandidateStore}. It finds the records whose existence dates could
+ * get a date score above 0 for a base record: date scoring only gives points
+ * if a start year or an end year of the two records is at most one year
+ * apart, so all other records with year ranges get a date score of 0, which
+ * caps their overall score at 0.2.
+ *
+ * Years that could not be parsed never match in date scoring and are not
+ * indexed. The index is immutable once built and can be shared between
+ * threads.
+ */
+public class YearIndex {
+
+    private static final int UNPARSED = Integer.MAX_VALUE;
+
+    private final long[] fromYears;
+    private final long[] toYears;
+
+    private YearIndex(long[] fromYears, long[] toYears) {
+        this.fromYears = fromYears;
+        this.toYears = toYears;
+    }
+
+    /**
+     * Indexes the year ranges of all records in a store.
+     */
+    public static YearIndex build(CandidateStore store) {
+        LongList from = new LongList();
+        LongList to = new LongList();
+        for (int record = 0; record < store.size(); record++) {
+            for (int year = store.getYearStart(record); year < store.getYearEnd(record); year++) {
+                if (store.getYearFrom(year) != UNPARSED) {
+                    from.add(key(store.getYearFrom(year), record));
+                }
+                if (store.getYearTo(year) != UNPARSED) {
+                    to.add(key(store.getYearTo(year), record));
+                }
+            }
+        }
+        long[] fromYears = from.toArray();
+        long[] toYears = to.toArray();
+        Arrays.sort(fromYears);
+        Arrays.sort(toYears);
+        return new YearIndex(fromYears, toYears);
+    }
+
+    /**
+     * Returns the sorted, distinct records with a start or end year at most
+     * one year apart from a start or end year of the given ranges.
+     */
+    public int[] findOverlapping(int[] yearsFrom, int[] yearsTo) {
+        IntList records = new IntList();
+        for (int i = 0; i < yearsFrom.length; i++) {
+            collect(fromYears, yearsFrom[i], records);
+            collect(toYears, yearsTo[i], records);
+        }
+        int[] result = records.toArray();
+        Arrays.sort(result);
+        int size = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (size == 0 || result[size - 1] != result[i]) {
+                result[size++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static void collect(long[] years, int year, IntList records) {
+        int pos = lowerBound(years, key((long) year - 1, 0));
+        long end = key((long) year + 2, 0);
+        for (; pos < years.length && years[pos] < end; pos++) {
+            records.add((int) years[pos]);
+        }
+    }
+
+    private static int lowerBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long key(long year, int record) {
+        return (year << 32) | (record & 0xFFFFFFFFL);
+    }
+}
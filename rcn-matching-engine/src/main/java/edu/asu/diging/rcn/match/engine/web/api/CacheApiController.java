@@ -0,0 +1,42 @@
+package edu.asu.diging.rcn.match.engine.web.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.asu.diging.rcn.match.engine.core.service.DatasetCacheManager;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheApiController {
+
+    @Autowired
+    private DatasetCacheManager cacheManager;
+
+    /**
+     * Returns how often jobs found their candidate store and the entities
+     * they read in the cache.
+     */
+    @GetMapping
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("cachedStores", cacheManager.getCachedStores());
+        status.put("storeHits", cacheManager.getStoreHits());
+        status.put("storeMisses", cacheManager.getStoreMisses());
+        status.put("storeHitRatio", getRatio(cacheManager.getStoreHits(), cacheManager.getStoreMisses()));
+        status.put("entityCacheEnabled", cacheManager.isEntityCacheEnabled());
+        status.put("entityHits", cacheManager.getEntityHits());
+        status.put("entityMisses", cacheManager.getEntityMisses());
+        status.put("entityPuts", cacheManager.getEntityPuts());
+        status.put("entityHitRatio", getRatio(cacheManager.getEntityHits(), cacheManager.getEntityMisses()));
+        return status;
+    }
+
+    private double getRatio(long hits, long misses) {
+        return hits + misses > 0 ? (double) hits / (hits + misses) : 0;
+    }
+}
@@ -0,0 +1,98 @@
+package edu.asu.diging.rcn.match.engine.web.api;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.asu.diging.rcn.match.engine.core.data.RecordClusterRepository;
+import edu.asu.diging.rcn.match.engine.core.model.impl.RecordClusterImpl;
+import edu.asu.diging.rcn.match.engine.core.service.ClusterManager;
+import edu.asu.diging.rcn.match.engine.core.service.impl.ClusteringRun;
+
+@RestController
+@RequestMapping("/api/clusters")
+public class ClusterApiController {
+
+    private final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private ClusterManager clusterManager;
+
+    @Autowired
+    private RecordClusterRepository clusterRepo;
+
+    /**
+     * Starts clustering the matches of the given jobs.
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> cluster(@RequestParam("jobId") List<String> jobIds) {
+        return new ResponseEntity<>(toStatus(clusterManager.cluster(jobIds)), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/{clusteringId}")
+    public ResponseEntity<Map<String, Object>> status(@PathVariable("clusteringId") String clusteringId) {
+        ClusteringRun run = clusterManager.getRun(clusteringId);
+        if (run == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(toStatus(run), HttpStatus.OK);
+    }
+
+    @GetMapping("/{clusteringId}/records/{recordId}")
+    public ResponseEntity<Map<String, Object>> recordCluster(@PathVariable("clusteringId") String clusteringId,
+            @PathVariable("recordId") String recordId) {
+        RecordClusterImpl cluster = clusterRepo.findFirstByClusteringIdAndRecordId(clusteringId, recordId);
+        if (cluster == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(toResult(cluster), HttpStatus.OK);
+    }
+
+    @GetMapping("/{clusteringId}/clusters/{clusterId}")
+    public List<Map<String, Object>> members(@PathVariable("clusteringId") String clusteringId,
+            @PathVariable("clusterId") String clusterId,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        Page<RecordClusterImpl> members = clusterRepo.findByClusteringIdAndClusterId(clusteringId, clusterId,
+                PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE), Sort.by("recordId")));
+        List<Map<String, Object>> results = new ArrayList<>();
+        members.forEach(member -> results.add(toResult(member)));
+        return results;
+    }
+
+    private Map<String, Object> toStatus(ClusteringRun run) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("clusteringId", run.getClusteringId());
+        status.put("jobIds", run.getJobIds());
+        status.put("status", run.getStatus());
+        status.put("submittedOn", run.getSubmittedOn().toString());
+        status.put("finishedOn", run.getFinishedOn() != null ? run.getFinishedOn().toString() : null);
+        status.put("edges", run.getEdges());
+        status.put("records", run.getRecords());
+        status.put("clusters", run.getClusters());
+        status.put("errorMessage", run.getErrorMessage());
+        return status;
+    }
+
+    private Map<String, Object> toResult(RecordClusterImpl cluster) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("clusterId", cluster.getClusterId());
+        result.put("recordId", cluster.getRecordId());
+        result.put("datasetId", cluster.getDatasetId());
+        return result;
+    }
+}
@@ -0,0 +1,33 @@
+package edu.asu.diging.rcn.match.engine.web.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.asu.diging.rcn.match.engine.core.service.IndexUpdater;
+
+@RestController
+@RequestMapping("/api/index")
+public class IndexApiController {
+
+    @Autowired
+    private IndexUpdater indexUpdater;
+
+    /**
+     * Returns how far the search index is behind the imported records.
+     */
+    @GetMapping
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pendingUpdates", indexUpdater.getPendingUpdates());
+        status.put("lagMillis", indexUpdater.getLag());
+        status.put("indexedRecords", indexUpdater.getIndexedRecords());
+        status.put("failedUpdates", indexUpdater.getFailedUpdates());
+        status.put("lastCommit", indexUpdater.getLastCommit() != null ? indexUpdater.getLastCommit().toString() : null);
+        return status;
+    }
+}
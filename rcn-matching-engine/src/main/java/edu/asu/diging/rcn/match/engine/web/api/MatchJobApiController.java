@@ -0,0 +1,417 @@
+package edu.asu.diging.rcn.match.engine.web.api;
+
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.asu.diging.eaccpf.model.match.Match;
+import edu.asu.diging.eaccpf.model.match.impl.MatchImpl;
+import edu.asu.diging.rcn.match.engine.core.data.JobMatchRepository;
+import edu.asu.diging.rcn.match.engine.core.service.JobEstimator;
+import edu.asu.diging.rcn.match.engine.core.service.JobPriority;
+import edu.asu.diging.rcn.match.engine.core.service.JobStatus;
+import edu.asu.diging.rcn.match.engine.core.service.MatchJobManager;
+import edu.asu.diging.rcn.match.engine.core.service.impl.JobEstimate;
+import edu.asu.diging.rcn.match.engine.core.service.impl.JobPreview;
+import edu.asu.diging.rcn.match.engine.core.service.impl.JobThresholds;
+import edu.asu.diging.rcn.match.engine.core.service.impl.MatchJob;
+import edu.asu.diging.rcn.match.engine.core.service.impl.MatchResult;
+import edu.asu.diging.rcn.match.engine.core.store.ScoreHistogram;
+
+/**
+ * Lets clients submit match jobs, follow their progress and fetch their
+ * results without going through Kafka. Jobs run asynchronously, all requests
+ * return immediately.
+ */
+@RestController
+@RequestMapping("/api/jobs")
+public class MatchJobApiController {
+
+    private final int MAX_PAGE_SIZE = 1000;
+
+    private final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private MatchJobManager jobManager;
+
+    @Autowired
+    private JobMatchRepository jobMatchRepo;
+
+    @Autowired
+    private JobEstimator estimator;
+
+    @Autowired
+    private ThreadPoolTaskExecutor estimateExecutor;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Submits a job on behalf of the authenticated user. Only admins can
+     * submit interactive jobs, since they preempt the jobs of other users.
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submit(@RequestParam("baseDataset") String baseDataset,
+            @RequestParam("matchDataset") List<String> matchDatasets,
+            @RequestParam(value = "priority", required = false) JobPriority priority,
+            @RequestParam(value = "maxMinutes", required = false) Long maxMinutes,
+            @RequestParam(value = "maxCandidates", required = false) Long maxCandidates,
+            @RequestParam(value = "symmetric", defaultValue = "false") boolean symmetric,
+            Authentication authentication) {
+        if (priority == JobPriority.INTERACTIVE && !isAdmin(authentication)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        String initiator = authentication.getName();
+        MatchJob job;
+        if (priority == null && maxMinutes == null && maxCandidates == null && !symmetric
+                && matchDatasets.size() == 1) {
+            job = jobManager.submit(baseDataset, matchDatasets.get(0), initiator);
+        } else {
+            job = jobManager.submit(baseDataset, matchDatasets, initiator, priority,
+                    maxMinutes != null ? TimeUnit.MINUTES.toMillis(maxMinutes) : 0,
+                    maxCandidates != null ? maxCandidates : 0, symmetric);
+        }
+        if (job.getStatus() == JobStatus.REJECTED) {
+            return new ResponseEntity<>(toStatus(job), HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        return new ResponseEntity<>(toStatus(job), HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Submits a preview job, which scores a random sample of the base records
+     * without storing matches. Its results are returned by
+     * {@link #preview(String)}.
+     */
+    @PostMapping("/preview")
+    public ResponseEntity<Map<String, Object>> submitPreview(@RequestParam("baseDataset") String baseDataset,
+            @RequestParam("matchDataset") List<String> matchDatasets, Authentication authentication) {
+        MatchJob job = jobManager.preview(baseDataset, matchDatasets, authentication.getName());
+        if (job.getStatus() == JobStatus.REJECTED) {
+            return new ResponseEntity<>(toStatus(job), HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        return new ResponseEntity<>(toStatus(job), HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Estimates the cost of a job without submitting it and returns what
+     * admission control would do with it. Estimates run on a small pool of
+     * their own; if it is busy, the request is answered with 503.
+     */
+    @GetMapping("/estimate")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> estimate(
+            @RequestParam("baseDataset") String baseDataset,
+            @RequestParam("matchDataset") List<String> matchDatasets) {
+        try {
+            return CompletableFuture.supplyAsync(() -> new ResponseEntity<>(
+                    toEstimate(estimator.estimate(baseDataset, matchDatasets)), HttpStatus.OK), estimateExecutor);
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
+        }
+    }
+
+    /**
+     * Lists the jobs of the authenticated user, or all jobs for admins.
+     */
+    @GetMapping
+    public List<Map<String, Object>> list(Authentication authentication) {
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (MatchJob job : jobManager.getJobs()) {
+            if (canAccess(job.getInitiator(), authentication)) {
+                jobs.add(toStatus(job));
+            }
+        }
+        return jobs;
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> status(@PathVariable("jobId") String jobId,
+            Authentication authentication) {
+        MatchJob job = jobManager.getJob(jobId);
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        if (!canAccess(job.getInitiator(), authentication)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        return new ResponseEntity<>(toStatus(job), HttpStatus.OK);
+    }
+
+    /**
+     * Cancels a job.
+     */
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancel(@PathVariable("jobId") String jobId,
+            Authentication authentication) {
+        MatchJob job = jobManager.getJob(jobId);
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        if (!canAccess(job.getInitiator(), authentication)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        if (!jobManager.cancel(jobId)) {
+            return new ResponseEntity<>(toStatus(job), HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity<>(toStatus(job), HttpStatus.OK);
+    }
+
+    /**
+     * Returns the histograms of all scores a job has computed so far and the
+     * thresholds it currently uses.
+     */
+    @GetMapping("/{jobId}/scores")
+    public ResponseEntity<Map<String, Object>> scores(@PathVariable("jobId") String jobId,
+            Authentication authentication) {
+        MatchJob job = jobManager.getJob(jobId);
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        if (!canAccess(job.getInitiator(), authentication)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jobId", jobId);
+        JobThresholds thresholds = job.getThresholds();
+        if (thresholds != null) {
+            result.put("matchThreshold", thresholds.getMatchThreshold());
+            result.put("bioNameThreshold", thresholds.getBioNameThreshold());
+            result.put("candidateTopK", thresholds.getCandidateTopK());
+            result.put("targetMatchesPerRecord", thresholds.getTargetMatchesPerRecord());
+            result.put("name", toHistogram(thresholds.getNameScores()));
+            result.put("date", toHistogram(thresholds.getDateScores()));
+            result.put("bio", toHistogram(thresholds.getBioScores()));
+            result.put("overall", toHistogram(thresholds.getOverallScores()));
+        }
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * Returns the estimated match rate, score distribution and example
+     * matches of a preview job, based on the records it has scored so far.
+     */
+    @GetMapping("/{jobId}/preview")
+    public ResponseEntity<Map<String, Object>> preview(@PathVariable("jobId") String jobId,
+            Authentication authentication) {
+        MatchJob job = jobManager.getJob(jobId);
+        if (job == null || job.getPreview() == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        if (!canAccess(job.getInitiator(), authentication)) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        JobPreview preview = job.getPreview();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jobId", jobId);
+        result.put("status", job.getStatus());
+        result.put("population", preview.getPopulation());
+        result.put("sampleSize", preview.getSampleSize());
+        result.put("scoredRecords", preview.getScoredRecords());
+        result.put("matchingRecords", preview.getMatchingRecords());
+        result.put("matches", preview.getMatches());
+        result.put("matchRate", preview.getMatchRate());
+        result.put("marginOfError", preview.getMarginOfError());
+        result.put("estimatedMatchingRecords", preview.getEstimatedMatchingRecords());
+        JobThresholds thresholds = job.getThresholds();
+        result.put("overall", thresholds != null ? toHistogram(thresholds.getOverallScores()) : null);
+        List<Map<String, Object>> examples = new ArrayList<>();
+        for (MatchResult example : preview.getExamples()) {
+            Map<String, Object> match = toResult(example.getMatch());
+            match.put("namePart1", example.getNamePart1());
+            match.put("namePart2", example.getNamePart2());
+            match.put("matchedNamePart1", example.getMatchedNamePart1());
+            match.put("matchedNamePart2", example.getMatchedNamePart2());
+            examples.add(match);
+        }
+        result.put("examples", examples);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * Returns one page of the matches a job has stored so far.
+     */
+    @GetMapping("/{jobId}/results")
+    public ResponseEntity<Map<String, Object>> results(@PathVariable("jobId") String jobId,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "100") int size, Authentication authentication) {
+        HttpStatus access = checkResultAccess(jobId, authentication);
+        if (access != HttpStatus.OK) {
+            return new ResponseEntity<>(access);
+        }
+        Page<MatchImpl> matches = jobMatchRepo.findByJobId(jobId,
+                PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE), Sort.by("id")));
+
+        List<Map<String, Object>> content = new ArrayList<>();
+        matches.forEach(match -> content.add(toResult(match)));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("page", matches.getNumber());
+        result.put("size", matches.getSize());
+        result.put("totalElements", matches.getTotalElements());
+        result.put("totalPages", matches.getTotalPages());
+        result.put("content", content);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * Streams all matches of a job as newline delimited JSON. Matches are read
+     * page by page, so memory use does not depend on the size of the job.
+     */
+    @GetMapping(value = "/{jobId}/results/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamResults(@PathVariable("jobId") String jobId,
+            Authentication authentication) {
+        HttpStatus access = checkResultAccess(jobId, authentication);
+        if (access != HttpStatus.OK) {
+            return new ResponseEntity<>(access);
+        }
+        StreamingResponseBody body = (OutputStream out) -> {
+            Pageable request = PageRequest.of(0, MAX_PAGE_SIZE, Sort.by("id"));
+            Page<MatchImpl> matches;
+            do {
+                matches = jobMatchRepo.findByJobId(jobId, request);
+                for (MatchImpl match : matches) {
+                    out.write(mapper.writeValueAsBytes(toResult(match)));
+                    out.write('\n');
+                }
+                out.flush();
+                request = request.next();
+            } while (matches.hasNext());
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    /**
+     * Checks if the results of a job exist and can be read by a user. Jobs
+     * that are no longer kept in memory are looked up by their stored
+     * matches, which record who started the job.
+     */
+    private HttpStatus checkResultAccess(String jobId, Authentication authentication) {
+        String initiator;
+        MatchJob job = jobManager.getJob(jobId);
+        if (job != null) {
+            initiator = job.getInitiator();
+        } else {
+            Match match = jobMatchRepo.findFirstByJobId(jobId);
+            if (match == null) {
+                return HttpStatus.NOT_FOUND;
+            }
+            initiator = match.getInitiator();
+        }
+        return canAccess(initiator, authentication) ? HttpStatus.OK : HttpStatus.FORBIDDEN;
+    }
+
+    /**
+     * Users can only access their own jobs, admins any job.
+     */
+    private boolean canAccess(String initiator, Authentication authentication) {
+        return authentication.getName().equals(initiator) || isAdmin(authentication);
+    }
+
+    private boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    }
+
+    private Map<String, Object> toStatus(MatchJob job) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", job.getJobId());
+        status.put("status", job.getStatus());
+        status.put("priority", job.getPriority());
+        status.put("preview", job.getPreview() != null);
+        status.put("symmetric", job.isSymmetric());
+        status.put("baseDataset", job.getBaseDataset());
+        status.put("matchDataset", job.getMatchDataset());
+        status.put("matchDatasets", job.getMatchDatasets());
+        status.put("initiator", job.getInitiator());
+        status.put("submittedOn", toString(job.getSubmittedOn()));
+        status.put("startedOn", toString(job.getStartedOn()));
+        status.put("finishedOn", toString(job.getFinishedOn()));
+        status.put("totalRecords", job.getTotalRecords());
+        status.put("processedRecords", job.getProcessedRecords());
+        status.put("storedMatches", job.getStoredMatches());
+        status.put("scoredCandidates", job.getToken().getCandidates());
+        status.put("stopReason", job.getToken().getReason());
+        JobThresholds thresholds = job.getThresholds();
+        status.put("matchThreshold", thresholds != null ? thresholds.getMatchThreshold() : null);
+        status.put("candidateTopK", thresholds != null ? thresholds.getCandidateTopK() : null);
+        status.put("exportFile", job.getResultWriter() != null ? job.getResultWriter().getFile().getName() : null);
+        status.put("bioScoringDisabled", job.isBioScoringDisabled());
+        status.put("estimate", job.getEstimate() != null ? toEstimate(job.getEstimate()) : null);
+        status.put("errorMessage", job.getErrorMessage());
+        return status;
+    }
+
+    private Map<String, Object> toEstimate(JobEstimate estimate) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("baseDataset", estimate.getBaseDataset());
+        result.put("matchDatasets", estimate.getMatchDatasets());
+        result.put("baseRecords", estimate.getBaseRecords());
+        result.put("matchRecords", estimate.getMatchRecords());
+        result.put("sampledRecords", estimate.getSampledRecords());
+        result.put("baseBioShare", estimate.getBaseBioShare());
+        result.put("matchBioShare", estimate.getMatchBioShare());
+        result.put("candidatesPerRecord", estimate.getCandidatesPerRecord());
+        result.put("candidatePairs", estimate.getCandidatePairs());
+        result.put("scoredPairs", estimate.getScoredPairs());
+        result.put("nlpCalls", estimate.getNlpCalls());
+        result.put("resultRows", estimate.getResultRows());
+        result.put("storeBytes", estimate.getStoreBytes());
+        result.put("peakMemoryBytes", estimate.getPeakMemoryBytes());
+        result.put("decision", estimate.getDecision());
+        result.put("reason", estimate.getReason());
+        return result;
+    }
+
+    private Map<String, Object> toHistogram(ScoreHistogram histogram) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("binWidth", histogram.getBinWidth());
+        result.put("count", histogram.getCount());
+        result.put("unknown", histogram.getUnknown());
+        result.put("bins", histogram.getCounts());
+        return result;
+    }
+
+    private Map<String, Object> toResult(Match match) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", match.getId());
+        result.put("baseDatasetId", match.getBaseDatasetId());
+        result.put("baseRecordId", match.getBaseRecordId());
+        result.put("compareDatasetId", match.getCompareDatasetId());
+        result.put("compareRecordId", match.getCompareRecordId());
+        result.put("matchedOn", toString(match.getMatchedOn()));
+        result.put("luceneScore", match.getLuceneScore());
+        result.put("nameScore", match.getNameScore());
+        result.put("dateScore", match.getDateScore());
+        result.put("bioScore", match.getBioScore());
+        result.put("overallScore", match.getOverallScore());
+        return result;
+    }
+
+    private String toString(OffsetDateTime date) {
+        return date != null ? date.toString() : null;
+    }
+}
@@ -0,0 +1,174 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.rule.EmbeddedKafkaRule;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.asu.diging.eaccpf.model.match.Match;
+import edu.asu.diging.eaccpf.model.match.impl.MatchImpl;
+import edu.asu.diging.rcn.match.engine.core.kafka.MasterMatchSummary;
+import edu.asu.diging.rcn.match.engine.core.kafka.MatchSummary;
+import edu.asu.diging.rcn.match.engine.core.kafka.RecordMatchesMessage;
+
+public class KafkaResultSinkTest {
+
+    private static final String TOPIC = "results";
+
+    private static final String SYMMETRIC_TOPIC = "results.symmetric";
+
+    @ClassRule
+    public static EmbeddedKafkaRule embeddedKafka = new EmbeddedKafkaRule(1, true, 1, TOPIC, SYMMETRIC_TOPIC);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private DefaultKafkaProducerFactory<String, String> producerFactory;
+
+    private KafkaResultSink sink;
+
+    @Before
+    public void setUp() {
+        Map<String, Object> props = KafkaTestUtils.producerProps(embeddedKafka.getEmbeddedKafka());
+        producerFactory = new DefaultKafkaProducerFactory<>(props, new StringSerializer(), new StringSerializer());
+        sink = new KafkaResultSink();
+        ReflectionTestUtils.setField(sink, "kafkaTemplate", new KafkaTemplate<>(producerFactory));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        producerFactory.destroy();
+    }
+
+    @Test
+    public void testStore() throws Exception {
+        ReflectionTestUtils.setField(sink, "resultsTopic", TOPIC);
+        MatchJob job = new MatchJob("job1", "base", "compare", "user");
+
+        sink.store(job, Arrays.asList(createResult("b1", "c1", 0.8f, "Smith", "John"),
+                createResult("b1", "c2", 0.9f, "Smith", "J.")));
+
+        List<ConsumerRecord<String, String>> records = consume(TOPIC, 1);
+        assertEquals(1, records.size());
+        assertEquals("b1", records.get(0).key());
+
+        RecordMatchesMessage msg = mapper.readValue(records.get(0).value(), RecordMatchesMessage.class);
+        assertEquals("job1", msg.getJobId());
+        assertEquals("user", msg.getInitiator());
+        assertEquals("base", msg.getBaseDatasetId());
+        assertEquals("b1", msg.getBaseRecordId());
+        assertFalse(msg.isReverse());
+        assertEquals(1, msg.getMasterMatches().size());
+
+        MasterMatchSummary master = msg.getMasterMatches().get(0);
+        assertEquals("compare", master.getMatchedDatasetId());
+        assertEquals("c2", master.getMatchedRecordId());
+        assertEquals("Smith", master.getNamePart1());
+        assertEquals("J.", master.getNamePart2());
+        assertEquals(0.9f, master.getScore(), 0.0001f);
+        assertEquals(2, master.getMatches().size());
+        assertEquals("c1", master.getMatches().get(0).getCompareRecordId());
+        assertEquals("c2", master.getMatches().get(1).getCompareRecordId());
+    }
+
+    @Test
+    public void testStoreSymmetric() throws Exception {
+        ReflectionTestUtils.setField(sink, "resultsTopic", SYMMETRIC_TOPIC);
+        MatchJob job = new MatchJob("job2", "base", "compare", "user");
+        job.setSymmetric(true);
+
+        // two name entries of b1 match c1, one matches c2
+        sink.store(job, Arrays.asList(createResult("b1", "c1", 0.7f, "Smith", "John"),
+                createResult("b1", "c1", 0.8f, "Smith", "J."), createResult("b1", "c2", 0.6f, "Smith", "John")));
+
+        List<ConsumerRecord<String, String>> records = consume(SYMMETRIC_TOPIC, 3);
+        assertEquals(3, records.size());
+        Map<String, RecordMatchesMessage> messages = new HashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            messages.put(record.key(), mapper.readValue(record.value(), RecordMatchesMessage.class));
+        }
+
+        RecordMatchesMessage forward = messages.get("b1");
+        assertFalse(forward.isReverse());
+        assertEquals(1, forward.getMasterMatches().size());
+        assertEquals("c1", forward.getMasterMatches().get(0).getMatchedRecordId());
+        assertEquals(3, forward.getMasterMatches().get(0).getMatches().size());
+
+        RecordMatchesMessage reverse = messages.get("c1");
+        assertTrue(reverse.isReverse());
+        assertEquals("compare", reverse.getBaseDatasetId());
+        assertEquals("c1", reverse.getBaseRecordId());
+        assertEquals(1, reverse.getMasterMatches().size());
+        MasterMatchSummary master = reverse.getMasterMatches().get(0);
+        assertEquals("base", master.getMatchedDatasetId());
+        assertEquals("b1", master.getMatchedRecordId());
+        assertEquals("Doe", master.getNamePart1());
+        assertEquals("Jane", master.getNamePart2());
+        assertEquals(0.8f, master.getScore(), 0.0001f);
+        assertEquals(2, master.getMatches().size());
+        for (MatchSummary summary : master.getMatches()) {
+            assertEquals("base", summary.getCompareDatasetId());
+            assertEquals("b1", summary.getCompareRecordId());
+        }
+
+        reverse = messages.get("c2");
+        assertTrue(reverse.isReverse());
+        assertEquals(1, reverse.getMasterMatches().get(0).getMatches().size());
+        assertEquals(0.6f, reverse.getMasterMatches().get(0).getScore(), 0.0001f);
+    }
+
+    private MatchResult createResult(String baseRecordId, String compareRecordId, float score, String namePart1,
+            String namePart2) {
+        Match match = new MatchImpl();
+        match.setJobId("job");
+        match.setBaseDatasetId("base");
+        match.setBaseRecordId(baseRecordId);
+        match.setCompareDatasetId("compare");
+        match.setCompareRecordId(compareRecordId);
+        match.setNameScore(score);
+        match.setOverallScore(score);
+        return new MatchResult(match, namePart1, namePart2, "Doe", "Jane");
+    }
+
+    private List<ConsumerRecord<String, String>> consume(String topic, int expected) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps(topic, "false", embeddedKafka.getEmbeddedKafka());
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new StringDeserializer()).createConsumer()) {
+            TopicPartition partition = new TopicPartition(topic, 0);
+            consumer.assign(Collections.singletonList(partition));
+            consumer.seekToBeginning(Collections.singletonList(partition));
+            long deadline = System.currentTimeMillis() + 30000;
+            while (records.size() < expected && System.currentTimeMillis() < deadline) {
+                consumer.poll(Duration.ofMillis(500)).forEach(records::add);
+            }
+            // anything beyond the expected messages is a failure as well
+            consumer.poll(Duration.ofMillis(500)).forEach(records::add);
+        }
+        return records;
+    }
+}
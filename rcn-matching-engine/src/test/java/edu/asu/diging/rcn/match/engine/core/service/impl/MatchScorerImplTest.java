@@ -0,0 +1,219 @@
+package edu.asu.diging.rcn.match.engine.core.service.impl;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.asu.diging.rcn.match.engine.core.service.PartType;
+import edu.asu.diging.rcn.match.engine.core.service.ScoringStage;
+import edu.asu.diging.rcn.match.engine.core.store.CandidateStore;
+import edu.asu.diging.rcn.match.engine.core.store.EntryFeatures;
+import edu.asu.diging.rcn.match.engine.core.store.RecordFeatures;
+
+/**
+ * Candidates are pruned if the upper bound of their score can't pass the
+ * match threshold, so the bound must never be below the score, or matches
+ * are silently lost.
+ */
+public class MatchScorerImplTest {
+
+    private static final String[][] NAME_PAIRS = { { "smith", "smiht" }, { "martha", "marhta" },
+            { "dwayne", "duane" }, { "dixon", "dicksonx" }, { "a", "ab" }, { "ab", "ba" }, { "jones", "jones" },
+            { "aaaa", "aaab" }, { "abcd", "abcdefghijkl" }, { "johnson", "jonhson" }, { "x", "y" },
+            { "anna", "annaanna" }, { "li", "lee" }, { "mueller", "muller" } };
+
+    private final Random random = new Random(3);
+
+    private NameScoringStage nameStage;
+
+    private MatchScorerImpl scorer;
+
+    @Before
+    public void setUp() {
+        nameStage = new NameScoringStage();
+        DateScoringStage dateStage = new DateScoringStage();
+        scorer = new MatchScorerImpl();
+        ReflectionTestUtils.setField(scorer, "availableStages", Arrays.<ScoringStage> asList(nameStage, dateStage));
+        ReflectionTestUtils.setField(scorer, "nameStage", nameStage);
+        ReflectionTestUtils.setField(scorer, "dateStage", dateStage);
+        ReflectionTestUtils.setField(scorer, "diagnostics", new DiagnosticsRecorderImpl());
+        ReflectionTestUtils.setField(scorer, "scoringStages", "name,date");
+        scorer.init();
+    }
+
+    @Test
+    public void testNameUpperBoundOfNamePairs() {
+        for (String[] pair : NAME_PAIRS) {
+            for (String[] names : new String[][] { pair, { pair[1], pair[0] } }) {
+                for (float luceneScore : new float[] { 0.5f, 2f }) {
+                    assertNameBound(person(Arrays.asList(names[0]), Arrays.asList("john")),
+                            person(Arrays.asList(names[1]), Arrays.asList("john")), luceneScore);
+                    assertNameBound(person(Arrays.asList("smith"), Arrays.asList(names[0])),
+                            person(Arrays.asList("smith"), Arrays.asList(names[1])), luceneScore);
+                    assertNameBound(person(Arrays.asList(names[0]), Arrays.asList(names[1])),
+                            person(Arrays.asList(names[1]), Arrays.asList(names[0])), luceneScore);
+                    assertNameBound(org(Arrays.asList(names[0], "university")),
+                            org(Arrays.asList("university", names[1])), luceneScore);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNameUpperBoundOfUnevenNames() {
+        // more names on one side, repeated names, and missing name parts
+        assertNameBound(person(Arrays.asList("smith", "jones"), Arrays.asList("john")),
+                person(Arrays.asList("jones"), Arrays.asList("john", "jon")), 2f);
+        assertNameBound(person(Arrays.asList("smith", "smith"), Arrays.asList("anna", "maria")),
+                person(Arrays.asList("smith", "smyth"), Arrays.asList("maria")), 0.5f);
+        assertNameBound(person(Arrays.asList("smith"), Collections.<String> emptyList()),
+                person(Arrays.asList("smith"), Arrays.asList("john")), 2f);
+        assertNameBound(person(Collections.<String> emptyList(), Arrays.asList("john")),
+                person(Collections.<String> emptyList(), Arrays.asList("john")), 2f);
+        assertNameBound(person(Arrays.asList("smith"), Arrays.asList("john")),
+                org(Arrays.asList("smith", "john")), 2f);
+    }
+
+    @Test
+    public void testNameUpperBoundOfRandomNames() {
+        for (int i = 0; i < 20000; i++) {
+            EntryFeatures entry1;
+            EntryFeatures entry2;
+            if (random.nextInt(5) == 0) {
+                entry1 = org(randomNames(1));
+                entry2 = org(randomNames(1));
+            } else {
+                entry1 = person(randomNames(0), randomNames(0));
+                entry2 = person(randomNames(0), randomNames(0));
+            }
+            assertNameBound(entry1, entry2, random.nextBoolean() ? 0.5f : 2f);
+        }
+    }
+
+    @Test
+    public void testUpperBound() {
+        int[][] years = { {}, { 1900 }, { 1901 }, { 1903 }, { 1900, 1950 } };
+        for (int i = 0; i < 5000; i++) {
+            EntryFeatures entry1 = person(randomNames(1), randomNames(1));
+            EntryFeatures entry2 = person(randomNames(1), randomNames(1));
+            if (i % 2 == 0) {
+                // similar names, so that the name score passes 0.2 and dates are added
+                entry2 = person(mutate(entry1.getNameParts().get(PartType.LAST_NAME)),
+                        entry1.getNameParts().get(PartType.FIRST_NAME));
+            }
+            int[] years1 = years[random.nextInt(years.length)];
+            int[] years2 = years[random.nextInt(years.length)];
+            RecordFeatures record1 = new RecordFeatures("r1", "d1", Collections.singletonList(entry1), years1,
+                    shift(years1, 70), null);
+            RecordFeatures record2 = new RecordFeatures("r2", "d2", Collections.singletonList(entry2), years2,
+                    shift(years2, 70 + random.nextInt(3)), null);
+            CandidateStore store = createStore(record2);
+            float luceneScore = random.nextBoolean() ? 0.5f : 2f;
+
+            float bound = scorer.upperBound(record1, entry1, store, 0, 0, luceneScore);
+            MatchScore score = scorer.score(record1, entry1, store, 0, 0, luceneScore);
+            assertTrue("Bound " + bound + " is below score " + score.getOverallScore() + " of "
+                    + entry1.getNameParts() + " " + Arrays.toString(years1) + " and " + entry2.getNameParts() + " "
+                    + Arrays.toString(years2), bound + 1e-6f >= score.getOverallScore());
+        }
+    }
+
+    private void assertNameBound(EntryFeatures entry1, EntryFeatures entry2, float luceneScore) {
+        CandidateStore store = createStore(
+                new RecordFeatures("r", "d", Collections.singletonList(entry2), new int[0], new int[0], null));
+        float bound = nameStage.upperBound(entry1, store, 0, luceneScore);
+        MatchScore score = new MatchScore();
+        nameStage.score(new ScoringContext(null, entry1, store, 0, 0, luceneScore), score);
+        assertTrue("Bound " + bound + " is below score " + score.getNameScore() + " of " + entry1.getNameParts()
+                + " and " + entry2.getNameParts(), bound + 1e-6f >= score.getNameScore());
+    }
+
+    /**
+     * Returns up to three random names from a small alphabet, so that names
+     * share prefixes and characters in different orders; with at least the
+     * given number of names.
+     */
+    private List<String> randomNames(int min) {
+        List<String> names = new ArrayList<>();
+        int count = min + random.nextInt(4 - min);
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + random.nextInt(9);
+            for (int j = 0; j < length; j++) {
+                sb.append("aeimnrst".charAt(random.nextInt(8)));
+            }
+            names.add(sb.toString());
+        }
+        return names;
+    }
+
+    /**
+     * Swaps, drops or appends characters of the names.
+     */
+    private List<String> mutate(List<String> names) {
+        List<String> mutated = new ArrayList<>();
+        for (String name : names) {
+            StringBuilder sb = new StringBuilder(name);
+            int pos = random.nextInt(sb.length());
+            switch (random.nextInt(3)) {
+            case 0:
+                if (pos + 1 < sb.length()) {
+                    char c = sb.charAt(pos);
+                    sb.setCharAt(pos, sb.charAt(pos + 1));
+                    sb.setCharAt(pos + 1, c);
+                }
+                break;
+            case 1:
+                if (sb.length() > 1) {
+                    sb.deleteCharAt(pos);
+                }
+                break;
+            default:
+                sb.append('e');
+            }
+            mutated.add(sb.toString());
+        }
+        return mutated;
+    }
+
+    private static int[] shift(int[] years, int offset) {
+        int[] shifted = new int[years.length];
+        for (int i = 0; i < years.length; i++) {
+            shifted[i] = years[i] + offset;
+        }
+        return shifted;
+    }
+
+    private static EntryFeatures person(List<String> lastNames, List<String> firstNames) {
+        return entry(lastNames, firstNames, Collections.<String> emptyList());
+    }
+
+    private static EntryFeatures org(List<String> orgNames) {
+        return entry(Collections.<String> emptyList(), Collections.<String> emptyList(), orgNames);
+    }
+
+    private static EntryFeatures entry(List<String> lastNames, List<String> firstNames, List<String> orgNames) {
+        Map<PartType, List<String>> parts = new EnumMap<>(PartType.class);
+        parts.put(PartType.LAST_NAME, lastNames);
+        parts.put(PartType.FIRST_NAME, firstNames);
+        parts.put(PartType.ORG_NAME, orgNames);
+        parts.put(PartType.OTHER, Collections.<String> emptyList());
+        return new EntryFeatures(null, parts);
+    }
+
+    private static CandidateStore createStore(RecordFeatures record) {
+        CandidateStore.Builder builder = new CandidateStore.Builder();
+        builder.addRecord(record);
+        return builder.build();
+    }
+}
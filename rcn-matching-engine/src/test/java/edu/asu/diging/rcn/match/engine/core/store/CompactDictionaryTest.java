@@ -0,0 +1,48 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CompactDictionaryTest {
+
+    @Test
+    public void testIntern() {
+        CompactDictionary dictionary = new CompactDictionary();
+        assertEquals(0, dictionary.intern("a"));
+        assertEquals(1, dictionary.intern("b"));
+        assertEquals(0, dictionary.intern(new String("a")));
+        assertEquals(2, dictionary.size());
+        assertEquals("b", dictionary.get(1));
+        assertEquals(1, dictionary.lookup("b"));
+        assertEquals(CompactDictionary.NOT_FOUND, dictionary.lookup("c"));
+        assertEquals(CompactDictionary.NOT_FOUND, dictionary.lookup(null));
+    }
+
+    @Test
+    public void testGrowth() {
+        CompactDictionary dictionary = new CompactDictionary();
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        // well past the initial capacity, with repeated and colliding keys
+        for (int i = 0; i < 50000; i++) {
+            String token = random.nextBoolean() ? "r" + random.nextInt(20000) : "Aa" + i % 100 + "BB";
+            int id = dictionary.intern(token);
+            Integer known = expected.putIfAbsent(token, id);
+            if (known != null) {
+                assertEquals((int) known, id);
+            } else {
+                assertEquals(expected.size() - 1, id);
+            }
+        }
+        assertEquals(expected.size(), dictionary.size());
+        for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), dictionary.lookup(entry.getKey()));
+            assertEquals(entry.getKey(), dictionary.get(entry.getValue()));
+        }
+    }
+}
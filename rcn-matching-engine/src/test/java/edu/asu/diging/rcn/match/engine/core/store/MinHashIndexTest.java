@@ -0,0 +1,103 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MinHashIndexTest {
+
+    private static final int KEYWORDS = 20;
+
+    private static final int RECORDS = 300;
+
+    @Test
+    public void testSignature() {
+        assertNull(MinHashIndex.signature(null));
+        assertNull(MinHashIndex.signature(Collections.<String> emptyList()));
+        int[] signature = MinHashIndex.signature(Arrays.asList("history", "physics", "vienna"));
+        assertEquals(MinHashIndex.HASHES, signature.length);
+        // the order of the keywords doesn't matter
+        assertArrayEquals(signature, MinHashIndex.signature(Arrays.asList("vienna", "history", "physics")));
+    }
+
+    @Test
+    public void testRecordsWithoutKeywords() {
+        int[] signature = MinHashIndex.signature(Arrays.asList("history", "physics"));
+        MinHashIndex index = MinHashIndex.build(2, record -> record == 0 ? signature : null);
+        IntList found = index.query(signature);
+        assertTrue(found.size() > 0);
+        for (int i = 0; i < found.size(); i++) {
+            assertEquals(0, found.get(i));
+        }
+        assertEquals(1f, index.estimateSimilarity(signature, 0), 0f);
+        assertEquals(0f, index.estimateSimilarity(signature, 1), 0f);
+    }
+
+    /**
+     * With 16 bands of 4 rows, a record with a Jaccard similarity of 0.8 is
+     * found with a probability of 1 - (1 - 0.8^4)^16 > 0.999, one with 0.1
+     * with less than 0.002.
+     */
+    @Test
+    public void testRecall() {
+        assertEquals(1f, getRecall(KEYWORDS), 0f);
+        // 18 of 22 distinct keywords shared: similarity 0.82
+        assertTrue(getRecall(18) >= 0.98f);
+        // 4 of 36 shared: similarity 0.11
+        assertTrue(getRecall(4) <= 0.05f);
+    }
+
+    @Test
+    public void testEstimateSimilarity() {
+        // 12 of 28 shared: similarity 0.43
+        int shared = 12;
+        float similarity = (float) shared / (2 * KEYWORDS - shared);
+        MinHashIndex index = MinHashIndex.build(RECORDS, record -> MinHashIndex.signature(keywords(record, shared)));
+        double error = 0;
+        for (int record = 0; record < RECORDS; record++) {
+            float estimate = index.estimateSimilarity(MinHashIndex.signature(keywords(record, KEYWORDS)), record);
+            error += Math.abs(estimate - similarity);
+        }
+        // the estimate has a standard deviation of about 0.06 with 64 hashes
+        assertTrue(error / RECORDS < 0.08);
+    }
+
+    /**
+     * Returns the share of records that are found with a query that shares
+     * the given number of its keywords with the record.
+     */
+    private float getRecall(int shared) {
+        MinHashIndex index = MinHashIndex.build(RECORDS, record -> MinHashIndex.signature(keywords(record, shared)));
+        int found = 0;
+        for (int record = 0; record < RECORDS; record++) {
+            IntList result = index.query(MinHashIndex.signature(keywords(record, KEYWORDS)));
+            for (int i = 0; i < result.size(); i++) {
+                if (result.get(i) == record) {
+                    found++;
+                    break;
+                }
+            }
+        }
+        return (float) found / RECORDS;
+    }
+
+    /**
+     * Returns the keywords of a record, of which the given number are shared
+     * with the query keywords of the record (those with all keywords shared).
+     */
+    private static List<String> keywords(int record, int shared) {
+        List<String> keywords = new ArrayList<>();
+        for (int i = 0; i < KEYWORDS; i++) {
+            keywords.add(i < shared ? "keyword" + record + "_" + i : "other" + record + "_" + i);
+        }
+        return keywords;
+    }
+}
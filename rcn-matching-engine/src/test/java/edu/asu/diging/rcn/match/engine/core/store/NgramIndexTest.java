@@ -0,0 +1,146 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.asu.diging.rcn.match.engine.core.service.PartType;
+
+public class NgramIndexTest {
+
+    @Test
+    public void testGetNgrams() {
+        assertEquals(Arrays.asList(" ab", "abc", "bc "), NgramIndex.getNgrams("abc"));
+        // short tokens have trigrams as well, thanks to the padding
+        assertEquals(Arrays.asList(" a "), NgramIndex.getNgrams("a"));
+        // repeated trigrams are only returned once
+        assertEquals(Arrays.asList(" aa", "aaa", "aa "), NgramIndex.getNgrams("aaaa"));
+        assertTrue(NgramIndex.getNgrams("").isEmpty());
+        assertTrue(NgramIndex.getNgrams(null).isEmpty());
+    }
+
+    @Test
+    public void testSearch() {
+        CandidateStore store = createStore(Arrays.asList("smith john", "smyth jon", "miller anna", "smith"));
+        NgramIndex index = NgramIndex.build(store);
+
+        NgramIndex.Hits hits = index.search(getNgrams("smith john"), 1, 10);
+        assertEquals(0, hits.getEntry(0));
+        assertEquals(getNgrams("smith john").size(), hits.getOverlap(0));
+        assertEquals(0, index.getRecord(hits.getEntry(0)));
+        Set<Integer> entries = new HashSet<>();
+        for (int i = 0; i < hits.size(); i++) {
+            entries.add(hits.getEntry(i));
+            if (i > 0) {
+                assertTrue(hits.getOverlap(i - 1) >= hits.getOverlap(i));
+            }
+        }
+        // "miller anna" shares no trigram with the query
+        assertEquals(new HashSet<>(Arrays.asList(0, 1, 3)), entries);
+
+        hits = index.search(getNgrams("smith john"), 1, 1);
+        assertEquals(1, hits.size());
+        assertEquals(0, hits.getEntry(0));
+
+        assertEquals(0, index.search(getNgrams("xyz"), 1, 10).size());
+        assertEquals(0, index.search(getNgrams("smith"), 100, 10).size());
+    }
+
+    /**
+     * Prefix filtering and early termination must not lose entries: with a
+     * large enough top K, the search returns exactly the entries a full scan
+     * finds with at least the min overlap, with the same overlaps.
+     */
+    @Test
+    public void testRecallAgainstFullScan() {
+        Random random = new Random(11);
+        String[] syllables = { "ab", "el", "mar", "tin", "son", "ka", "ri", "lo", "ne", "us", "ber", "to" };
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            names.add(randomToken(random, syllables) + " " + randomToken(random, syllables));
+        }
+        CandidateStore store = createStore(names);
+        NgramIndex index = NgramIndex.build(store);
+
+        for (int q = 0; q < 50; q++) {
+            List<String> query = getNgrams(randomToken(random, syllables) + " " + randomToken(random, syllables));
+            int minOverlap = 1 + random.nextInt(Math.max(query.size() / 2, 1));
+
+            int[] expected = new int[names.size()];
+            int expectedCount = 0;
+            for (int entry = 0; entry < names.size(); entry++) {
+                List<String> ngrams = getNgrams(names.get(entry));
+                for (String ngram : query) {
+                    if (ngrams.contains(ngram)) {
+                        expected[entry]++;
+                    }
+                }
+                if (expected[entry] >= minOverlap) {
+                    expectedCount++;
+                }
+            }
+
+            NgramIndex.Hits hits = index.search(query, minOverlap, names.size());
+            assertEquals(expectedCount, hits.size());
+            for (int i = 0; i < hits.size(); i++) {
+                assertEquals(expected[hits.getEntry(i)], hits.getOverlap(i));
+            }
+
+            // the top K are the entries with the most overlap
+            int topK = 5;
+            NgramIndex.Hits top = index.search(query, minOverlap, topK);
+            assertEquals(Math.min(topK, expectedCount), top.size());
+            for (int i = 0; i < top.size(); i++) {
+                assertEquals(hits.getOverlap(i), top.getOverlap(i));
+            }
+        }
+    }
+
+    private static String randomToken(Random random, String[] syllables) {
+        StringBuilder sb = new StringBuilder();
+        int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            sb.append(syllables[random.nextInt(syllables.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static List<String> getNgrams(String name) {
+        List<String> ngrams = new ArrayList<>();
+        for (String token : name.split(" ")) {
+            for (String ngram : NgramIndex.getNgrams(token)) {
+                if (!ngrams.contains(ngram)) {
+                    ngrams.add(ngram);
+                }
+            }
+        }
+        return ngrams;
+    }
+
+    /**
+     * Creates a store with one record of one name entry per name; the tokens
+     * of a name are its last name.
+     */
+    private static CandidateStore createStore(List<String> names) {
+        CandidateStore.Builder builder = new CandidateStore.Builder();
+        for (int i = 0; i < names.size(); i++) {
+            Map<PartType, List<String>> parts = new EnumMap<>(PartType.class);
+            parts.put(PartType.LAST_NAME, Arrays.asList(names.get(i).split(" ")));
+            EntryFeatures entry = new EntryFeatures(null, parts);
+            builder.addRecord(new RecordFeatures("r" + i, "dataset", Collections.singletonList(entry), new int[0],
+                    new int[0], null));
+        }
+        return builder.build();
+    }
+}
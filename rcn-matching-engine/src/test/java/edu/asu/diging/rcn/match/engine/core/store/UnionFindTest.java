@@ -0,0 +1,120 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class UnionFindTest {
+
+    @Test
+    public void testNewElementsAreSingletons() {
+        UnionFind sets = new UnionFind(2);
+        sets.ensureSize(5);
+        assertEquals(5, sets.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, sets.find(i));
+            assertEquals(1, sets.getSetSize(i));
+        }
+    }
+
+    @Test
+    public void testUnion() {
+        UnionFind sets = new UnionFind();
+        sets.ensureSize(6);
+        sets.union(0, 1);
+        sets.union(2, 3);
+        sets.union(3, 4);
+
+        assertEquals(sets.find(0), sets.find(1));
+        assertEquals(sets.find(2), sets.find(4));
+        assertNotEquals(sets.find(0), sets.find(2));
+        assertEquals(2, sets.getSetSize(1));
+        assertEquals(3, sets.getSetSize(4));
+        assertEquals(1, sets.getSetSize(5));
+
+        int root = sets.union(1, 4);
+        assertEquals(root, sets.find(0));
+        assertEquals(root, sets.find(3));
+        assertEquals(5, sets.getSetSize(2));
+        // merging elements of the same set changes nothing
+        assertEquals(root, sets.union(0, 4));
+        assertEquals(5, sets.getSetSize(0));
+    }
+
+    @Test
+    public void testUnionBySize() {
+        UnionFind sets = new UnionFind();
+        sets.ensureSize(4);
+        int root = sets.union(0, 1);
+        root = sets.union(root, 2);
+        // the smaller set is attached to the larger one, whichever element comes first
+        assertEquals(root, sets.union(3, 0));
+    }
+
+    @Test
+    public void testEnsureSizeKeepsSets() {
+        UnionFind sets = new UnionFind(1);
+        sets.ensureSize(3);
+        sets.union(0, 2);
+        sets.ensureSize(1000);
+        assertEquals(1000, sets.size());
+        assertEquals(sets.find(0), sets.find(2));
+        assertEquals(2, sets.getSetSize(2));
+        assertEquals(999, sets.find(999));
+        // shrinking is not possible
+        sets.ensureSize(10);
+        assertEquals(1000, sets.size());
+    }
+
+    @Test
+    public void testLongChain() {
+        int size = 100000;
+        UnionFind sets = new UnionFind();
+        sets.ensureSize(size);
+        for (int i = 1; i < size; i++) {
+            sets.union(i - 1, i);
+        }
+        int root = sets.find(0);
+        for (int i = 0; i < size; i++) {
+            assertEquals(root, sets.find(i));
+        }
+        assertEquals(size, sets.getSetSize(size - 1));
+    }
+
+    @Test
+    public void testMatchesNaiveSets() {
+        int size = 2000;
+        Random random = new Random(42);
+        UnionFind sets = new UnionFind();
+        sets.ensureSize(size);
+        int[] labels = new int[size];
+        for (int i = 0; i < size; i++) {
+            labels[i] = i;
+        }
+        for (int n = 0; n < 1500; n++) {
+            int element1 = random.nextInt(size);
+            int element2 = random.nextInt(size);
+            sets.union(element1, element2);
+            int from = labels[element2];
+            int to = labels[element1];
+            for (int i = 0; i < size; i++) {
+                if (labels[i] == from) {
+                    labels[i] = to;
+                }
+            }
+        }
+        int[] labelSizes = new int[size];
+        for (int i = 0; i < size; i++) {
+            labelSizes[labels[i]]++;
+        }
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j += 37) {
+                assertEquals(labels[i] == labels[j], sets.find(i) == sets.find(j));
+            }
+            assertEquals(labelSizes[labels[i]], sets.getSetSize(i));
+        }
+    }
+}
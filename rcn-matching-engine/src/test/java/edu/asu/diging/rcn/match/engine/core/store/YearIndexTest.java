@@ -0,0 +1,73 @@
+package edu.asu.diging.rcn.match.engine.core.store;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class YearIndexTest {
+
+    // years that could not be parsed, as the feature extractor stores them
+    private static final int UNPARSED = Integer.MAX_VALUE;
+
+    @Test
+    public void testOneYearApart() {
+        YearIndex index = createIndex(new int[][] { { 1899, 1950 } }, new int[][] { { 1900, 1951 } },
+                new int[][] { { 1901, 1952 } }, new int[][] { { 1902, 1953 } });
+
+        // start years one year apart match, two years apart don't
+        assertArrayEquals(new int[] { 0, 1, 2 }, index.findOverlapping(new int[] { 1900 }, new int[] { UNPARSED }));
+        // the same for end years
+        assertArrayEquals(new int[] { 1, 2, 3 }, index.findOverlapping(new int[] { UNPARSED }, new int[] { 1952 }));
+        // start years are only compared with start years, end years with end years
+        assertArrayEquals(new int[0], index.findOverlapping(new int[] { 1951 }, new int[] { 1900 }));
+    }
+
+    @Test
+    public void testUnparsedYears() {
+        YearIndex index = createIndex(new int[][] { { UNPARSED, UNPARSED } }, new int[][] { { 1900, UNPARSED } },
+                new int[][] { { UNPARSED, 1950 } });
+
+        // unparsed years of the base record don't match anything, not even unparsed years
+        assertArrayEquals(new int[0], index.findOverlapping(new int[] { UNPARSED }, new int[] { UNPARSED }));
+        assertArrayEquals(new int[] { 1 }, index.findOverlapping(new int[] { 1901 }, new int[] { UNPARSED }));
+        assertArrayEquals(new int[] { 2 }, index.findOverlapping(new int[] { UNPARSED }, new int[] { 1949 }));
+        // the years next to the marker for unparsed years must not overflow into it
+        assertArrayEquals(new int[0],
+                index.findOverlapping(new int[] { UNPARSED - 1 }, new int[] { Integer.MIN_VALUE }));
+    }
+
+    @Test
+    public void testSeveralRanges() {
+        YearIndex index = createIndex(new int[][] { { 1800, 1850 }, { 1900, 1950 } },
+                new int[][] { { 1700, 1750 } }, new int[0][]);
+
+        // records with several matching ranges are returned once
+        assertArrayEquals(new int[] { 0 },
+                index.findOverlapping(new int[] { 1800, 1901 }, new int[] { 1850, 1949 }));
+        assertArrayEquals(new int[] { 0, 1 },
+                index.findOverlapping(new int[] { 1701, 1801 }, new int[] { UNPARSED, UNPARSED }));
+        // records without year ranges are never returned
+        assertArrayEquals(new int[0], index.findOverlapping(new int[0], new int[0]));
+    }
+
+    /**
+     * Creates the index of a store with one record per argument, holding the
+     * given {from, to} year ranges.
+     */
+    private static YearIndex createIndex(int[][]... records) {
+        CandidateStore.Builder builder = new CandidateStore.Builder();
+        for (int i = 0; i < records.length; i++) {
+            int[] from = new int[records[i].length];
+            int[] to = new int[records[i].length];
+            for (int range = 0; range < records[i].length; range++) {
+                from[range] = records[i][range][0];
+                to[range] = records[i][range][1];
+            }
+            builder.addRecord(new RecordFeatures("r" + i, "dataset", Collections.<EntryFeatures> emptyList(), from,
+                    to, null));
+        }
+        return YearIndex.build(builder.build());
+    }
+}